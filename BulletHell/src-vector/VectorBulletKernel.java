@@ -0,0 +1,49 @@
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// BulletKernel on SIMD lanes with the incubating Vector API: as many bullets a step as the CPU's
+// widest int vector holds (8 with AVX2), the rest by the scalar loop. Kept out of src because it
+// only compiles and runs with --add-modules jdk.incubator.vector; BulletKernel loads it by name
+// when it is there. See the README for building it.
+public class VectorBulletKernel extends BulletKernel {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public String getName() {
+        return "vector x" + SPECIES.length();
+    }
+
+    @Override
+    public void step(int count, int[] x, int[] y, int[] vx, int[] vy, int[] prevX, int[] prevY,
+                     int[] flags, int[] limits) {
+        int minX = limits[MIN_X], minY = limits[MIN_Y], maxX = limits[MAX_X], maxY = limits[MAX_Y];
+        int boxMinX = limits[BOX_MIN_X], boxMinY = limits[BOX_MIN_Y];
+        int boxMaxX = limits[BOX_MAX_X], boxMaxY = limits[BOX_MAX_Y];
+        IntVector none = IntVector.zero(SPECIES);
+        int i = 0;
+        for (int upper = SPECIES.loopBound(count); i < upper; i += SPECIES.length()) {
+            IntVector px = IntVector.fromArray(SPECIES, x, i);
+            IntVector py = IntVector.fromArray(SPECIES, y, i);
+            IntVector nx = px.add(IntVector.fromArray(SPECIES, vx, i));
+            IntVector ny = py.add(IntVector.fromArray(SPECIES, vy, i));
+            px.intoArray(prevX, i);
+            py.intoArray(prevY, i);
+            nx.intoArray(x, i);
+            ny.intoArray(y, i);
+
+            VectorMask<Integer> out = nx.compare(VectorOperators.LT, minX)
+                .or(nx.compare(VectorOperators.GT, maxX))
+                .or(ny.compare(VectorOperators.LT, minY))
+                .or(ny.compare(VectorOperators.GT, maxY));
+            VectorMask<Integer> near = px.max(nx).compare(VectorOperators.GT, boxMinX)
+                .and(px.min(nx).compare(VectorOperators.LT, boxMaxX))
+                .and(py.max(ny).compare(VectorOperators.GT, boxMinY))
+                .and(py.min(ny).compare(VectorOperators.LT, boxMaxY));
+            // OUT wins over NEAR, as in the scalar loop
+            none.blend(NEAR, near).blend(OUT, out).intoArray(flags, i);
+        }
+        stepScalar(i, count, x, y, vx, vy, prevX, prevY, flags, limits);
+    }
+}
@@ -1,6 +1,12 @@
 import java.awt.*;
 
 public class AchievementPopup {
+    private static final Color BACKGROUND = new Color(50, 150, 100);
+    private static final Color BORDER = new Color(100, 255, 150);
+    private static final Stroke BORDER_STROKE = new BasicStroke(2);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 12);
+    private static final Font NAME_FONT = new Font("Arial", Font.PLAIN, 11);
+
     private String achievement;
     private int x, y;
     private int lifetime = 180; // 3 seconds at 60 FPS
@@ -31,18 +37,18 @@ public class AchievementPopup {
 
         // Draw semi-transparent background
         g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha * 0.9f));
-        g.setColor(new Color(50, 150, 100));
+        g.setColor(BACKGROUND);
         g.fillRoundRect(x, y, WIDTH, HEIGHT, 10, 10);
 
         // Draw border
-        g.setColor(new Color(100, 255, 150));
-        g.setStroke(new BasicStroke(2));
+        g.setColor(BORDER);
+        g.setStroke(BORDER_STROKE);
         g.drawRoundRect(x, y, WIDTH, HEIGHT, 10, 10);
 
         // Draw text
         g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, alpha));
         g.setColor(Color.WHITE);
-        g.setFont(new Font("Arial", Font.BOLD, 12));
+        g.setFont(TITLE_FONT);
         FontMetrics fm = g.getFontMetrics();
 
         String text1 = "Achievement Unlocked!";
@@ -51,7 +57,7 @@ public class AchievementPopup {
         int x1 = x + (WIDTH - fm.stringWidth(text1)) / 2;
         g.drawString(text1, x1, y + 20);
 
-        g.setFont(new Font("Arial", Font.PLAIN, 11));
+        g.setFont(NAME_FONT);
         fm = g.getFontMetrics();
         int x2 = x + (WIDTH - fm.stringWidth(text2)) / 2;
         g.drawString(text2, x2, y + 40);
@@ -1,78 +1,211 @@
 import java.io.*;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class Achievements {
-    private Map<String, Boolean> achievements;
+    // Stable ids: an achievement's index in this array is its bit in the profile file.
+    // Only ever append new achievements; never reorder or remove entries.
+    private static final String[] ACHIEVEMENT_IDS = {
+        "First Blood",          // Kill first enemy
+        "Wave Survivor",        // Survive wave 5
+        "First Boss",           // Defeat first boss
+        "Medic",                // Collect 5 healing items
+        "Wave Slayer",          // Survive 10 waves without taking damage
+        "Sharpshooter",         // Kill 50 enemies
+        "Wave Master",          // Reach wave 20
+        "Wave Obliterator",     // Reach wave 30
+        "Purple Hunter",        // Kill 3 purple circle enemies
+        "Untouchable",          // Reach wave 10 without damage
+        "Second Boss",          // Defeat second boss
+    };
+
     private static final String SAVE_FILE = "achievements.dat";
+    private static final Path SAVE_PATH = Paths.get(SAVE_FILE);
+    private static final Path TEMP_PATH = Paths.get(SAVE_FILE + ".tmp");
+
+    // Profile layout (big-endian, fixed size):
+    //   int magic, short version, short achievementCount, long unlockedBits,
+    //   int totalKills, int bestWave, int healingPickups
+    // Newer versions may only append fields, so older readers can still read the prefix.
+    private static final int MAGIC = 0x42485046; // "BHPF"
+    private static final short VERSION = 1;
+    private static final int PROFILE_SIZE = 4 + 2 + 2 + 8 + 4 + 4 + 4;
+    // First two bytes of a Java serialization stream (the pre-profile save format)
+    private static final int LEGACY_MAGIC = 0xACED;
+
+    private long unlockedBits = 0;
+    private int totalKills = 0;
+    private int bestWave = 0;
+    private int healingPickups = 0;
+    private boolean dirty = false;
+    private final boolean persistent;
+    private final ByteBuffer buffer = ByteBuffer.allocate(PROFILE_SIZE);
 
     public Achievements() {
-        achievements = new HashMap<>();
-        initializeAchievements();
-        loadAchievements();
+        this(true);
     }
 
-    private void initializeAchievements() {
-        achievements.put("First Blood", false);           // Kill first enemy
-        achievements.put("Wave Survivor", false);         // Survive wave 5
-        achievements.put("First Boss", false);            // Defeat first boss
-        achievements.put("Medic", false);                 // Collect 5 healing items
-        achievements.put("Wave Slayer", false);           // Survive 10 waves without taking damage
-        achievements.put("Sharpshooter", false);          // Kill 50 enemies
-        achievements.put("Wave Master", false);           // Reach wave 20
-        achievements.put("Wave Obliterator", false);      // Reach wave 30
-        achievements.put("Purple Hunter", false);         // Kill 3 purple circle enemies
-        achievements.put("Untouchable", false);           // Reach wave 10 without damage
-        achievements.put("Second Boss", false);           // Defeat second boss
+    // A non-persistent profile never touches the save file (used for replays and benchmarks)
+    public Achievements(boolean persistent) {
+        this.persistent = persistent;
+        if (persistent) {
+            loadProfile();
+        }
     }
 
     public boolean unlock(String achievement) {
-        if (achievements.containsKey(achievement) && !achievements.get(achievement)) {
-            achievements.put(achievement, true);
-            saveAchievements();
+        int id = idOf(achievement);
+        if (id >= 0 && (unlockedBits & (1L << id)) == 0) {
+            unlockedBits |= 1L << id;
+            dirty = true;
+            save();
             return true;
         }
         return false;
     }
 
     public boolean isUnlocked(String achievement) {
-        return achievements.getOrDefault(achievement, false);
+        int id = idOf(achievement);
+        return id >= 0 && (unlockedBits & (1L << id)) != 0;
     }
 
     public Map<String, Boolean> getAllAchievements() {
-        return new HashMap<>(achievements);
+        Map<String, Boolean> all = new LinkedHashMap<>();
+        for (int i = 0; i < ACHIEVEMENT_IDS.length; i++) {
+            all.put(ACHIEVEMENT_IDS[i], (unlockedBits & (1L << i)) != 0);
+        }
+        return all;
     }
 
     public int getUnlockedCount() {
-        return (int) achievements.values().stream().filter(v -> v).count();
+        return Long.bitCount(unlockedBits);
     }
 
     public int getTotalCount() {
-        return achievements.size();
+        return ACHIEVEMENT_IDS.length;
+    }
+
+    // Lifetime counters; these are only written to disk on the next save()
+    public void recordKill() {
+        totalKills++;
+        dirty = true;
+    }
+
+    public void recordHealingPickup() {
+        healingPickups++;
+        dirty = true;
+    }
+
+    public void recordWaveReached(int wave) {
+        if (wave > bestWave) {
+            bestWave = wave;
+            dirty = true;
+        }
     }
 
-    private void saveAchievements() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(SAVE_FILE))) {
-            oos.writeObject(achievements);
+    public int getTotalKills() { return totalKills; }
+    public int getBestWave() { return bestWave; }
+    public int getHealingPickups() { return healingPickups; }
+
+    private static int idOf(String achievement) {
+        for (int i = 0; i < ACHIEVEMENT_IDS.length; i++) {
+            if (ACHIEVEMENT_IDS[i].equals(achievement)) return i;
+        }
+        return -1;
+    }
+
+    // Cheap enough to call at every wave boundary: a single 28-byte write, skipped when nothing changed
+    public void save() {
+        if (!persistent || !dirty) return;
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.putShort((short) ACHIEVEMENT_IDS.length);
+        buffer.putLong(unlockedBits);
+        buffer.putInt(totalKills);
+        buffer.putInt(bestWave);
+        buffer.putInt(healingPickups);
+        buffer.flip();
+        try {
+            // Write to a temp file and swap it in so a crash mid-save can't corrupt the profile
+            try (FileChannel channel = FileChannel.open(TEMP_PATH, StandardOpenOption.WRITE,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            try {
+                Files.move(TEMP_PATH, SAVE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(TEMP_PATH, SAVE_PATH, StandardCopyOption.REPLACE_EXISTING);
+            }
+            dirty = false;
+        } catch (IOException e) {
+            // Keep dirty set so the next save retries
+            Log.warn("Achievements", "Couldn't save " + SAVE_PATH, e);
+        }
+    }
+
+    private void loadProfile() {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(SAVE_PATH);
+        } catch (NoSuchFileException e) {
+            return; // Use defaults if no save file exists
         } catch (IOException e) {
-            // Silently fail if save doesn't work
+            Log.warn("Achievements", "Couldn't read " + SAVE_PATH + ", using defaults", e);
+            return;
+        }
+
+        if (data.length >= 2 && ((data[0] & 0xFF) << 8 | (data[1] & 0xFF)) == LEGACY_MAGIC) {
+            migrateLegacy(data);
+            return;
         }
+
+        if (data.length < PROFILE_SIZE) return;
+        ByteBuffer in = ByteBuffer.wrap(data);
+        if (in.getInt() != MAGIC) return;
+        in.getShort(); // version: all versions share the v1 prefix
+        int count = in.getShort();
+        long bits = in.getLong();
+        // Ignore bits for achievements this build doesn't know about
+        if (count < 64) bits &= (1L << count) - 1;
+        unlockedBits = bits & ((1L << ACHIEVEMENT_IDS.length) - 1);
+        totalKills = in.getInt();
+        bestWave = in.getInt();
+        healingPickups = in.getInt();
     }
 
+    // Old saves were a Java-serialized HashMap<String, Boolean>. Read them once through a
+    // strict filter (only the classes that format can contain; HashMap checks its table as a
+    // Map.Entry array) and rewrite as a profile.
     @SuppressWarnings("unchecked")
-    private void loadAchievements() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(SAVE_FILE))) {
+    private void migrateLegacy(byte[] data) {
+        ObjectInputFilter filter = ObjectInputFilter.Config.createFilter(
+            "maxdepth=3;maxrefs=256;maxbytes=65536;java.util.HashMap;java.util.Map$Entry;java.lang.String;java.lang.Boolean;!*");
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            ois.setObjectInputFilter(filter);
             Map<String, Boolean> loaded = (Map<String, Boolean>) ois.readObject();
-            achievements.putAll(loaded);
-        } catch (IOException | ClassNotFoundException e) {
-            // Use defaults if no save file exists
+            for (Map.Entry<String, Boolean> entry : loaded.entrySet()) {
+                int id = idOf(entry.getKey());
+                if (id >= 0 && Boolean.TRUE.equals(entry.getValue())) {
+                    unlockedBits |= 1L << id;
+                }
+            }
+            dirty = true;
+            save();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Unreadable legacy save: start from defaults
+            Log.warn("Achievements", "Couldn't migrate legacy save " + SAVE_PATH + ", using defaults", e);
         }
     }
 
     public void resetAchievements() {
-        for (String key : achievements.keySet()) {
-            achievements.put(key, false);
-        }
-        saveAchievements();
+        unlockedBits = 0;
+        dirty = true;
+        save();
     }
 }
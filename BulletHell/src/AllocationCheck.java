@@ -0,0 +1,110 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// Runs the game headless with scripted input and reports how many bytes each tick allocates,
+// overall and per profiler section. Exits with status 1 if the steady state is over budget,
+// so a change that starts creating garbage every frame shows up before it shows up as GC pauses.
+//
+// The player is invulnerable and never clears the wave, so every measured tick is the wave asked
+// for. If the wave changes anyway the numbers mean nothing, and the check fails. Paint includes
+// Java2D's own garbage, some 50-90 bytes for each antialiased shape filled or stroked, so the
+// busiest waves (25 and up) need a bigger --paint-budget.
+//   java -Djava.awt.headless=true AllocationCheck [--wave N] [--seed S] [--warmup T] [--ticks T]
+//                                               [--budget <bytes per tick>] [--paint-budget <bytes per frame>]
+public class AllocationCheck {
+    public static void main(String[] args) {
+        int wave = 1;
+        long seed = 1;
+        int warmup = 600;
+        int ticks = 3600;
+        long budget = 4096;
+        long paintBudget = 4096;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--wave": wave = Integer.parseInt(args[i + 1]); break;
+                case "--seed": seed = Long.parseLong(args[i + 1]); break;
+                case "--warmup": warmup = Integer.parseInt(args[i + 1]); break;
+                case "--ticks": ticks = Integer.parseInt(args[i + 1]); break;
+                case "--budget": budget = Long.parseLong(args[i + 1]); break;
+                case "--paint-budget": paintBudget = Long.parseLong(args[i + 1]); break;
+                default:
+                    System.err.println("Unknown option " + args[i]);
+                    System.exit(2);
+            }
+        }
+        if (!FrameProfiler.isAllocationTrackingSupported()) {
+            System.err.println("This JVM can't count allocated bytes per thread");
+            System.exit(2);
+        }
+
+        GamePanel panel = new GamePanel(new Achievements(false), wave, seed);
+        panel.getPlayer().setInvulnerable(true);
+        BufferedImage image = new BufferedImage(1000, 700, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        InputFrame frame = new InputFrame();
+        frame.width = 1000;
+        frame.height = 700;
+
+        for (int t = 0; t < warmup; t++) {
+            script(frame, t);
+            panel.step(frame);
+            panel.paintComponent(g);
+        }
+
+        FrameProfiler profiler = panel.getProfiler();
+        profiler.setEnabled(true);
+        long stepBytes = 0;
+        long paintBytes = 0;
+        long worstStep = 0;
+        for (int t = warmup; t < warmup + ticks; t++) {
+            script(frame, t);
+            long before = FrameProfiler.allocatedBytes();
+            panel.step(frame);
+            long mid = FrameProfiler.allocatedBytes();
+            panel.paintComponent(g);
+            long after = FrameProfiler.allocatedBytes();
+            stepBytes += mid - before;
+            paintBytes += after - mid;
+            worstStep = Math.max(worstStep, mid - before);
+        }
+        g.dispose();
+
+        long stepAvg = stepBytes / ticks;
+        long paintAvg = paintBytes / ticks;
+        System.out.printf("%d ticks of wave %d%n", ticks, wave);
+        System.out.printf("step:  %d bytes/tick (worst %d), budget %d%n", stepAvg, worstStep, budget);
+        System.out.printf("paint: %d bytes/frame, budget %d%n", paintAvg, paintBudget);
+        System.out.printf("%-18s %12s%n", "section", "bytes/tick");
+        for (FrameProfiler.Section section : FrameProfiler.Section.values()) {
+            long samples = profiler.getTotalSamples(section);
+            if (samples == 0) continue;
+            System.out.printf("%-18s %12d%n", section.getLabel(), profiler.getTotalBytes(section) / samples);
+        }
+        // The update section holds every other step section, so this is what none of them saw
+        long unattributed = stepBytes - profiler.getTotalBytes(FrameProfiler.Section.UPDATE);
+        System.out.printf("%-18s %12d%n", "outside sections", unattributed / ticks);
+
+        boolean failed = false;
+        if (panel.getWaveNumber() != wave) {
+            System.out.printf("WAVE CHANGED to %d, so this wasn't a steady state%n", panel.getWaveNumber());
+            failed = true;
+        }
+        if (stepAvg > budget || paintAvg > paintBudget) {
+            System.out.println("OVER BUDGET");
+            failed = true;
+        }
+        System.exit(failed ? 1 : 0);
+    }
+
+    // Strafe along the bottom edge, shooting straight down off the screen so the shots are made,
+    // moved and dropped without killing the wave; take the first upgrade if one is offered
+    private static void script(InputFrame frame, int t) {
+        frame.keyBits = InputFrame.KEY_DOWN | ((t / 90) % 2 == 0 ? InputFrame.KEY_LEFT : InputFrame.KEY_RIGHT);
+        frame.mouseX = frame.width / 2;
+        frame.mouseY = frame.height * 10;
+        frame.shoot = t % 4 == 0;
+        frame.dash = t % 150 == 0;
+        frame.upgradeChoice = 0;
+        frame.paused = false;
+    }
+}
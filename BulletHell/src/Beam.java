@@ -1,4 +1,7 @@
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Beam {
     private int x, y;
@@ -11,13 +14,36 @@ public class Beam {
     private static final int FLASH_DURATION = 15;
     private static final int SHRINK_DURATION = 20; // Shrink duration
     private static final int FADE_DURATION = 30; // Extra fade duration for complete visual fade
+    static final int SAFE_RADIUS_SQ = 20 * 20; // no damage this close to the origin
+
+    private static final Color WARNING_FILL = new Color(255, 255, 0, 200);
+    private static final Color PATH_FILL = new Color(255, 255, 100, 100); // Semi-transparent yellow rectangle
+    private static final Color PATH_BORDER = new Color(255, 255, 0, 150); // Yellow border
+    private static final Color[] BEAM = Colors.alphaRamp(Color.WHITE);
+    private static final Stroke WARNING_STROKE = new BasicStroke(2);
+    private static final Stroke PATH_STROKE = new BasicStroke(1);
 
     public Beam(int x, int y, int screenWidth, int screenHeight, double angle) {
+        this(x, y, screenWidth, screenHeight, angle, true);
+    }
+
+    // With announce false the caller reports the spawn later through announce(); enemy AI can run
+    // on ParallelAi workers, which mustn't touch the flight recorder
+    public Beam(int x, int y, int screenWidth, int screenHeight, double angle, boolean announce) {
         this.x = x;
         this.y = y;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
         this.angle = angle;
+        if (announce) announce();
+    }
+
+    public void announce() {
+        GameEvents.beamSpawned(x, y, angle, false);
+    }
+
+    // Empty beam for RunSnapshot to restore into; not a spawn
+    public Beam() {
     }
 
     public void update() {
@@ -38,10 +64,10 @@ public class Beam {
     public void draw(Graphics2D g) {
         if (state == 0) {
             // Warning state - yellow circle at beam origin with rectangle showing beam direction
-            g.setColor(new Color(255, 255, 0, 200));
+            g.setColor(WARNING_FILL);
             g.fillOval(x - warningSize / 2, y - warningSize / 2, warningSize, warningSize);
             g.setColor(Color.YELLOW);
-            g.setStroke(new BasicStroke(2));
+            g.setStroke(WARNING_STROKE);
             g.drawOval(x - warningSize / 2, y - warningSize / 2, warningSize, warningSize);
             
             // Draw transparent rectangle showing where beam will go
@@ -50,17 +76,17 @@ public class Beam {
             g.rotate(angle);
             
             int beamLength = (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight) * 2;
-            g.setColor(new Color(255, 255, 100, 100)); // Semi-transparent yellow rectangle
+            g.setColor(PATH_FILL);
             g.fillRect(-beamLength / 2, -30, beamLength, 60);
-            g.setColor(new Color(255, 255, 0, 150)); // Yellow border
-            g.setStroke(new BasicStroke(1));
+            g.setColor(PATH_BORDER);
+            g.setStroke(PATH_STROKE);
             g.drawRect(-beamLength / 2, -30, beamLength, 60);
             
             g.setTransform(originalTransform);
         } else if (state == 1) {
             // Flashing white beam spanning screen
             float flash = (stateTimer % 3 < 1) ? 1f : 0.7f;
-            g.setColor(new Color(1f, 1f, 1f, flash * 0.8f));
+            g.setColor(Colors.fade(BEAM, flash * 0.8f));
             
             // Draw rectangular beam rotated around origin point
             java.awt.geom.AffineTransform originalTransform = g.getTransform();
@@ -76,7 +102,7 @@ public class Beam {
             // Shrinking 
             float progress = (float) stateTimer / SHRINK_DURATION;
             float alpha = 1f - (progress * 0.5f); // Fade to 50% during shrink
-            g.setColor(new Color(1f, 1f, 1f, alpha * 0.6f));
+            g.setColor(Colors.fade(BEAM, alpha * 0.6f));
             
             java.awt.geom.AffineTransform originalTransform = g.getTransform();
             g.translate(x, y);
@@ -91,7 +117,7 @@ public class Beam {
             // Fading out completely
             float progress = (float) stateTimer / FADE_DURATION;
             float alpha = (1f - progress) * 0.9f; // Fade from 30% to 0%
-            g.setColor(new Color(1f, 1f, 1f, alpha));
+            g.setColor(Colors.fade(BEAM, alpha));
             
             java.awt.geom.AffineTransform originalTransform = g.getTransform();
             g.translate(x, y);
@@ -108,36 +134,23 @@ public class Beam {
         return state == 3 && stateTimer >= FADE_DURATION;
     }
 
-    public boolean checkCollision(int px, int py) {
-        // Use rotated-rectangle collision matching the visual beam rect.
-        // Transform point into beam-local coordinates by translating to (x,y)
-        double dx = px - x;
-        double dy = py - y;
-        double c = Math.cos(angle);
-        double s = Math.sin(angle);
-        // rotate point by -angle: x' = c*dx + s*dy; y' = -s*dx + c*dy
-        double localX = c * dx + s * dy;
-        double localY = -s * dx + c * dy;
-
-        int beamLength = (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight) * 2;
-
-        // Only active/flashing/shrinking beams should damage (state 1 or 2)
+    // Half-height of the damaging rectangle this tick, or -1 while the beam can't hurt.
+    // Only active/flashing/shrinking beams should damage (state 1 or 2).
+    public int damageHalfHeight() {
         if (state == 1) {
-            int halfH = 30; // visual half-height during flash
-            if (localX >= -beamLength / 2 && localX <= beamLength / 2 && localY >= -halfH && localY <= halfH) {
-                // avoid near-origin hits
-                if (Math.hypot(localX, localY) > 20) return true;
-            }
+            return 30; // visual half-height during flash
         } else if (state == 2) {
             // shrinking height depends on progress
             float progress = (float) stateTimer / SHRINK_DURATION;
             int shrinkH = (int) (60 * (1 - progress));
-            int halfH = Math.max(4, shrinkH / 2);
-            if (localX >= -beamLength / 2 && localX <= beamLength / 2 && localY >= -halfH && localY <= halfH) {
-                if (Math.hypot(localX, localY) > 20) return true;
-            }
+            return Math.max(4, shrinkH / 2);
         }
-        return false;
+        return -1;
+    }
+
+    // The beam is drawn two screen diagonals long, centred on its origin
+    public int halfLength() {
+        return (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight);
     }
 
     public void setRemoveAfterFade(boolean remove) {
@@ -147,6 +160,28 @@ public class Beam {
     public int getX() { return x; }
     public int getY() { return y; }
     public int getState() { return state; }
+    public double getAngle() { return angle; }
     public int getStateTimer() { return stateTimer; }
-}
 
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(state);
+        out.writeInt(stateTimer);
+        out.writeInt(warningSize);
+        out.writeInt(screenWidth);
+        out.writeInt(screenHeight);
+        out.writeDouble(angle);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        x = in.readInt();
+        y = in.readInt();
+        state = in.readInt();
+        stateTimer = in.readInt();
+        warningSize = in.readInt();
+        screenWidth = in.readInt();
+        screenHeight = in.readInt();
+        angle = in.readDouble();
+    }
+}
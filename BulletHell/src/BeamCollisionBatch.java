@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Damaging beams for one tick, turned into plain numbers once so any number of points can be
+// tested against all of them without trig. Each beam becomes its two local axes through the
+// origin (the half-plane pairs that bound the rectangle along and across it) plus the ranges a
+// point's projections must fall in:
+//
+//   along  = cos * px + sin * py - alongOffset     in [minAlong, maxAlong]
+//   across = -sin * px + cos * py - acrossOffset   in [-halfWidth, halfWidth]
+//   along^2 + across^2 > SAFE_RADIUS_SQ            (no damage right at the origin)
+//
+// The arrays only grow, so a steady stream of beams causes no garbage.
+public class BeamCollisionBatch {
+    private int count = 0;
+    private double[] cos = new double[16];
+    private double[] sin = new double[16];
+    private double[] alongOffset = new double[16];
+    private double[] acrossOffset = new double[16];
+    private int[] minAlong = new int[16];
+    private int[] maxAlong = new int[16];
+    private int[] halfWidth = new int[16];
+    private int[] minX = new int[16], minY = new int[16], maxX = new int[16], maxY = new int[16];
+
+    public void clear() {
+        count = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Beams that are only warning or fading are skipped
+    public void add(Beam beam) {
+        int halfH = beam.damageHalfHeight();
+        if (halfH < 0) return;
+        int halfLength = beam.halfLength();
+        add(beam.getX(), beam.getY(), beam.getAngle(), -halfLength, halfLength, halfH);
+    }
+
+    public void add(RotatingBeam beam) {
+        add(beam.getCenterX(), beam.getCenterY(), beam.getAngle(), 0, beam.length(), RotatingBeam.HALF_WIDTH);
+    }
+
+    public void addBeams(ArrayList<Beam> beams) {
+        for (int i = 0; i < beams.size(); i++) {
+            add(beams.get(i));
+        }
+    }
+
+    public void addRotatingBeams(ArrayList<RotatingBeam> beams) {
+        for (int i = 0; i < beams.size(); i++) {
+            add(beams.get(i));
+        }
+    }
+
+    private void add(int x, int y, double angle, int min, int max, int halfH) {
+        if (count == cos.length) grow();
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+        cos[count] = c;
+        sin[count] = s;
+        alongOffset[count] = c * x + s * y;
+        acrossOffset[count] = -s * x + c * y;
+        minAlong[count] = min;
+        maxAlong[count] = max;
+        halfWidth[count] = halfH;
+        // Axis-aligned bounds of the rectangle, rounded outwards
+        double mid = (min + max) / 2.0;
+        double halfAlong = (max - min) / 2.0;
+        double cx = x + c * mid;
+        double cy = y + s * mid;
+        double extentX = Math.abs(c) * halfAlong + Math.abs(s) * halfH;
+        double extentY = Math.abs(s) * halfAlong + Math.abs(c) * halfH;
+        minX[count] = (int) Math.floor(cx - extentX);
+        minY[count] = (int) Math.floor(cy - extentY);
+        maxX[count] = (int) Math.ceil(cx + extentX);
+        maxY[count] = (int) Math.ceil(cy + extentY);
+        count++;
+    }
+
+    public int minX(int beam) { return minX[beam]; }
+    public int minY(int beam) { return minY[beam]; }
+    public int maxX(int beam) { return maxX[beam]; }
+    public int maxY(int beam) { return maxY[beam]; }
+
+    // Is the point inside any beam?
+    public boolean hits(int px, int py) {
+        return firstHit(px, py) >= 0;
+    }
+
+    // Index (in the order added) of the first beam containing the point, or -1
+    public int firstHit(int px, int py) {
+        for (int i = 0; i < count; i++) {
+            if (contains(i, px, py)) return i;
+        }
+        return -1;
+    }
+
+    // Tests count points against every beam at once. hit[k] is set for each point inside a beam;
+    // returns how many were.
+    public int hitPoints(int[] xs, int[] ys, int points, boolean[] hit) {
+        Arrays.fill(hit, 0, points, false);
+        int hits = 0;
+        // Beam-major, so each beam's numbers stay in registers while the points stream past
+        for (int i = 0; i < count; i++) {
+            for (int k = 0; k < points; k++) {
+                if (!hit[k] && contains(i, xs[k], ys[k])) {
+                    hit[k] = true;
+                    hits++;
+                }
+            }
+        }
+        return hits;
+    }
+
+    // Is the point inside beam i?
+    public boolean contains(int i, int px, int py) {
+        double along = cos[i] * px + sin[i] * py - alongOffset[i];
+        if (along < minAlong[i] || along > maxAlong[i]) return false;
+        double across = -sin[i] * px + cos[i] * py - acrossOffset[i];
+        if (across < -halfWidth[i] || across > halfWidth[i]) return false;
+        return along * along + across * across > Beam.SAFE_RADIUS_SQ;
+    }
+
+    private void grow() {
+        int capacity = cos.length * 2;
+        cos = Arrays.copyOf(cos, capacity);
+        sin = Arrays.copyOf(sin, capacity);
+        alongOffset = Arrays.copyOf(alongOffset, capacity);
+        acrossOffset = Arrays.copyOf(acrossOffset, capacity);
+        minAlong = Arrays.copyOf(minAlong, capacity);
+        maxAlong = Arrays.copyOf(maxAlong, capacity);
+        halfWidth = Arrays.copyOf(halfWidth, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+    }
+}
@@ -1,20 +1,37 @@
 import java.awt.*;
 import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Boss {
+    private static final int HALF_WIDTH = 30, HALF_HEIGHT = 40; // the hit box, from the centre
     private int x, y;
+    private int fixedX; // 16.16 x for the slow drift (see Fixed)
+    private int handle; // from EntityHandles; 0 until the first collision pass
     private int maxHP;
     private int hp;
     private int shootCooldown = 0;
     private int attackPattern = 0;
     private int patternTimer = 0;
     private static final int PATTERN_DURATION = 120;
+    // Volleys for attack patterns 0-3: spiral, aimed burst, random spread, and the small ring
+    // that goes with the beams
+    private static final BulletPattern[] VOLLEYS = {
+        BulletPattern.ring(8).spin(1 / 30.0).look(5, Color.RED, 1).compile(),
+        new BulletPattern(5, 0.8).aim(BulletPattern.Aim.TARGET).look(5, Color.RED, 1).compile(),
+        BulletPattern.ring(6).aim(BulletPattern.Aim.RANDOM).look(5, Color.RED, 1).compile(),
+        BulletPattern.ring(4).look(3, Color.RED, 1).compile()
+    };
     private ArrayList<Beam> beams;
     private int beamSpawnTimer = 0;
+    private final GameRandom random;
 
-    public Boss(int x, int y, int wave) {
+    public Boss(int x, int y, int wave, GameRandom random) {
         this.x = x;
         this.y = y;
+        this.fixedX = Fixed.of(x);
+        this.random = random;
         this.maxHP = 50 + (wave / 10) * 30;
         this.hp = maxHP;
         this.beams = new ArrayList<>();
@@ -22,14 +39,14 @@ public class Boss {
 
     public void update(int width, int height, int wave) {
         // Boss moves slowly
-        x += (Math.random() - 0.5) * 2;
-        x = Math.max(50, Math.min(width - 50, x));
+        fixedX = Fixed.follow(fixedX, x) + Fixed.of((random.nextDouble() - 0.5) * 2);
+        x = Math.max(50, Math.min(width - 50, Fixed.toInt(fixedX)));
 
         patternTimer++;
         if (patternTimer >= PATTERN_DURATION) {
             patternTimer = 0;
             // Beam attacks are much more common (3 out of 5)
-            int choice = (int)(Math.random() * 5);
+            int choice = (int)(random.nextDouble() * 5);
             if (choice < 3) {
                 attackPattern = 3; // Beam attack
             } else {
@@ -49,18 +66,18 @@ public class Boss {
         }
     }
 
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles, int playerX, int playerY, int width, int height) {
+    public void spawnProjectiles(ShotBuffer projectiles, int playerX, int playerY, int width, int height) {
         // Handle beam spawning separately from cooldown - can happen during any pattern
         if (attackPattern == 3) {
             beamSpawnTimer++;
             if (beamSpawnTimer == 1) {
-                int numBeams = 2 + (int)(Math.random() * 5); // 2-6 beams
+                int numBeams = 2 + (int)(random.nextDouble() * 5); // 2-6 beams
                 if (hp < maxHP / 2) numBeams += 3;
                 if (hp < maxHP / 3) numBeams += 4;
                 for (int i = 0; i < numBeams; i++) {
-                    int beamX = 100 + (int)(Math.random() * (width - 200));
-                    int beamY = 100 + (int)(Math.random() * (height - 200));
-                    double randomAngle = Math.random() * Math.PI * 2;
+                    int beamX = 100 + (int)(random.nextDouble() * (width - 200));
+                    int beamY = 100 + (int)(random.nextDouble() * (height - 200));
+                    double randomAngle = random.nextDouble() * Math.PI * 2;
                     beams.add(new Beam(beamX, beamY, width, height, randomAngle));
                 }
             }
@@ -78,7 +95,7 @@ public class Boss {
             for (Beam beam : beams) {
                 if (beam.getState() == 2 && beam.getStateTimer() == 1) {
                     // Fire projectile at this location
-                    projectiles.add(new EnemyProjectile(beam.getX(), beam.getY(), 0, 8, new Color(255, 100, 100), 3));
+                    projectiles.fire(beam.getX(), beam.getY(), 0, 8, new Color(255, 100, 100), 3);
                 }
             }
             
@@ -89,31 +106,7 @@ public class Boss {
         
         // Regular projectile shooting from other patterns
         if (shootCooldown <= 0) {
-            if (attackPattern == 0) {
-                // Spiral attack
-                for (int i = 0; i < 8; i++) {
-                    double angle = (i / 8.0) * Math.PI * 2 + (patternTimer / 30.0);
-                    projectiles.add(new EnemyProjectile(x, y, angle, 5, Color.RED));
-                }
-            } else if (attackPattern == 1) {
-                // Aimed burst
-                double angle = Math.atan2(playerY - y, playerX - x);
-                for (int i = -2; i <= 2; i++) {
-                    projectiles.add(new EnemyProjectile(x, y, angle + (i * 0.2), 5, Color.RED));
-                }
-            } else if (attackPattern == 2) {
-                // Random spread
-                for (int i = 0; i < 6; i++) {
-                    double angle = Math.random() * Math.PI * 2;
-                    projectiles.add(new EnemyProjectile(x, y, angle, 5, Color.RED));
-                }
-            } else if (attackPattern == 3) {
-                // Beam attack - also fire regular projectiles for variety
-                for (int i = 0; i < 4; i++) {
-                    double angle = (i / 4.0) * Math.PI * 2;
-                    projectiles.add(new EnemyProjectile(x, y, angle, 3, Color.RED));
-                }
-            }
+            VOLLEYS[attackPattern].fire(projectiles, x, y, patternTimer, playerX, playerY, random);
             shootCooldown = 20;
         }
     }
@@ -126,8 +119,9 @@ public class Boss {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 30 && Math.abs(y - py) < 40;
+    public void addCollider(CollisionSystem collisions) {
+        collisions.addBox(CollisionSystem.BOSS, 0, x, y, x, y, HALF_WIDTH, HALF_HEIGHT);
+        collisions.addBeams(CollisionSystem.BOSS_BEAM, 0, beams);
     }
 
     public double getHealthPercent() {
@@ -135,9 +129,9 @@ public class Boss {
     }
 
     public void draw(Graphics2D g) {
-        var sprite = SpriteLoader.getSprite("boss");
+        var sprite = SpriteLoader.getSprite("boss", 120, 120);
         if (sprite != null) {
-            g.drawImage(sprite, x - 60, y - 60, 120, 120, null);
+            g.drawImage(sprite, x - 60, y - 60, null);
         }
 
         // Draw beams
@@ -150,6 +144,39 @@ public class Boss {
         return beams;
     }
 
+    public int getAttackPattern() { return attackPattern; }
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(fixedX);
+        out.writeInt(maxHP);
+        out.writeInt(hp);
+        out.writeInt(shootCooldown);
+        out.writeInt(attackPattern);
+        out.writeInt(patternTimer);
+        out.writeInt(beamSpawnTimer);
+        RunSnapshot.writeList(out, beams, Beam::writeState);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        fixedX = in.readInt();
+        maxHP = in.readInt();
+        hp = in.readInt();
+        shootCooldown = in.readInt();
+        attackPattern = in.readInt();
+        patternTimer = in.readInt();
+        beamSpawnTimer = in.readInt();
+        RunSnapshot.readList(in, beams, Beam::new, Beam::readState);
+        random.setState(in.readLong());
+    }
 }
@@ -0,0 +1,96 @@
+// The per-tick arithmetic of EnemyBullets, over whole arrays at once: move every bullet, then
+// flag the ones that left the screen and the ones whose move came near the player. It is the same
+// few integer operations on every bullet with no branches between them, so it can run on SIMD
+// lanes. VectorBulletKernel (in src-vector, see the README) does that with the incubating
+// jdk.incubator.vector API. Without it, or without the module at run time, the scalar loop here
+// runs instead. Both give exactly the same result.
+//
+//   -Dbullethell.bulletKernel=auto|scalar|vector   auto (the default) uses vector when it loads
+public abstract class BulletKernel {
+    public static final String PROPERTY = "bullethell.bulletKernel";
+    private static final String VECTOR_CLASS = "VectorBulletKernel";
+
+    // flags[i] after step()
+    public static final int OUT = 1;  // the new position is off screen
+    public static final int NEAR = 2; // the move overlaps the player's box, so it needs the collision pass
+
+    // limits[], all 16.16: the screen area a bullet may be in, inclusive, and the player's box, open
+    public static final int MIN_X = 0, MIN_Y = 1, MAX_X = 2, MAX_Y = 3;
+    public static final int BOX_MIN_X = 4, BOX_MIN_Y = 5, BOX_MAX_X = 6, BOX_MAX_Y = 7;
+    public static final int LIMITS = 8;
+
+    public abstract String getName();
+
+    // For every bullet in [0, count): prev = position, position += velocity, then flags[i] is OUT
+    // if the new position is outside the screen limits, otherwise NEAR if the bounding box of the
+    // move overlaps the player's box, otherwise 0
+    public abstract void step(int count, int[] x, int[] y, int[] vx, int[] vy, int[] prevX, int[] prevY,
+                              int[] flags, int[] limits);
+
+    // The scalar loop over [from, to), for the whole array here and for the tail that doesn't fill
+    // a vector in VectorBulletKernel
+    protected static void stepScalar(int from, int to, int[] x, int[] y, int[] vx, int[] vy, int[] prevX, int[] prevY,
+                                     int[] flags, int[] limits) {
+        int minX = limits[MIN_X], minY = limits[MIN_Y], maxX = limits[MAX_X], maxY = limits[MAX_Y];
+        int boxMinX = limits[BOX_MIN_X], boxMinY = limits[BOX_MIN_Y];
+        int boxMaxX = limits[BOX_MAX_X], boxMaxY = limits[BOX_MAX_Y];
+        for (int i = from; i < to; i++) {
+            int px = x[i], py = y[i];
+            int nx = px + vx[i], ny = py + vy[i];
+            prevX[i] = px;
+            prevY[i] = py;
+            x[i] = nx;
+            y[i] = ny;
+            if (nx < minX || nx > maxX || ny < minY || ny > maxY) {
+                flags[i] = OUT;
+            } else if (Math.max(px, nx) > boxMinX && Math.min(px, nx) < boxMaxX
+                    && Math.max(py, ny) > boxMinY && Math.min(py, ny) < boxMaxY) {
+                flags[i] = NEAR;
+            } else {
+                flags[i] = 0;
+            }
+        }
+    }
+
+    public static BulletKernel scalar() {
+        return new Scalar();
+    }
+
+    // The vector kernel, or null when it isn't on the class path or the module isn't there
+    public static BulletKernel vector() {
+        try {
+            return (BulletKernel) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    // Whichever -Dbullethell.bulletKernel asks for
+    public static BulletKernel fromProperty() {
+        String wanted = System.getProperty(PROPERTY, "auto");
+        if (wanted.equals("scalar")) {
+            return scalar();
+        }
+        BulletKernel vector = vector();
+        if (vector != null) {
+            return vector;
+        }
+        if (wanted.equals("vector")) {
+            Log.warn("BulletKernel", "Vector kernel unavailable (needs src-vector and --add-modules jdk.incubator.vector), using scalar");
+        }
+        return scalar();
+    }
+
+    private static class Scalar extends BulletKernel {
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+
+        @Override
+        public void step(int count, int[] x, int[] y, int[] vx, int[] vy, int[] prevX, int[] prevY,
+                         int[] flags, int[] limits) {
+            stepScalar(0, count, x, y, vx, vy, prevX, prevY, flags, limits);
+        }
+    }
+}
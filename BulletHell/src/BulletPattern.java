@@ -0,0 +1,173 @@
+import java.awt.Color;
+
+// A bullet pattern as data instead of a hand-written loop. It describes:
+//   - how many bullets a ring has, and across what arc;
+//   - how many rings go out at once and how fast each is (the speed curve);
+//   - how the volley turns with time, and what it aims at;
+//   - what the bullets look like.
+// compile() works the pattern out once into a table of velocities around heading 0. After that a
+// volley costs one cos/sin to turn the table (none at all when it's aimed at a point), and random
+// directions come from a shared table, so no bullet calls cos/sin itself. Bullets go straight into
+// a ShotBuffer as fixed-point numbers, without an object each.
+//
+// A compiled pattern never changes, so one instance can be shared by every enemy that fires it,
+// AI worker threads included.
+public class BulletPattern {
+    public enum Aim {
+        SPIN,   // the heading is spin * time
+        TARGET, // centred on a point, usually the player
+        RANDOM  // every bullet in its own random direction
+    }
+
+    private static final double TWO_PI = Math.PI * 2;
+    private static final int RANDOM_DIRECTIONS = 4096;
+    private static final double[] RANDOM_X = new double[RANDOM_DIRECTIONS];
+    private static final double[] RANDOM_Y = new double[RANDOM_DIRECTIONS];
+
+    static {
+        for (int i = 0; i < RANDOM_DIRECTIONS; i++) {
+            double angle = i * TWO_PI / RANDOM_DIRECTIONS;
+            RANDOM_X[i] = Math.cos(angle);
+            RANDOM_Y[i] = Math.sin(angle);
+        }
+    }
+
+    private final int count;
+    private final double arc;
+    private double spin;
+    private Aim aim = Aim.SPIN;
+    private double[] speeds = {ShotBuffer.SPEED};
+    private int size = 4;
+    private Color color = Color.YELLOW;
+    private int damage = 1;
+
+    // Velocities at heading 0, ring after ring; null until compile()
+    private double[] vx, vy;
+
+    // count bullets spread evenly across arc radians, centred on the heading. An arc of a full
+    // turn or more is a ring, with the first bullet on the heading.
+    public BulletPattern(int count, double arc) {
+        this.count = count;
+        this.arc = arc;
+    }
+
+    public static BulletPattern ring(int count) {
+        return new BulletPattern(count, TWO_PI);
+    }
+
+    public BulletPattern spin(double radiansPerTick) {
+        editable();
+        spin = radiansPerTick;
+        return this;
+    }
+
+    public BulletPattern aim(Aim aim) {
+        editable();
+        this.aim = aim;
+        return this;
+    }
+
+    // One ring per speed, all fired together
+    public BulletPattern speeds(double... perRing) {
+        editable();
+        speeds = perRing.clone();
+        return this;
+    }
+
+    public BulletPattern look(int size, Color color, int damage) {
+        editable();
+        this.size = size;
+        this.color = color;
+        this.damage = damage;
+        return this;
+    }
+
+    public BulletPattern compile() {
+        double[] x = new double[count * speeds.length];
+        double[] y = new double[x.length];
+        for (int i = 0; i < count; i++) {
+            double offset;
+            if (arc >= TWO_PI) {
+                offset = i * arc / count;
+            } else if (count > 1) {
+                offset = -arc / 2 + i * arc / (count - 1);
+            } else {
+                offset = 0;
+            }
+            double cos = Math.cos(offset);
+            double sin = Math.sin(offset);
+            for (int r = 0; r < speeds.length; r++) {
+                x[r * count + i] = cos * speeds[r];
+                y[r * count + i] = sin * speeds[r];
+            }
+        }
+        vx = x;
+        vy = y;
+        return this;
+    }
+
+    public int bulletsPerVolley() {
+        return count * speeds.length;
+    }
+
+    // One volley, aimed however the pattern says: time turns a spinning pattern, (targetX, targetY)
+    // is what a targeted one faces and random supplies the directions of a random one
+    public void fire(ShotBuffer out, int x, int y, double time, int targetX, int targetY, GameRandom random) {
+        switch (aim) {
+            case TARGET: fireAt(out, x, y, targetX, targetY); break;
+            case RANDOM: fireRandom(out, x, y, random); break;
+            default: fire(out, x, y, spin * time); break;
+        }
+    }
+
+    // One volley facing heading radians
+    public void fire(ShotBuffer out, int x, int y, double heading) {
+        emit(out, x, y, Math.cos(heading), Math.sin(heading));
+    }
+
+    // One volley facing (targetX, targetY); straight along +x if that's where the volley starts
+    public void fireAt(ShotBuffer out, int x, int y, int targetX, int targetY) {
+        double dx = targetX - x;
+        double dy = targetY - y;
+        double length = Math.sqrt(dx * dx + dy * dy);
+        if (length == 0) {
+            emit(out, x, y, 1, 0);
+        } else {
+            emit(out, x, y, dx / length, dy / length);
+        }
+    }
+
+    // One volley with every bullet going its own way. Takes one draw from random per bullet.
+    public void fireRandom(ShotBuffer out, int x, int y, GameRandom random) {
+        compiled();
+        int fx = Fixed.of(x), fy = Fixed.of(y);
+        for (int r = 0; r < speeds.length; r++) {
+            double speed = speeds[r];
+            for (int i = 0; i < count; i++) {
+                int d = (int) (random.nextDouble() * RANDOM_DIRECTIONS);
+                out.add(fx, fy, Fixed.of(RANDOM_X[d] * speed), Fixed.of(RANDOM_Y[d] * speed), size, color, damage);
+            }
+        }
+    }
+
+    // The velocity table turned to the heading (cos, sin)
+    private void emit(ShotBuffer out, int x, int y, double cos, double sin) {
+        compiled();
+        int fx = Fixed.of(x), fy = Fixed.of(y);
+        for (int k = 0; k < vx.length; k++) {
+            out.add(fx, fy, Fixed.of(vx[k] * cos - vy[k] * sin), Fixed.of(vx[k] * sin + vy[k] * cos), size, color, damage);
+        }
+    }
+
+    private void editable() {
+        if (vx != null) {
+            throw new IllegalStateException("Bullet pattern is already compiled");
+        }
+    }
+
+    private void compiled() {
+        if (vx == null) {
+            throw new IllegalStateException("Bullet pattern fired before compile()");
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Every collision in the world for one tick, found in a single pass. Each tick the game adds one
+// proxy per collidable thing, tagged with a layer, and rules say which layers touch:
+//
+//   rule(mover, target, response)
+//
+// The mover is tested as the segment from its last position to its current one, the target as
+// its box swept over the same tick (or, for a beam, as the beam's oriented box). Proxies are
+// bucketed by layer into a uniform grid, each mover only visits the buckets of layers it has rules
+// for, and every touching pair goes into one flat int buffer. Responses then run rule by rule in
+// the order the rules were added, so rules added first win when two things compete for the same
+// target (a shot used up by one enemy can't hit another).
+//
+// All state is in primitive arrays that only grow, so a steady tick allocates nothing.
+public class CollisionSystem {
+    public static final int PLAYER = 0;
+    public static final int PLAYER_SHOT = 1;
+    public static final int ENEMY_SHOT = 2;
+    public static final int PICKUP = 3;
+    public static final int ENEMY = 4;
+    public static final int TRIANGLE = 5;
+    public static final int GREEN_TRIANGLE = 6;
+    public static final int PURPLE_TRIANGLE = 7;
+    public static final int RED_TRIANGLE = 8;
+    public static final int PURPLE_CIRCLE = 9;
+    public static final int GREEN_CIRCLE = 10;
+    public static final int BOSS = 11;
+    public static final int PURPLE_BOSS = 12;
+    public static final int BOSS_BEAM = 13;
+    public static final int PURPLE_BOSS_BEAM = 14;
+    public static final int PURPLE_CIRCLE_BEAM = 15;
+    private static final int LAYERS = 16;
+
+    private static final int CELL_SHIFT = 6; // 64 px cells
+    private static final int CONSUMED = 1;
+
+    public interface Response {
+        // Both arguments are proxy ids; owner() turns them back into list indices
+        void onContact(int mover, int target);
+    }
+
+    // The rule matrix
+    private final int[] moverMask = new int[LAYERS];       // target layers each layer moves against
+    private final int[] ruleIndex = new int[LAYERS * LAYERS];
+    private int targetLayers = 0;
+    private final ArrayList<Response> responses = new ArrayList<>();
+
+    // Proxies for the current tick
+    private int count = 0;
+    private int[] layer = new int[256];
+    private int[] owner = new int[256];
+    private int[] x0 = new int[256], y0 = new int[256], x1 = new int[256], y1 = new int[256];
+    private int[] halfWidth = new int[256], halfHeight = new int[256];
+    private int[] minX = new int[256], minY = new int[256], maxX = new int[256], maxY = new int[256];
+    private int[] beam = new int[256];      // index into beams, or -1 for a box
+    private int[] flags = new int[256];
+    private final BeamCollisionBatch beams = new BeamCollisionBatch();
+
+    // Grid: bucket (layer * cells + cell) holds items[bucketStart[b] .. bucketStart[b + 1])
+    private int cols = 1, rows = 1, cells = 1;
+    private int[] bucketStart = new int[LAYERS + 1];
+    private int[] bucketFill = new int[LAYERS];
+    private int[] items = new int[1024];
+
+    // Contact pairs: (rule, mover, target) as found, then (mover, target) grouped by rule
+    private int pairCount = 0;
+    private int[] pairs = new int[3 * 256];
+    private int[] ordered = new int[2 * 256];
+    private int[] ruleStart = new int[1];
+
+    public CollisionSystem() {
+        Arrays.fill(ruleIndex, -1);
+    }
+
+    // Collisions between mover and target layers call response, after the responses of every
+    // rule added before this one
+    public void rule(int moverLayer, int targetLayer, Response response) {
+        if (ruleIndex[moverLayer * LAYERS + targetLayer] >= 0) {
+            throw new IllegalArgumentException("layers " + moverLayer + " and " + targetLayer + " already have a rule");
+        }
+        ruleIndex[moverLayer * LAYERS + targetLayer] = responses.size();
+        moverMask[moverLayer] |= 1 << targetLayer;
+        targetLayers |= 1 << targetLayer;
+        responses.add(response);
+        ruleStart = new int[responses.size() + 1];
+    }
+
+    // Starts a new tick's proxies for a world of the given size
+    public void begin(int width, int height) {
+        count = 0;
+        pairCount = 0;
+        beams.clear();
+        cols = (Math.max(width, 1) >> CELL_SHIFT) + 1;
+        rows = (Math.max(height, 1) >> CELL_SHIFT) + 1;
+        cells = cols * rows;
+        if (bucketStart.length < LAYERS * cells + 1) {
+            bucketStart = new int[LAYERS * cells + 1];
+            bucketFill = new int[LAYERS * cells];
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // Contacts found by the last run(), including ones whose response skipped them
+    public int contacts() {
+        return pairCount;
+    }
+
+    // A box centred on (x0,y0) last tick and (x1,y1) now. As a mover only the centre counts.
+    // Returns the proxy id.
+    public int addBox(int layer, int owner, int x0, int y0, int x1, int y1, int halfWidth, int halfHeight) {
+        int p = add(layer, owner, x0, y0, x1, y1, halfWidth, halfHeight, -1);
+        minX[p] = Math.min(x0, x1) - halfWidth;
+        minY[p] = Math.min(y0, y1) - halfHeight;
+        maxX[p] = Math.max(x0, x1) + halfWidth;
+        maxY[p] = Math.max(y0, y1) + halfHeight;
+        return p;
+    }
+
+    public int addPoint(int layer, int owner, int x0, int y0, int x1, int y1) {
+        return addBox(layer, owner, x0, y0, x1, y1, 0, 0);
+    }
+
+    // Beams are targets only; a mover touches one when its current position is inside.
+    // Beams that aren't damaging right now are left out.
+    public void addBeams(int layer, int owner, ArrayList<Beam> list) {
+        for (int i = 0; i < list.size(); i++) {
+            int before = beams.size();
+            beams.add(list.get(i));
+            if (beams.size() > before) addBeam(layer, owner, before);
+        }
+    }
+
+    public void addRotatingBeams(int layer, int owner, ArrayList<RotatingBeam> list) {
+        for (int i = 0; i < list.size(); i++) {
+            beams.add(list.get(i));
+            addBeam(layer, owner, beams.size() - 1);
+        }
+    }
+
+    private void addBeam(int layer, int owner, int index) {
+        int p = add(layer, owner, 0, 0, 0, 0, 0, 0, index);
+        minX[p] = beams.minX(index);
+        minY[p] = beams.minY(index);
+        maxX[p] = beams.maxX(index);
+        maxY[p] = beams.maxY(index);
+    }
+
+    private int add(int layer, int owner, int x0, int y0, int x1, int y1, int halfWidth, int halfHeight, int beamIndex) {
+        if (count == this.layer.length) grow();
+        int p = count++;
+        this.layer[p] = layer;
+        this.owner[p] = owner;
+        this.x0[p] = x0;
+        this.y0[p] = y0;
+        this.x1[p] = x1;
+        this.y1[p] = y1;
+        this.halfWidth[p] = halfWidth;
+        this.halfHeight[p] = halfHeight;
+        this.beam[p] = beamIndex;
+        this.flags[p] = 0;
+        return p;
+    }
+
+    public int owner(int proxy) {
+        return owner[proxy];
+    }
+
+    // A consumed proxy takes part in no further contacts this tick
+    public void consume(int proxy) {
+        flags[proxy] |= CONSUMED;
+    }
+
+    public boolean isConsumed(int proxy) {
+        return (flags[proxy] & CONSUMED) != 0;
+    }
+
+    // Drops the entries of list that were added as proxies first, first + 1, ... and got consumed
+    public void removeConsumed(ArrayList<?> list, int first) {
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (isConsumed(first + i)) list.remove(i);
+        }
+    }
+
+    // Finds every contact and runs the responses
+    public void run() {
+        buildGrid();
+        findPairs();
+        dispatch();
+    }
+
+    private void buildGrid() {
+        int buckets = LAYERS * cells;
+        Arrays.fill(bucketStart, 0, buckets + 1, 0);
+        for (int p = 0; p < count; p++) {
+            if ((targetLayers & (1 << layer[p])) == 0) continue;
+            int base = layer[p] * cells;
+            for (int cy = cellY(minY[p]), cy1 = cellY(maxY[p]); cy <= cy1; cy++) {
+                for (int cx = cellX(minX[p]), cx1 = cellX(maxX[p]); cx <= cx1; cx++) {
+                    bucketStart[base + cy * cols + cx + 1]++;
+                }
+            }
+        }
+        for (int b = 0; b < buckets; b++) {
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        if (items.length < bucketStart[buckets]) {
+            items = new int[Math.max(bucketStart[buckets], items.length * 2)];
+        }
+        System.arraycopy(bucketStart, 0, bucketFill, 0, buckets);
+        for (int p = 0; p < count; p++) {
+            if ((targetLayers & (1 << layer[p])) == 0) continue;
+            int base = layer[p] * cells;
+            for (int cy = cellY(minY[p]), cy1 = cellY(maxY[p]); cy <= cy1; cy++) {
+                for (int cx = cellX(minX[p]), cx1 = cellX(maxX[p]); cx <= cx1; cx++) {
+                    items[bucketFill[base + cy * cols + cx]++] = p;
+                }
+            }
+        }
+    }
+
+    private void findPairs() {
+        for (int m = 0; m < count; m++) {
+            int mask = moverMask[layer[m]];
+            while (mask != 0) {
+                int target = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+                int rule = ruleIndex[layer[m] * LAYERS + target];
+                int base = target * cells;
+                for (int cy = cellY(minY[m]), cy1 = cellY(maxY[m]); cy <= cy1; cy++) {
+                    for (int cx = cellX(minX[m]), cx1 = cellX(maxX[m]); cx <= cx1; cx++) {
+                        int bucket = base + cy * cols + cx;
+                        for (int k = bucketStart[bucket], end = bucketStart[bucket + 1]; k < end; k++) {
+                            int t = items[k];
+                            if (t == m || minX[t] > maxX[m] || maxX[t] < minX[m] || minY[t] > maxY[m] || maxY[t] < minY[m]) {
+                                continue;
+                            }
+                            // Both boxes can span several cells; the pair belongs to the cell holding
+                            // the top-left corner of their overlap
+                            if (cellX(Math.max(minX[m], minX[t])) != cx || cellY(Math.max(minY[m], minY[t])) != cy) {
+                                continue;
+                            }
+                            if (touches(m, t)) addPair(rule, m, t);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean touches(int m, int t) {
+        if (beam[t] >= 0) {
+            return beams.contains(beam[t], x1[m], y1[m]);
+        }
+        return SweptCollision.movingHit(x0[m], y0[m], x1[m], y1[m], x0[t], y0[t], x1[t], y1[t], halfWidth[t], halfHeight[t]);
+    }
+
+    private void addPair(int rule, int m, int t) {
+        if (3 * pairCount == pairs.length) {
+            pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        }
+        pairs[3 * pairCount] = rule;
+        pairs[3 * pairCount + 1] = m;
+        pairs[3 * pairCount + 2] = t;
+        pairCount++;
+    }
+
+    // Groups the pairs by rule (a counting sort, so each rule keeps the order pairs were found in)
+    // and runs each rule's response over its pairs
+    private void dispatch() {
+        int rules = responses.size();
+        Arrays.fill(ruleStart, 0);
+        for (int i = 0; i < pairCount; i++) {
+            ruleStart[pairs[3 * i] + 1]++;
+        }
+        for (int r = 0; r < rules; r++) {
+            ruleStart[r + 1] += ruleStart[r];
+        }
+        if (ordered.length < 2 * pairCount) {
+            ordered = new int[Math.max(2 * pairCount, ordered.length * 2)];
+        }
+        for (int i = 0; i < pairCount; i++) {
+            int at = ruleStart[pairs[3 * i]]++;
+            ordered[2 * at] = pairs[3 * i + 1];
+            ordered[2 * at + 1] = pairs[3 * i + 2];
+        }
+        // The fill moved each start to the next rule's start
+        int at = 0;
+        for (int r = 0; r < rules; r++) {
+            Response response = responses.get(r);
+            for (int end = ruleStart[r]; at < end; at++) {
+                int m = ordered[2 * at];
+                int t = ordered[2 * at + 1];
+                if (isConsumed(m) || isConsumed(t)) continue;
+                response.onContact(m, t);
+            }
+        }
+    }
+
+    private int cellX(int x) {
+        return Math.max(0, Math.min(cols - 1, x >> CELL_SHIFT));
+    }
+
+    private int cellY(int y) {
+        return Math.max(0, Math.min(rows - 1, y >> CELL_SHIFT));
+    }
+
+    private void grow() {
+        int capacity = layer.length * 2;
+        layer = Arrays.copyOf(layer, capacity);
+        owner = Arrays.copyOf(owner, capacity);
+        x0 = Arrays.copyOf(x0, capacity);
+        y0 = Arrays.copyOf(y0, capacity);
+        x1 = Arrays.copyOf(x1, capacity);
+        y1 = Arrays.copyOf(y1, capacity);
+        halfWidth = Arrays.copyOf(halfWidth, capacity);
+        halfHeight = Arrays.copyOf(halfHeight, capacity);
+        minX = Arrays.copyOf(minX, capacity);
+        minY = Arrays.copyOf(minY, capacity);
+        maxX = Arrays.copyOf(maxX, capacity);
+        maxY = Arrays.copyOf(maxY, capacity);
+        beam = Arrays.copyOf(beam, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
@@ -0,0 +1,21 @@
+import java.awt.*;
+
+// Fading colors for draw code. Trails and flashes change alpha every frame; instead of a
+// new Color per draw call, each fade looks its alpha up in a ramp built once.
+public class Colors {
+    private static final int STEPS = 64;
+
+    public static Color[] alphaRamp(Color base) {
+        Color[] ramp = new Color[STEPS + 1];
+        for (int i = 0; i <= STEPS; i++) {
+            ramp[i] = new Color(base.getRed(), base.getGreen(), base.getBlue(), Math.round(i * 255f / STEPS));
+        }
+        return ramp;
+    }
+
+    // alpha is 0..1 like the float Color constructor, clamped
+    public static Color fade(Color[] ramp, float alpha) {
+        int i = Math.round(alpha * STEPS);
+        return ramp[Math.max(0, Math.min(STEPS, i))];
+    }
+}
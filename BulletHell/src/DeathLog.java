@@ -0,0 +1,83 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Enemies that died this wave, oldest first, for green circles to revive.
+// Kept as parallel int arrays in a ring so a kill doesn't box its coordinates.
+public class DeathLog {
+    public static final int ENEMY = 0;
+    public static final int TRIANGLE = 1;
+    public static final int GREEN_TRIANGLE = 2;
+    public static final int PURPLE_TRIANGLE = 3;
+    public static final int RED_TRIANGLE = 4;
+    public static final int PURPLE_CIRCLE = 5;
+
+    private int[] types = new int[64];
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int head = 0;
+    private int size = 0;
+
+    public void add(int type, int x, int y) {
+        if (size == types.length) grow();
+        int i = (head + size) % types.length;
+        types[i] = type;
+        xs[i] = x;
+        ys[i] = y;
+        size++;
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+
+    // The oldest death; only valid while not empty
+    public int oldestType() { return types[head]; }
+    public int oldestX() { return xs[head]; }
+    public int oldestY() { return ys[head]; }
+
+    public void removeOldest() {
+        if (size == 0) return;
+        head = (head + 1) % types.length;
+        size--;
+    }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int n = types.length;
+        int[] t = new int[n * 2];
+        int[] x = new int[n * 2];
+        int[] y = new int[n * 2];
+        for (int i = 0; i < size; i++) {
+            int j = (head + i) % n;
+            t[i] = types[j];
+            x[i] = xs[j];
+            y[i] = ys[j];
+        }
+        types = t;
+        xs = x;
+        ys = y;
+        head = 0;
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            int j = (head + i) % types.length;
+            out.writeByte(types[j]);
+            out.writeInt(xs[j]);
+            out.writeInt(ys[j]);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            add(in.readByte(), in.readInt(), in.readInt());
+        }
+    }
+}
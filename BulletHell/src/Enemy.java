@@ -1,33 +1,40 @@
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Enemy {
+    private static final int HALF_SIZE = 18; // the hit box is 2 * HALF_SIZE square
     protected int x, y;
+    private int handle; // from EntityHandles; 0 until the first collision pass
     protected int hp = 1;
     protected int shootCooldown;
     protected int verticalDirection;
     protected static final int MOVE_SPEED = 1;
+    protected final GameRandom random;
 
-    public Enemy(int x, int y) {
+    public Enemy(int x, int y, GameRandom random) {
         this.x = x;
         this.y = y;
-        this.shootCooldown = 20 + (int)(Math.random() * 30);
-        this.verticalDirection = Math.random() < 0.5 ? -1 : 1;
+        this.random = random;
+        this.shootCooldown = 20 + (int)(random.nextDouble() * 30);
+        this.verticalDirection = random.nextDouble() < 0.5 ? -1 : 1;
     }
 
-    public static Enemy spawnRandom(int width, int height, int wave) {
+    public static Enemy spawnRandom(int width, int height, int wave, RandomStreams streams) {
+        GameRandom spawn = streams.spawn();
         int[] edges = {0, 1, 2, 3};
-        int edge = edges[(int)(Math.random() * 4)];
+        int edge = edges[(int)(spawn.nextDouble() * 4)];
         int x, y;
 
         switch (edge) {
-            case 0: x = (int)(Math.random() * width); y = -20; break;
-            case 1: x = (int)(Math.random() * width); y = height + 20; break;
-            case 2: x = 50 + (int)(Math.random() * 100); y = (int)(Math.random() * height); break;
-            default: x = width - 50 - (int)(Math.random() * 100); y = (int)(Math.random() * height); break;
+            case 0: x = (int)(spawn.nextDouble() * width); y = -20; break;
+            case 1: x = (int)(spawn.nextDouble() * width); y = height + 20; break;
+            case 2: x = 50 + (int)(spawn.nextDouble() * 100); y = (int)(spawn.nextDouble() * height); break;
+            default: x = width - 50 - (int)(spawn.nextDouble() * 100); y = (int)(spawn.nextDouble() * height); break;
         }
 
-        Enemy enemy = new Enemy(x, y);
-        if (wave > 2 && Math.random() < 0.3) {
+        Enemy enemy = new Enemy(x, y, streams.forkAi());
+        if (wave > 2 && spawn.nextDouble() < 0.3) {
             enemy.hp = 2;
         }
         return enemy;
@@ -49,11 +56,11 @@ public class Enemy {
         update(width, height, wave, false);
     }
 
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles, int playerX, int playerY, int wave) {
+    public void spawnProjectiles(ShotBuffer projectiles, int playerX, int playerY, int wave) {
         if (shootCooldown <= 0) {
             double angle = Math.atan2(playerY - y, playerX - x);
-            projectiles.add(new EnemyProjectile(x, y, angle));
-            shootCooldown = 20 + (int)(Math.random() * 30);
+            projectiles.fire(x, y, angle);
+            shootCooldown = 20 + (int)(random.nextDouble() * 30);
         }
     }
 
@@ -65,10 +72,32 @@ public class Enemy {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 18 && Math.abs(y - py) < 18;
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.ENEMY, index, x, y, x, y, HALF_SIZE, HALF_SIZE);
     }
 
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(hp);
+        out.writeInt(shootCooldown);
+        out.writeInt(verticalDirection);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        hp = in.readInt();
+        shootCooldown = in.readInt();
+        verticalDirection = in.readInt();
+        random.setState(in.readLong());
+    }
 }
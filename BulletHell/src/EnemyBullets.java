@@ -0,0 +1,157 @@
+import java.awt.Color;
+import java.util.Arrays;
+
+// Every enemy bullet in flight, kept in parallel primitive arrays rather than one object each.
+// There can be ten thousand of them, and each tick does the same few integer operations to every
+// one: move by its velocity, drop it once it is off screen, hand the rest to the collision pass.
+// Positions and velocities are 16.16 fixed point (see Fixed), so the move is two adds per bullet
+// over plain int arrays.
+//
+// The move itself is a BulletKernel, which also flags the bullets that went off screen and the few
+// whose move came near the player. Enemy bullets can only hit the player, so just those few go
+// into the collision pass.
+//
+// It is a ShotBuffer with the extra state a bullet needs in flight. Bullets stay in the order they
+// were added, and index i is bullet i's owner in CollisionSystem. The arrays only grow, so a steady
+// tick allocates nothing.
+public class EnemyBullets extends ShotBuffer {
+    public static final int MARGIN = 10; // how far past the edge of the screen a bullet lives
+    private static final BulletKernel DEFAULT_KERNEL = BulletKernel.fromProperty();
+    private static final int SPENT = 4; // a flag of our own: used up by the collision pass
+
+    private int[] prevX, prevY; // where update() moved from, for swept collision
+    private int[] flags; // BulletKernel.OUT / NEAR from the last update
+    private final int[] limits = new int[BulletKernel.LIMITS];
+    private BulletKernel kernel = DEFAULT_KERNEL;
+    private long kernelNanos;
+    // Bullets in the last collision pass, and the proxy id of the first
+    private int[] colliding = new int[64];
+    private int collidingCount;
+    private int firstProxy;
+
+    public EnemyBullets() {
+        super(256);
+        prevX = new int[256];
+        prevY = new int[256];
+        flags = new int[256];
+    }
+
+    public BulletKernel getKernel() {
+        return kernel;
+    }
+
+    public void setKernel(BulletKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    // Total time spent in the kernel so far
+    public long getKernelNanos() {
+        return kernelNanos;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        collidingCount = 0;
+    }
+
+    @Override
+    public void add(int x, int y, int vx, int vy, int size, Color color, int damage) {
+        super.add(x, y, vx, vy, size, color, damage);
+        int i = count - 1;
+        prevX[i] = x;
+        prevY[i] = y;
+        flags[i] = BulletKernel.NEAR; // not classified until the next update, so assume the worst
+    }
+
+    // One tick: every bullet moves, then those more than MARGIN off screen are dropped. The player
+    // has already moved this tick.
+    public void update(int width, int height, Player player) {
+        limits[BulletKernel.MIN_X] = Fixed.of(-MARGIN);
+        limits[BulletKernel.MIN_Y] = Fixed.of(-MARGIN);
+        limits[BulletKernel.MAX_X] = Fixed.of(width + MARGIN);
+        limits[BulletKernel.MAX_Y] = Fixed.of(height + MARGIN);
+        // The player's box over its whole move, a pixel bigger all round: collision works in
+        // rounded pixels, and rounding moves a bullet by up to half a pixel
+        int reach = Player.HALF_SIZE + 1;
+        limits[BulletKernel.BOX_MIN_X] = Fixed.of(Math.min(player.getPrevX(), player.getX()) - reach);
+        limits[BulletKernel.BOX_MIN_Y] = Fixed.of(Math.min(player.getPrevY(), player.getY()) - reach);
+        limits[BulletKernel.BOX_MAX_X] = Fixed.of(Math.max(player.getPrevX(), player.getX()) + reach);
+        limits[BulletKernel.BOX_MAX_Y] = Fixed.of(Math.max(player.getPrevY(), player.getY()) + reach);
+
+        long start = System.nanoTime();
+        kernel.step(count, x, y, vx, vy, prevX, prevY, flags, limits);
+        kernelNanos += System.nanoTime() - start;
+        removeFlagged(BulletKernel.OUT);
+    }
+
+    // Only bullets whose move came near the player; the rest can't touch anything
+    public void addColliders(CollisionSystem collisions) {
+        firstProxy = collisions.size();
+        collidingCount = 0;
+        for (int i = 0; i < count; i++) {
+            if (flags[i] != BulletKernel.NEAR) continue;
+            collisions.addPoint(CollisionSystem.ENEMY_SHOT, i, getPrevX(i), getPrevY(i), getX(i), getY(i));
+            if (collidingCount == colliding.length) colliding = Arrays.copyOf(colliding, collidingCount * 2);
+            colliding[collidingCount++] = i;
+        }
+    }
+
+    // Drops the bullets the last collision pass used up
+    public void removeConsumed(CollisionSystem collisions) {
+        boolean any = false;
+        for (int k = 0; k < collidingCount; k++) {
+            if (collisions.isConsumed(firstProxy + k)) {
+                flags[colliding[k]] = SPENT;
+                any = true;
+            }
+        }
+        collidingCount = 0;
+        if (any) removeFlagged(SPENT);
+    }
+
+    // Keeps the bullets whose flag isn't flag, in order
+    private void removeFlagged(int flag) {
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (flags[i] == flag) continue;
+            if (kept != i) move(i, kept);
+            kept++;
+        }
+        truncate(kept);
+    }
+
+    public int getX(int i) { return Fixed.toInt(x[i]); }
+    public int getY(int i) { return Fixed.toInt(y[i]); }
+    public int getPrevX(int i) { return Fixed.toInt(prevX[i]); }
+    public int getPrevY(int i) { return Fixed.toInt(prevY[i]); }
+    public int getSize(int i) { return size[i]; }
+    public Color getColor(int i) { return color[i]; }
+    public int getDamage(int i) { return damage[i]; }
+
+    private void move(int from, int to) {
+        x[to] = x[from];
+        y[to] = y[from];
+        vx[to] = vx[from];
+        vy[to] = vy[from];
+        prevX[to] = prevX[from];
+        prevY[to] = prevY[from];
+        size[to] = size[from];
+        damage[to] = damage[from];
+        color[to] = color[from];
+        flags[to] = flags[from];
+    }
+
+    private void truncate(int newCount) {
+        Arrays.fill(color, newCount, count, null);
+        count = newCount;
+    }
+
+    @Override
+    protected void grow(int capacity) {
+        super.grow(capacity);
+        prevX = Arrays.copyOf(prevX, capacity);
+        prevY = Arrays.copyOf(prevY, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+}
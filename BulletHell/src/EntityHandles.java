@@ -0,0 +1,95 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Generational handles for things that can be hit. A handle is a slot number plus the slot's
+// generation, and a slot's generation moves on every time it is freed, so a handle kept after its
+// entity is gone can never match whatever gets the slot next. 0 is never a handle.
+//
+// Entities don't register or unregister anywhere. Every tick the collision pass calls keep() for
+// each entity it sees, which hands out a handle the first time, and sweep() frees the slots of
+// anything that wasn't seen; however an entity left its list, its handle dies with it.
+public class EntityHandles {
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int MAX_GENERATION = 0x7FFF;
+
+    private int slots = 0;
+    private int[] generation = new int[64];
+    private int[] lastSeen = new int[64]; // tick a slot was last kept; -1 when free
+    private int[] free = new int[64];
+    private int freeCount = 0;
+    private int tick = 0;
+
+    public static int slot(int handle) {
+        return handle & SLOT_MASK;
+    }
+
+    // The entity's handle if it is still live, otherwise a new one. Either way it counts as seen this tick.
+    public int keep(int handle) {
+        int slot = handle & SLOT_MASK;
+        if (handle != 0 && slot < slots && lastSeen[slot] >= 0 && generation[slot] == handle >>> SLOT_BITS) {
+            lastSeen[slot] = tick;
+            return handle;
+        }
+        if (freeCount > 0) {
+            slot = free[--freeCount];
+        } else {
+            if (slots == generation.length) grow();
+            if (slots > SLOT_MASK) {
+                throw new IllegalStateException("Out of entity handles");
+            }
+            slot = slots++;
+            generation[slot] = 1;
+        }
+        lastSeen[slot] = tick;
+        return generation[slot] << SLOT_BITS | slot;
+    }
+
+    // Frees every slot that wasn't kept since the last sweep
+    public void sweep() {
+        for (int slot = 0; slot < slots; slot++) {
+            if (lastSeen[slot] >= 0 && lastSeen[slot] != tick) {
+                lastSeen[slot] = -1;
+                generation[slot] = generation[slot] == MAX_GENERATION ? 1 : generation[slot] + 1;
+                free[freeCount++] = slot;
+            }
+        }
+        tick++;
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(slots);
+        out.writeInt(tick);
+        for (int slot = 0; slot < slots; slot++) {
+            out.writeShort(generation[slot]);
+            out.writeInt(lastSeen[slot]);
+        }
+        out.writeInt(freeCount);
+        for (int i = 0; i < freeCount; i++) {
+            out.writeShort(free[i]);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        slots = in.readInt();
+        tick = in.readInt();
+        while (generation.length < slots) grow();
+        for (int slot = 0; slot < slots; slot++) {
+            generation[slot] = in.readUnsignedShort();
+            lastSeen[slot] = in.readInt();
+        }
+        freeCount = in.readInt();
+        for (int i = 0; i < freeCount; i++) {
+            free[i] = in.readUnsignedShort();
+        }
+    }
+
+    private void grow() {
+        int capacity = generation.length * 2;
+        generation = Arrays.copyOf(generation, capacity);
+        lastSeen = Arrays.copyOf(lastSeen, capacity);
+        free = Arrays.copyOf(free, capacity);
+    }
+}
@@ -0,0 +1,41 @@
+// 16.16 fixed point: a position or velocity stored as an int holding pixels * ONE. Moving by a
+// velocity is then one integer add, exact and the same on every machine, and the fraction of a
+// pixel is kept from tick to tick instead of being cut off by an (int) cast. A slow diagonal
+// bullet used to lose up to a pixel a tick that way and drift off its line, or stop altogether
+// when its speed on one axis was under a pixel.
+//
+// An int holds +-32767 pixels, far more than any screen. Drawing and collision still work in whole
+// pixels; toInt() rounds to the nearest one.
+public final class Fixed {
+    public static final int SHIFT = 16;
+    public static final int ONE = 1 << SHIFT;
+    private static final int HALF = ONE >> 1;
+
+    private Fixed() {
+    }
+
+    public static int of(int pixels) {
+        return pixels << SHIFT;
+    }
+
+    // Rounded to the nearest 1/65536 of a pixel
+    public static int of(double pixels) {
+        return (int) Math.round(pixels * ONE);
+    }
+
+    // The nearest whole pixel
+    public static int toInt(int fixed) {
+        return (fixed + HALF) >> SHIFT;
+    }
+
+    public static double toDouble(int fixed) {
+        return fixed / (double) ONE;
+    }
+
+    // For movers that keep a fixed-point position next to their int one and also set the int one
+    // directly (clamping to the screen, teleporting): the fixed position if it is still on pixel,
+    // otherwise pixel itself, so a move starts from wherever the mover was really put.
+    public static int follow(int fixed, int pixel) {
+        return toInt(fixed) == pixel ? fixed : of(pixel);
+    }
+}
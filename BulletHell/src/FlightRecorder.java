@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// The last few seconds of a live run, kept in memory so an exception on the game thread leaves
+// something to debug. Inputs go into a fixed ring of frames, the world is captured with
+// RunSnapshot every SNAPSHOT_INTERVAL ticks (the newest two are kept), and gameplay events
+// from GameEvents go into a ring of small records. Nothing here allocates per tick except the
+// snapshot itself.
+//
+// dump() writes two files to crashes/: a .bhr replay that starts at the older snapshot and
+// ends on the failing tick, so `java ReplayPlayer crashes/crash-....bhr` reproduces it, and a
+// .txt with the stack trace and the recent events.
+public class FlightRecorder {
+    private static final String CRASH_DIR = "crashes";
+    private static final int SNAPSHOT_INTERVAL = 180; // 3 seconds
+    private static final int FRAMES = 2 * SNAPSHOT_INTERVAL; // enough to reach back to the older snapshot
+    private static final int EVENTS = 256;
+
+    private static final ExecutorService ioThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "crash-dump");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Events are shared by every panel; only the live one ever dumps them
+    private static final long[] eventTimes = new long[EVENTS];
+    private static final String[] eventTemplates = new String[EVENTS];
+    private static final String[] eventTexts = new String[EVENTS];
+    private static final long[][] eventArgs = new long[EVENTS][3];
+    private static final int[] eventArgCounts = new int[EVENTS];
+    private static long eventCount = 0;
+
+    private final InputFrame[] frames = new InputFrame[FRAMES];
+    private long tick = 0;
+    private byte[] olderSnapshot, newerSnapshot;
+    private long olderTick, newerTick;
+    private boolean dumped = false;
+
+    public FlightRecorder() {
+        for (int i = 0; i < FRAMES; i++) {
+            frames[i] = new InputFrame();
+        }
+    }
+
+    // Called by the live game before it steps with this input
+    public void record(GamePanel panel, InputFrame frame) {
+        if (tick % SNAPSHOT_INTERVAL == 0) {
+            olderSnapshot = newerSnapshot;
+            olderTick = newerTick;
+            newerSnapshot = RunSnapshot.capture(panel);
+            newerTick = tick;
+        }
+        frames[(int) (tick % FRAMES)].copyFrom(frame);
+        tick++;
+    }
+
+    // Templates use {} like Log: the String argument fills the first one, then the longs in order
+    public static void event(String template, long a) {
+        addEvent(template, null, a, 0, 0, 1);
+    }
+
+    public static void event(String template, long a, long b) {
+        addEvent(template, null, a, b, 0, 2);
+    }
+
+    public static void event(String template, long a, long b, long c) {
+        addEvent(template, null, a, b, c, 3);
+    }
+
+    public static void event(String template, String text) {
+        addEvent(template, text, 0, 0, 0, 0);
+    }
+
+    public static void event(String template, String text, long a) {
+        addEvent(template, text, a, 0, 0, 1);
+    }
+
+    public static void event(String template, String text, long a, long b) {
+        addEvent(template, text, a, b, 0, 2);
+    }
+
+    public static void event(String template, String text, long a, long b, long c) {
+        addEvent(template, text, a, b, c, 3);
+    }
+
+    private static void addEvent(String template, String text, long a, long b, long c, int longArgs) {
+        int i = (int) (eventCount % EVENTS);
+        eventTimes[i] = System.nanoTime();
+        eventTemplates[i] = template;
+        eventTexts[i] = text;
+        eventArgs[i][0] = a;
+        eventArgs[i][1] = b;
+        eventArgs[i][2] = c;
+        eventArgCounts[i] = longArgs;
+        eventCount++;
+    }
+
+    public boolean hasDumped() {
+        return dumped;
+    }
+
+    // Called on the game thread after a tick threw. The replay and report are built here, while the
+    // recording can't change under them, and written on the I/O thread.
+    public void dump(GamePanel panel, Throwable thrown) {
+        dumped = true;
+        long now = System.nanoTime();
+        byte[] snapshot = olderSnapshot != null ? olderSnapshot : newerSnapshot;
+        long fromTick = olderSnapshot != null ? olderTick : newerTick;
+        byte[] replay = null;
+        if (snapshot != null) {
+            InputLog log = new InputLog();
+            for (long t = fromTick; t < tick; t++) {
+                log.append(frames[(int) (t % FRAMES)]);
+            }
+            replay = Replay.fromSnapshot(panel.getSeed(), panel.getWaveNumber(), snapshot, log).toBytes();
+        }
+
+        String name = "crash-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        StringBuilder sb = new StringBuilder(8192);
+        sb.append("Game thread exception on tick ").append(tick - 1).append(" of this run, wave ")
+          .append(panel.getWaveNumber()).append('\n');
+        if (replay != null) {
+            sb.append("Replay: ").append(name).append(".bhr covers ticks ").append(fromTick).append('-').append(tick - 1)
+              .append("; the last step throws. Run it with: java ReplayPlayer ").append(CRASH_DIR).append('/')
+              .append(name).append(".bhr\n");
+        }
+        sb.append('\n');
+        StringWriter trace = new StringWriter();
+        thrown.printStackTrace(new PrintWriter(trace));
+        sb.append(trace).append('\n');
+        appendEvents(sb, now);
+
+        String report = sb.toString();
+        byte[] replayBytes = replay;
+        Log.error("FlightRecorder", "Exception on the game thread, writing " + CRASH_DIR + "/" + name + ".txt", thrown);
+        ioThread.execute(() -> {
+            try {
+                Path dir = Paths.get(CRASH_DIR);
+                Files.createDirectories(dir);
+                if (replayBytes != null) {
+                    Files.write(dir.resolve(name + ".bhr"), replayBytes);
+                }
+                Files.write(dir.resolve(name + ".txt"), report.getBytes());
+            } catch (IOException e) {
+                Log.warn("FlightRecorder", "Couldn't write crash dump " + name, e);
+            }
+        });
+    }
+
+    private static void appendEvents(StringBuilder sb, long now) {
+        long count = Math.min(eventCount, EVENTS);
+        sb.append("Last ").append(count).append(" events\n");
+        for (long e = eventCount - count; e < eventCount; e++) {
+            int i = (int) (e % EVENTS);
+            sb.append(String.format("  %8.1f ms  ", (eventTimes[i] - now) / 1e6));
+            long[] args = eventArgs[i];
+            Log.format(sb, eventTemplates[i], eventTexts[i], args[0], args[1], args[2], eventArgCounts[i]);
+            sb.append('\n');
+        }
+    }
+}
@@ -0,0 +1,202 @@
+import java.awt.*;
+
+// Records when each tick was meant to start, when it actually started and when the frame it
+// produced finished painting, for the last FRAMES ticks. From that it works out jitter,
+// lateness against an ideal 60 Hz grid, missed frames and double ticks, and draws a
+// frame-time graph under the profiler overlay. F4 exports the raw frames next to the profile.
+//
+//   missed frame: the gap between two painted frames spans more than one 60 Hz period
+//   double tick:  a tick whose frame was never painted because the next tick came first
+public class FramePacing {
+    public static final long PERIOD = 1_000_000_000L / 60;
+    private static final int FRAMES = 600; // 10 seconds
+    private static final int GRAPH_FRAMES = 240;
+    private static final int GRAPH_HEIGHT = 60;
+    private static final long GRAPH_MAX = 2 * PERIOD; // taller bars are clipped
+    private static final long RESYNC = 3 * PERIOD; // further off than this, a new grid starts
+    private static final int STATS_EVERY = 30; // recompute the overlay text every half second
+
+    private static final Color GRAPH_BG = new Color(0, 0, 0, 170);
+    private static final Color ON_TIME = new Color(80, 200, 80);
+    private static final Color SLOW = Color.ORANGE;
+    private static final Color NOT_PAINTED = Color.RED;
+    private static final Color TARGET_LINE = new Color(255, 255, 255, 120);
+    private static final Font FONT = new Font("Monospaced", Font.PLAIN, 12);
+
+    public static class Stats {
+        public int frames;
+        public double tickRate;
+        public double jitterMillis;     // standard deviation of tick-to-tick intervals
+        public double maxIntervalMillis;
+        public double avgLateMillis;    // actual start minus intended start
+        public double maxLateMillis;
+        public double avgPresentMillis; // tick start to end of paint
+        public int missedFrames;
+        public int doubleTicks;
+    }
+
+    private final long[] intended = new long[FRAMES];
+    private final long[] actual = new long[FRAMES];
+    private final long[] present = new long[FRAMES]; // 0 when the frame was never painted
+    private long ticks = 0;
+    private long gridStart;
+    private long gridTick;
+
+    private final Stats stats = new Stats();
+    private int presentsSinceStats = 0;
+    private String line1 = "";
+    private String line2 = "";
+
+    public void tickStarted(long now) {
+        long target = gridStart + (ticks - gridTick) * PERIOD;
+        if (ticks == 0 || Math.abs(now - target) > RESYNC) {
+            gridStart = now;
+            gridTick = ticks;
+            target = now;
+        }
+        int i = (int) (ticks % FRAMES);
+        intended[i] = target;
+        actual[i] = now;
+        present[i] = 0;
+        ticks++;
+    }
+
+    // Returns the whole frame time, tick start to the end of its paint, the first time a tick is
+    // presented; -1 when this tick was painted already or nothing has ticked yet
+    public long presented(long now) {
+        if (ticks == 0) return -1;
+        int i = (int) ((ticks - 1) % FRAMES);
+        long frameNanos = -1;
+        if (present[i] == 0) {
+            present[i] = now;
+            frameNanos = now - actual[i];
+        }
+        if (++presentsSinceStats >= STATS_EVERY) {
+            presentsSinceStats = 0;
+            compute(stats);
+            line1 = String.format("pacing %5.1f Hz  jitter %.2f ms  worst gap %.1f ms",
+                stats.tickRate, stats.jitterMillis, stats.maxIntervalMillis);
+            line2 = String.format("late avg %.1f max %.1f ms  missed %d  double %d  paint +%.1f ms",
+                stats.avgLateMillis, stats.maxLateMillis, stats.missedFrames, stats.doubleTicks, stats.avgPresentMillis);
+        }
+        return frameNanos;
+    }
+
+    public void clear() {
+        ticks = 0;
+        presentsSinceStats = 0;
+        line1 = "";
+        line2 = "";
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    // Statistics over the recorded frames, leaving out the newest tick, which may not be painted yet
+    public void compute(Stats out) {
+        int n = (int) Math.min(ticks, FRAMES) - 1;
+        out.frames = Math.max(0, n);
+        out.tickRate = 0;
+        out.jitterMillis = 0;
+        out.maxIntervalMillis = 0;
+        out.avgLateMillis = 0;
+        out.maxLateMillis = 0;
+        out.avgPresentMillis = 0;
+        out.missedFrames = 0;
+        out.doubleTicks = 0;
+        if (n < 2) return;
+
+        long first = ticks - 1 - n;
+        double sum = 0, sumSq = 0;
+        long maxInterval = 0;
+        double late = 0;
+        long maxLate = Long.MIN_VALUE;
+        double presentSum = 0;
+        int presentCount = 0;
+        long lastPresent = 0;
+        for (long t = first; t < ticks - 1; t++) {
+            int i = (int) (t % FRAMES);
+            long lateBy = actual[i] - intended[i];
+            late += lateBy;
+            maxLate = Math.max(maxLate, lateBy);
+            if (t > first) {
+                long interval = actual[i] - actual[(int) ((t - 1) % FRAMES)];
+                sum += interval;
+                sumSq += (double) interval * interval;
+                maxInterval = Math.max(maxInterval, interval);
+            }
+            if (present[i] == 0) {
+                out.doubleTicks++;
+                continue;
+            }
+            presentSum += present[i] - actual[i];
+            presentCount++;
+            if (lastPresent != 0) {
+                // Each whole extra period between painted frames is a refresh that showed nothing new
+                long gap = present[i] - lastPresent;
+                out.missedFrames += (int) Math.max(0, (gap + PERIOD / 2) / PERIOD - 1);
+            }
+            lastPresent = present[i];
+        }
+        int intervals = n - 1;
+        double mean = sum / intervals;
+        out.tickRate = mean > 0 ? 1e9 / mean : 0;
+        out.jitterMillis = Math.sqrt(Math.max(0, sumSq / intervals - mean * mean)) / 1e6;
+        out.maxIntervalMillis = maxInterval / 1e6;
+        out.avgLateMillis = late / n / 1e6;
+        out.maxLateMillis = maxLate / 1e6;
+        out.avgPresentMillis = presentCount > 0 ? presentSum / presentCount / 1e6 : 0;
+    }
+
+    // One row per recorded tick, oldest first, in milliseconds since the first one
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("tick,intended_ms,actual_ms,present_ms\n");
+        long count = Math.min(ticks, FRAMES);
+        long first = ticks - count;
+        long origin = count > 0 ? intended[(int) (first % FRAMES)] : 0;
+        for (long t = first; t < ticks; t++) {
+            int i = (int) (t % FRAMES);
+            sb.append(t).append(',')
+              .append((intended[i] - origin) / 1e6).append(',')
+              .append((actual[i] - origin) / 1e6).append(',');
+            if (present[i] != 0) sb.append((present[i] - origin) / 1e6);
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    public void exportAsync() {
+        FrameProfiler.exportAsync("pacing", toCsv());
+    }
+
+    // Bars are tick-to-tick intervals, newest on the right; the line marks 16.7 ms
+    public void drawOverlay(Graphics2D g, int x, int y) {
+        int width = GRAPH_FRAMES + 12;
+        g.setColor(GRAPH_BG);
+        g.fillRect(x, y, Math.max(width, 460), GRAPH_HEIGHT + 44);
+        g.setFont(FONT);
+        g.setColor(Color.WHITE);
+        g.drawString(line1, x + 6, y + 14);
+        g.drawString(line2, x + 6, y + 28);
+
+        int base = y + 36 + GRAPH_HEIGHT;
+        long count = Math.min(Math.min(ticks, FRAMES), GRAPH_FRAMES + 1);
+        for (long k = 1; k < count; k++) {
+            long t = ticks - count + k;
+            int i = (int) (t % FRAMES);
+            long interval = actual[i] - actual[(int) ((t - 1) % FRAMES)];
+            int h = (int) (Math.min(interval, GRAPH_MAX) * GRAPH_HEIGHT / GRAPH_MAX);
+            if (present[i] == 0 && t < ticks - 1) {
+                g.setColor(NOT_PAINTED);
+            } else {
+                g.setColor(interval > PERIOD * 3 / 2 ? SLOW : ON_TIME);
+            }
+            int bx = x + 6 + (int) (k - 1);
+            g.drawLine(bx, base, bx, base - h);
+        }
+        g.setColor(TARGET_LINE);
+        int lineY = base - (int) (PERIOD * GRAPH_HEIGHT / GRAPH_MAX);
+        g.drawLine(x + 6, lineY, x + 6 + GRAPH_FRAMES, lineY);
+    }
+}
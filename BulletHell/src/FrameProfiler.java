@@ -0,0 +1,369 @@
+import java.awt.*;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Lightweight timing of each part of a tick. Sections accumulate their time over a tick and are
+// recorded into log-linear (HDR-style) histograms when the tick ends. The overlay shows
+// p50/p99/max per section over the last completed window.
+//
+// Where the JVM supports it, each section also counts the bytes its thread allocated
+// (ThreadMXBean.getCurrentThreadAllocatedBytes), so garbage can be traced to a subsystem.
+//
+// Usage: long t = profiler.begin(); ... t = profiler.lap(Section.PLAYER, t); ... profiler.end(Section.X, t);
+// Scopes must nest: every begin() is closed by exactly one end(), with any laps in between.
+// When disabled, begin() and lap() are a field read and a branch, and nothing is recorded.
+public class FrameProfiler {
+    public enum Section {
+        UPDATE("update"),
+        PLAYER("player"),
+        PLAYER_SHOTS("player shots"),
+        ENEMIES("enemies"),
+        BOSS("boss"),
+        PURPLE_BOSS("purple boss"),
+        TRIANGLES("triangles"),
+        GREEN_TRIANGLES("green triangles"),
+        PURPLE_TRIANGLES("purple triangles"),
+        RED_TRIANGLES("red triangles"),
+        PURPLE_CIRCLES("purple circles"),
+        GREEN_CIRCLES("green circles"),
+        ENEMY_SHOTS("enemy shots"),
+        COLLISIONS("collisions"),
+        REWIND("rewind buffer"),
+        TELEMETRY("telemetry"),
+        PAINT("paint"),
+        DRAW_PLAYER("draw player"),
+        DRAW_SHOTS("draw player shots"),
+        DRAW_ENEMIES("draw enemies"),
+        DRAW_PICKUPS("draw pickups"),
+        DRAW_ENEMY_SHOTS("draw enemy shots"),
+        DRAW_UI("draw ui");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() { return label; }
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+
+    // Histogram buckets: values below 2 * SUB_BUCKETS nanoseconds get one bucket each, every
+    // power of two above that is split into SUB_BUCKETS linear buckets (about 6% precision).
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_EXPONENT = 40; // ~18 minutes, far beyond any frame
+    static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_BUCKETS;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    // Two seconds of ticks per overlay window
+    private static final int WINDOW_TICKS = 120;
+
+    private static final Font OVERLAY_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private static final Color OVERLAY_BG = new Color(0, 0, 0, 170);
+    private static final String EXPORT_DIR = "profiles";
+    private static final String HEADER = String.format("%-18s %8s %8s %8s %9s", "section (us)", "p50", "p99", "max", "B/tick");
+
+    private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+    private static final ExecutorService exportThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "profile-export");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private boolean enabled = false;
+
+    // Allocated-bytes reading at each open scope, innermost last
+    private final long[] allocMarks = new long[8];
+    private int depth = 0;
+    private final long[] tickBytes = new long[SECTIONS.length];
+    private final long[] windowBytes = new long[SECTIONS.length];
+    private final long[] windowMaxBytes = new long[SECTIONS.length];
+    private final long[] avgBytes = new long[SECTIONS.length];
+    private final String[] rowText = new String[SECTIONS.length];
+    private boolean rowsStale; // a window closed since rowText was last formatted
+    // The most recently finished tick, -1 for sections it didn't run
+    private final long[] lastTickNanos = new long[SECTIONS.length];
+    private final long[] lastTickBytes = new long[SECTIONS.length];
+    private final long[] maxBytes = new long[SECTIONS.length];
+    // Totals since the profiler was enabled
+    private final long[] totalBytes = new long[SECTIONS.length];
+    private final long[] totalSamples = new long[SECTIONS.length];
+
+    private final long[] tickTotal = new long[SECTIONS.length];
+    private final boolean[] touched = new boolean[SECTIONS.length];
+    private final int[][] counts = new int[SECTIONS.length][BUCKETS];
+    private final long[] windowMax = new long[SECTIONS.length];
+    private final int[] windowSamples = new int[SECTIONS.length];
+    private int windowTick = 0;
+
+    // Results of the last completed window, in nanoseconds
+    private final long[] p50 = new long[SECTIONS.length];
+    private final long[] p99 = new long[SECTIONS.length];
+    private final long[] max = new long[SECTIONS.length];
+    private final boolean[] hasResult = new boolean[SECTIONS.length];
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        if (enabled && !this.enabled) {
+            reset();
+        }
+        this.enabled = enabled;
+    }
+
+    public static boolean isAllocationTrackingSupported() {
+        return THREADS != null;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+                if (threads.isThreadAllocatedMemorySupported()) {
+                    threads.setThreadAllocatedMemoryEnabled(true);
+                    return threads;
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            // Not a HotSpot-style JVM; timings still work
+        }
+        return null;
+    }
+
+    public static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+    }
+
+    public long begin() {
+        if (!enabled) return 0;
+        if (THREADS != null && depth < allocMarks.length) {
+            allocMarks[depth] = THREADS.getCurrentThreadAllocatedBytes();
+        }
+        depth++;
+        return System.nanoTime();
+    }
+
+    // End a section and return the start time for the next one
+    public long lap(Section section, long start) {
+        if (!enabled || start == 0) return 0;
+        int s = section.ordinal();
+        long now = System.nanoTime();
+        tickTotal[s] += now - start;
+        touched[s] = true;
+        if (THREADS != null && depth > 0 && depth <= allocMarks.length) {
+            long bytes = THREADS.getCurrentThreadAllocatedBytes();
+            tickBytes[s] += bytes - allocMarks[depth - 1];
+            allocMarks[depth - 1] = bytes;
+        }
+        return now;
+    }
+
+    public void end(Section section, long start) {
+        if (!enabled || start == 0) return;
+        lap(section, start);
+        if (depth > 0) depth--;
+    }
+
+    // Record this tick's section totals; called once at the end of every simulation step
+    public void endTick() {
+        if (!enabled) return;
+        for (int s = 0; s < SECTIONS.length; s++) {
+            lastTickNanos[s] = touched[s] ? tickTotal[s] : -1;
+            lastTickBytes[s] = tickBytes[s];
+            if (!touched[s]) continue;
+            long value = Math.min(tickTotal[s], MAX_VALUE);
+            counts[s][bucketOf(value)]++;
+            windowSamples[s]++;
+            if (value > windowMax[s]) windowMax[s] = value;
+            windowBytes[s] += tickBytes[s];
+            if (tickBytes[s] > windowMaxBytes[s]) windowMaxBytes[s] = tickBytes[s];
+            totalBytes[s] += tickBytes[s];
+            totalSamples[s]++;
+            tickTotal[s] = 0;
+            tickBytes[s] = 0;
+            touched[s] = false;
+        }
+        // A scope left open (the profiler was toggled mid-tick) must not leak into the next tick
+        depth = 0;
+        if (++windowTick >= WINDOW_TICKS) {
+            closeWindow();
+        }
+    }
+
+    private void closeWindow() {
+        for (int s = 0; s < SECTIONS.length; s++) {
+            int[] c = counts[s];
+            hasResult[s] = windowSamples[s] > 0;
+            if (hasResult[s]) {
+                p50[s] = percentile(c, windowSamples[s], 0.50);
+                p99[s] = percentile(c, windowSamples[s], 0.99);
+                max[s] = windowMax[s];
+                avgBytes[s] = windowBytes[s] / windowSamples[s];
+                maxBytes[s] = windowMaxBytes[s];
+            }
+            Arrays.fill(c, 0);
+            windowSamples[s] = 0;
+            windowMax[s] = 0;
+            windowBytes[s] = 0;
+            windowMaxBytes[s] = 0;
+        }
+        windowTick = 0;
+        rowsStale = true;
+    }
+
+    // Formatted once per window, and only if the overlay is showing: a tick the profiler merely
+    // measures allocates nothing of its own, and drawing the overlay doesn't add garbage either
+    private void formatRows() {
+        for (int s = 0; s < SECTIONS.length; s++) {
+            if (!hasResult[s]) continue;
+            rowText[s] = String.format("%-18s %8.1f %8.1f %8.1f %9d", SECTIONS[s].getLabel(),
+                p50[s] / 1000.0, p99[s] / 1000.0, max[s] / 1000.0, avgBytes[s]);
+        }
+        rowsStale = false;
+    }
+
+    private void reset() {
+        for (int s = 0; s < SECTIONS.length; s++) {
+            Arrays.fill(counts[s], 0);
+            lastTickNanos[s] = -1;
+            tickTotal[s] = 0;
+            tickBytes[s] = 0;
+            touched[s] = false;
+            windowSamples[s] = 0;
+            windowMax[s] = 0;
+            windowBytes[s] = 0;
+            windowMaxBytes[s] = 0;
+            totalBytes[s] = 0;
+            totalSamples[s] = 0;
+            hasResult[s] = false;
+        }
+        depth = 0;
+        windowTick = 0;
+    }
+
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // Middle of the bucket's value range
+    static long valueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long low = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return low + (1L << shift) / 2;
+    }
+
+    static long percentile(int[] counts, int total, double fraction) {
+        long rank = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int b = 0; b < counts.length; b++) {
+            seen += counts[b];
+            if (seen >= rank) return valueOf(b);
+        }
+        return 0;
+    }
+
+    public long getP50(Section section) { return p50[section.ordinal()]; }
+    public long getP99(Section section) { return p99[section.ordinal()]; }
+    public long getMax(Section section) { return max[section.ordinal()]; }
+    public boolean hasResult(Section section) { return hasResult[section.ordinal()]; }
+    public long getAvgBytes(Section section) { return avgBytes[section.ordinal()]; }
+    public long getMaxBytes(Section section) { return maxBytes[section.ordinal()]; }
+    public long getTotalBytes(Section section) { return totalBytes[section.ordinal()]; }
+    public long getTotalSamples(Section section) { return totalSamples[section.ordinal()]; }
+
+    // The breakdown of the most recently finished tick, one line per section it ran.
+    // Paint sections belong to the frame painted before that tick.
+    public void appendLastTick(StringBuilder sb) {
+        sb.append(String.format("%-18s %10s %10s%n", "section", "us", "bytes"));
+        for (int s = 0; s < SECTIONS.length; s++) {
+            if (lastTickNanos[s] < 0) continue;
+            sb.append(String.format("%-18s %10.1f %10d%n", SECTIONS[s].getLabel(), lastTickNanos[s] / 1000.0, lastTickBytes[s]));
+        }
+    }
+
+    // One row per section: last window's timings and allocations, plus the average since enabled
+    public String toCsv() {
+        StringBuilder sb = new StringBuilder("section,p50_us,p99_us,max_us,bytes_per_tick,max_bytes_per_tick,total_bytes,ticks\n");
+        for (int s = 0; s < SECTIONS.length; s++) {
+            if (totalSamples[s] == 0) continue;
+            sb.append(SECTIONS[s].name().toLowerCase()).append(',')
+              .append(p50[s] / 1000.0).append(',')
+              .append(p99[s] / 1000.0).append(',')
+              .append(max[s] / 1000.0).append(',')
+              .append(avgBytes[s]).append(',')
+              .append(maxBytes[s]).append(',')
+              .append(totalBytes[s]).append(',')
+              .append(totalSamples[s]).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Write the current numbers to profiles/ off the game thread
+    public void exportAsync() {
+        exportAsync("profile", toCsv());
+    }
+
+    // Write a CSV to profiles/<prefix>-<timestamp>.csv on the export thread
+    static void exportAsync(String prefix, String csv) {
+        String name = prefix + "-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".csv";
+        exportThread.execute(() -> {
+            try {
+                Path dir = Paths.get(EXPORT_DIR);
+                Files.createDirectories(dir);
+                Files.write(dir.resolve(name), csv.getBytes());
+            } catch (IOException e) {
+                // Silently fail; the overlay still shows the numbers
+            }
+        });
+    }
+
+    // Returns the y just below the overlay
+    public int drawOverlay(Graphics2D g, int x, int y, String entityCounts) {
+        if (!enabled) return y;
+        if (rowsStale) formatRows();
+        int lineHeight = 14;
+        int rows = 2;
+        for (int s = 0; s < SECTIONS.length; s++) {
+            if (hasResult[s]) rows++;
+        }
+        g.setColor(OVERLAY_BG);
+        g.fillRect(x, y, 400, rows * lineHeight + 8);
+        g.setFont(OVERLAY_FONT);
+        g.setColor(Color.WHITE);
+        int lineY = y + lineHeight;
+        g.drawString(HEADER, x + 6, lineY);
+        for (int s = 0; s < SECTIONS.length; s++) {
+            if (!hasResult[s]) continue;
+            lineY += lineHeight;
+            // Highlight anything whose worst case eats more than a quarter of the 16ms frame
+            g.setColor(max[s] > 4_000_000 ? Color.ORANGE : Color.WHITE);
+            g.drawString(rowText[s], x + 6, lineY);
+        }
+        lineY += lineHeight;
+        g.setColor(Color.CYAN);
+        g.drawString(entityCounts, x + 6, lineY);
+        return y + rows * lineHeight + 8;
+    }
+}
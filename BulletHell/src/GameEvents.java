@@ -0,0 +1,209 @@
+import jdk.jfr.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Java Flight Recorder events for the game, so gameplay shows up next to GC and JIT data in
+// JDK Mission Control. Events cost almost nothing while no recording is running.
+// A recording can be started and saved from the pause menu, or with -XX:StartFlightRecording.
+// The helpers also note each event in the FlightRecorder ring, which runs without JFR.
+public class GameEvents {
+    private static final String RECORDING_DIR = "recordings";
+
+    private static final ExecutorService dumpThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "jfr-dump");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static Recording recording;
+
+    @Name("bullethell.WaveStart")
+    @Label("Wave Start")
+    @Category("Bullet Hell")
+    public static class WaveStart extends Event {
+        @Label("Wave") int wave;
+        @Label("Boss Wave") boolean bossWave;
+        @Label("Enemies") int enemies;
+        @Label("Triangles") int triangles;
+        @Label("Green Triangles") int greenTriangles;
+        @Label("Purple Triangles") int purpleTriangles;
+        @Label("Red Triangles") int redTriangles;
+        @Label("Purple Circles") int purpleCircles;
+        @Label("Green Circles") int greenCircles;
+    }
+
+    @Name("bullethell.WaveEnd")
+    @Label("Wave End")
+    @Category("Bullet Hell")
+    public static class WaveEnd extends Event {
+        @Label("Wave") int wave;
+        @Label("Ticks") int ticks;
+        @Label("Player HP") int playerHP;
+    }
+
+    @Name("bullethell.BossStateChange")
+    @Label("Boss State Change")
+    @Category("Bullet Hell")
+    public static class BossStateChange extends Event {
+        @Label("Boss") String boss;
+        @Label("From State") int fromState;
+        @Label("To State") int toState;
+        @Label("Attack Timer") int attackTimer;
+        @Label("Boss HP") int hp;
+    }
+
+    @Name("bullethell.BeamSpawn")
+    @Label("Beam Spawn")
+    @Category("Bullet Hell")
+    public static class BeamSpawn extends Event {
+        @Label("X") int x;
+        @Label("Y") int y;
+        @Label("Angle") double angle;
+        @Label("Rotating") boolean rotating;
+    }
+
+    @Name("bullethell.PlayerDamage")
+    @Label("Player Damage")
+    @Category("Bullet Hell")
+    public static class PlayerDamage extends Event {
+        @Label("Source") String source;
+        @Label("Amount") int amount;
+        @Label("HP After") int hpAfter;
+    }
+
+    @Name("bullethell.AchievementUnlock")
+    @Label("Achievement Unlock")
+    @Category("Bullet Hell")
+    public static class AchievementUnlock extends Event {
+        @Label("Achievement") String achievement;
+    }
+
+    // Only ticks slower than half a frame are recorded
+    @Name("bullethell.LongTick")
+    @Label("Long Tick")
+    @Category("Bullet Hell")
+    @Threshold("8 ms")
+    public static class LongTick extends Event {
+        @Label("Wave") int wave;
+        @Label("Entities") int entities;
+        @Label("Enemy Projectiles") int enemyProjectiles;
+    }
+
+    private static final EventType LONG_TICK = EventType.getEventType(LongTick.class);
+
+    // A started LongTick, or null while no recording asks for them. It is made every tick, so it
+    // is only worth the allocation while someone is recording.
+    public static LongTick tickStarted() {
+        if (!LONG_TICK.isEnabled()) return null;
+        LongTick tick = new LongTick();
+        tick.begin();
+        return tick;
+    }
+
+    public static void waveEnded(int wave, int ticks, int playerHP) {
+        FlightRecorder.event("wave {} ended after {} ticks, player HP {}", wave, ticks, playerHP);
+        WaveEnd event = new WaveEnd();
+        if (event.isEnabled()) {
+            event.wave = wave;
+            event.ticks = ticks;
+            event.playerHP = playerHP;
+            event.commit();
+        }
+    }
+
+    public static void bossStateChanged(String boss, int fromState, int toState, int attackTimer, int hp) {
+        FlightRecorder.event("{} state {} -> {}, HP {}", boss, fromState, toState, hp);
+        BossStateChange event = new BossStateChange();
+        if (event.isEnabled()) {
+            event.boss = boss;
+            event.fromState = fromState;
+            event.toState = toState;
+            event.attackTimer = attackTimer;
+            event.hp = hp;
+            event.commit();
+        }
+    }
+
+    public static void beamSpawned(int x, int y, double angle, boolean rotating) {
+        FlightRecorder.event(rotating ? "rotating beam at {},{}" : "beam at {},{}", x, y);
+        BeamSpawn event = new BeamSpawn();
+        if (event.isEnabled()) {
+            event.x = x;
+            event.y = y;
+            event.angle = angle;
+            event.rotating = rotating;
+            event.commit();
+        }
+    }
+
+    public static void playerDamaged(String source, int amount, int hpAfter) {
+        FlightRecorder.event("player hit by {} for {}, HP {}", source, amount, hpAfter);
+        PlayerDamage event = new PlayerDamage();
+        if (event.isEnabled()) {
+            event.source = source;
+            event.amount = amount;
+            event.hpAfter = hpAfter;
+            event.commit();
+        }
+    }
+
+    public static void achievementUnlocked(String achievement) {
+        FlightRecorder.event("achievement {}", achievement);
+        AchievementUnlock event = new AchievementUnlock();
+        if (event.isEnabled()) {
+            event.achievement = achievement;
+            event.commit();
+        }
+    }
+
+    public static synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    // Start an in-game recording with the JDK's "profile" settings
+    public static synchronized void startRecording() {
+        if (recording != null) return;
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("profile"));
+            r.setName("Bullet Hell");
+            r.enable(WaveStart.class);
+            r.enable(WaveEnd.class);
+            r.enable(BossStateChange.class);
+            r.enable(BeamSpawn.class);
+            r.enable(PlayerDamage.class);
+            r.enable(AchievementUnlock.class);
+            r.enable(LongTick.class).withThreshold(Duration.ofMillis(8));
+            r.start();
+            recording = r;
+        } catch (Exception e) {
+            // JFR unavailable on this JVM; the menu option just does nothing
+        }
+    }
+
+    // Stop the recording and write it to recordings/ without blocking the game
+    public static synchronized void stopRecordingAsync() {
+        if (recording == null) return;
+        Recording r = recording;
+        recording = null;
+        String name = "bullethell-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".jfr";
+        dumpThread.execute(() -> {
+            try {
+                r.stop();
+                Path dir = Paths.get(RECORDING_DIR);
+                Files.createDirectories(dir);
+                r.dump(dir.resolve(name));
+            } catch (Exception e) {
+                // Silently fail; nothing to recover
+            } finally {
+                r.close();
+            }
+        });
+    }
+}
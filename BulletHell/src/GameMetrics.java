@@ -0,0 +1,273 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+
+// Live numbers for watching a long run from outside the process: a JMX MBean
+// (bullethell:type=GameMetrics) and, when started with -Dbullethell.metrics.port=<port>,
+// a localhost-only HTTP endpoint at /metrics in Prometheus text format.
+//
+// The game thread builds an immutable Snapshot twice a second and swaps it into a volatile
+// field. Readers only ever see a complete snapshot and never hold anything the game waits on.
+public class GameMetrics implements GameMetricsMBean {
+    public static final String OBJECT_NAME = "bullethell:type=GameMetrics";
+    public static final String PORT_PROPERTY = "bullethell.metrics.port";
+    private static final long PUBLISH_INTERVAL_NANOS = 500_000_000L;
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+    private static boolean installed = false;
+    private static HttpServer server;
+
+    // Counts the game fills in when a snapshot is due; reused between publishes
+    public static class Sample {
+        public int wave, kills, playerHP;
+        public int enemies, triangleEnemies, greenTriangleEnemies, purpleTriangleEnemies;
+        public int redTriangleEnemies, purpleCircleEnemies, greenCircleEnemies;
+        public int playerProjectiles, enemyProjectiles, healingItems;
+        public int activeBeams;
+        public int bossAttackState = -1; // -1 when no boss is alive
+    }
+
+    public static final class Snapshot {
+        public final long publishedNanos;
+        public final double tickRate;
+        public final double stepP50Micros, stepP99Micros, stepMaxMicros;
+        public final double frameP50Micros, frameP99Micros, frameMaxMicros;
+        public final int wave, kills, playerHP;
+        public final int enemies, triangleEnemies, greenTriangleEnemies, purpleTriangleEnemies;
+        public final int redTriangleEnemies, purpleCircleEnemies, greenCircleEnemies;
+        public final int playerProjectiles, enemyProjectiles, healingItems;
+        public final int activeBeams, bossAttackState;
+
+        Snapshot(Sample s, double tickRate, long[] step, long[] frame, long publishedNanos) {
+            this.publishedNanos = publishedNanos;
+            this.tickRate = tickRate;
+            this.stepP50Micros = step[0] / 1000.0;
+            this.stepP99Micros = step[1] / 1000.0;
+            this.stepMaxMicros = step[2] / 1000.0;
+            this.frameP50Micros = frame[0] / 1000.0;
+            this.frameP99Micros = frame[1] / 1000.0;
+            this.frameMaxMicros = frame[2] / 1000.0;
+            this.wave = s.wave;
+            this.kills = s.kills;
+            this.playerHP = s.playerHP;
+            this.enemies = s.enemies;
+            this.triangleEnemies = s.triangleEnemies;
+            this.greenTriangleEnemies = s.greenTriangleEnemies;
+            this.purpleTriangleEnemies = s.purpleTriangleEnemies;
+            this.redTriangleEnemies = s.redTriangleEnemies;
+            this.purpleCircleEnemies = s.purpleCircleEnemies;
+            this.greenCircleEnemies = s.greenCircleEnemies;
+            this.playerProjectiles = s.playerProjectiles;
+            this.enemyProjectiles = s.enemyProjectiles;
+            this.healingItems = s.healingItems;
+            this.activeBeams = s.activeBeams;
+            this.bossAttackState = s.bossAttackState;
+        }
+    }
+
+    private volatile Snapshot latest = new Snapshot(new Sample(), 0, new long[3], new long[3], System.nanoTime());
+
+    // Step and frame times since the last publish; only touched by the game thread (the Swing
+    // timer ticks and paints on the same one). A step is update() alone, a frame runs from the
+    // tick starting to the end of its first paint.
+    private final int[] stepCounts = new int[FrameProfiler.BUCKETS];
+    private final int[] frameCounts = new int[FrameProfiler.BUCKETS];
+    private int windowTicks = 0, windowFrames = 0;
+    private long windowMax = 0, windowFrameMax = 0;
+    private long windowStart = 0;
+
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    // Register the MBean, and start the HTTP endpoint if a port was given. Safe to call twice.
+    public static synchronized void install() {
+        if (installed) return;
+        installed = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (Exception e) {
+            // Silently fail; the game runs the same without it
+        }
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port != null) {
+            startServer(port);
+        }
+    }
+
+    private static void startServer(int port) {
+        try {
+            // Loopback only: this is for watching a local soak run, not for the network
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", GameMetrics::handle);
+            server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "metrics-http");
+                t.setDaemon(true);
+                return t;
+            }));
+            server.start();
+        } catch (IOException e) {
+            // Port taken or not allowed; JMX still works
+            server = null;
+        }
+    }
+
+    // Record one tick's step time. Returns true when a new snapshot is due.
+    public boolean tick(long stepNanos) {
+        long now = System.nanoTime();
+        if (windowStart == 0) windowStart = now;
+        stepCounts[FrameProfiler.bucketOf(stepNanos)]++;
+        if (stepNanos > windowMax) windowMax = stepNanos;
+        windowTicks++;
+        return now - windowStart >= PUBLISH_INTERVAL_NANOS;
+    }
+
+    // Record one presented frame. Headless runs never paint, and report zeros.
+    public void framePresented(long frameNanos) {
+        frameCounts[FrameProfiler.bucketOf(frameNanos)]++;
+        if (frameNanos > windowFrameMax) windowFrameMax = frameNanos;
+        windowFrames++;
+    }
+
+    public void publish(Sample sample) {
+        long now = System.nanoTime();
+        double seconds = (now - windowStart) / 1e9;
+        double tickRate = seconds > 0 ? windowTicks / seconds : 0;
+        latest = new Snapshot(sample, tickRate, percentiles(stepCounts, windowTicks, windowMax),
+            percentiles(frameCounts, windowFrames, windowFrameMax), now);
+        Arrays.fill(stepCounts, 0);
+        Arrays.fill(frameCounts, 0);
+        windowTicks = 0;
+        windowFrames = 0;
+        windowMax = 0;
+        windowFrameMax = 0;
+        windowStart = now;
+    }
+
+    // p50, p99 and max. Bucket values are approximate, so never report a percentile above the real max.
+    private static long[] percentiles(int[] counts, int total, long max) {
+        return new long[] {
+            Math.min(max, FrameProfiler.percentile(counts, total, 0.50)),
+            Math.min(max, FrameProfiler.percentile(counts, total, 0.99)),
+            max
+        };
+    }
+
+    public Snapshot getSnapshot() {
+        return latest;
+    }
+
+    public double getTickRate() { return latest.tickRate; }
+    public double getStepP50Micros() { return latest.stepP50Micros; }
+    public double getStepP99Micros() { return latest.stepP99Micros; }
+    public double getStepMaxMicros() { return latest.stepMaxMicros; }
+    public double getFrameP50Micros() { return latest.frameP50Micros; }
+    public double getFrameP99Micros() { return latest.frameP99Micros; }
+    public double getFrameMaxMicros() { return latest.frameMaxMicros; }
+    public int getWave() { return latest.wave; }
+    public int getKills() { return latest.kills; }
+    public int getPlayerHP() { return latest.playerHP; }
+    public int getEnemies() { return latest.enemies; }
+    public int getTriangleEnemies() { return latest.triangleEnemies; }
+    public int getGreenTriangleEnemies() { return latest.greenTriangleEnemies; }
+    public int getPurpleTriangleEnemies() { return latest.purpleTriangleEnemies; }
+    public int getRedTriangleEnemies() { return latest.redTriangleEnemies; }
+    public int getPurpleCircleEnemies() { return latest.purpleCircleEnemies; }
+    public int getGreenCircleEnemies() { return latest.greenCircleEnemies; }
+    public int getPlayerProjectiles() { return latest.playerProjectiles; }
+    public int getEnemyProjectiles() { return latest.enemyProjectiles; }
+    public int getHealingItems() { return latest.healingItems; }
+    public int getActiveBeams() { return latest.activeBeams; }
+    public int getBossAttackState() { return latest.bossAttackState; }
+
+    // GC totals are read on the caller's thread; the game never pays for them
+    public long getGcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    public long getGcTimeMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+
+    public long getSnapshotAgeMillis() {
+        return (System.nanoTime() - latest.publishedNanos) / 1_000_000;
+    }
+
+    String toPrometheus() {
+        Snapshot s = latest;
+        StringBuilder sb = new StringBuilder();
+        gauge(sb, "bullethell_tick_rate", s.tickRate);
+        sb.append("bullethell_step_micros{quantile=\"0.5\"} ").append(s.stepP50Micros).append('\n');
+        sb.append("bullethell_step_micros{quantile=\"0.99\"} ").append(s.stepP99Micros).append('\n');
+        sb.append("bullethell_step_micros{quantile=\"1\"} ").append(s.stepMaxMicros).append('\n');
+        sb.append("bullethell_frame_micros{quantile=\"0.5\"} ").append(s.frameP50Micros).append('\n');
+        sb.append("bullethell_frame_micros{quantile=\"0.99\"} ").append(s.frameP99Micros).append('\n');
+        sb.append("bullethell_frame_micros{quantile=\"1\"} ").append(s.frameMaxMicros).append('\n');
+        gauge(sb, "bullethell_wave", s.wave);
+        gauge(sb, "bullethell_kills", s.kills);
+        gauge(sb, "bullethell_player_hp", s.playerHP);
+        entities(sb, "enemies", s.enemies);
+        entities(sb, "triangle_enemies", s.triangleEnemies);
+        entities(sb, "green_triangle_enemies", s.greenTriangleEnemies);
+        entities(sb, "purple_triangle_enemies", s.purpleTriangleEnemies);
+        entities(sb, "red_triangle_enemies", s.redTriangleEnemies);
+        entities(sb, "purple_circle_enemies", s.purpleCircleEnemies);
+        entities(sb, "green_circle_enemies", s.greenCircleEnemies);
+        entities(sb, "player_projectiles", s.playerProjectiles);
+        entities(sb, "enemy_projectiles", s.enemyProjectiles);
+        entities(sb, "healing_items", s.healingItems);
+        gauge(sb, "bullethell_active_beams", s.activeBeams);
+        gauge(sb, "bullethell_boss_attack_state", s.bossAttackState);
+        gauge(sb, "bullethell_gc_count", getGcCount());
+        gauge(sb, "bullethell_gc_time_ms", getGcTimeMillis());
+        gauge(sb, "bullethell_snapshot_age_ms", getSnapshotAgeMillis());
+        return sb.toString();
+    }
+
+    private static void gauge(StringBuilder sb, String name, double value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void entities(StringBuilder sb, String kind, int count) {
+        sb.append("bullethell_entities{kind=\"").append(kind).append("\"} ").append(count).append('\n');
+    }
+
+    private static void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = INSTANCE.toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
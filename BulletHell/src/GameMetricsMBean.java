@@ -0,0 +1,33 @@
+// Live numbers for a running game, readable from JConsole/VisualVM under bullethell:type=GameMetrics
+public interface GameMetricsMBean {
+    double getTickRate();
+    double getStepP50Micros();
+    double getStepP99Micros();
+    double getStepMaxMicros();
+    double getFrameP50Micros();
+    double getFrameP99Micros();
+    double getFrameMaxMicros();
+
+    int getWave();
+    int getKills();
+    int getPlayerHP();
+
+    int getEnemies();
+    int getTriangleEnemies();
+    int getGreenTriangleEnemies();
+    int getPurpleTriangleEnemies();
+    int getRedTriangleEnemies();
+    int getPurpleCircleEnemies();
+    int getGreenCircleEnemies();
+    int getPlayerProjectiles();
+    int getEnemyProjectiles();
+    int getHealingItems();
+
+    int getActiveBeams();
+    int getBossAttackState();
+
+    long getGcCount();
+    long getGcTimeMillis();
+
+    long getSnapshotAgeMillis();
+}
@@ -2,12 +2,24 @@ import javax.swing.*;
 import javax.swing.Timer;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
 public class GamePanel extends JPanel {
     private int WIDTH = 1000;
     private int HEIGHT = 700;
     private static final int FPS = 60;
+    private static final Log.Site HIT_LOG = new Log.Site("GamePanel", Log.Level.DEBUG, 5);
+    private static final Log.Site CRASH_LOG = new Log.Site("GamePanel", Log.Level.ERROR, 1);
+    private static final Color REVIVE_BURST = new Color(0, 220, 0);
+    private static final Color SPAWN_BURST = new Color(0, 200, 0);
+    private static final Color[] DASH_TRAIL = Colors.alphaRamp(new Color(0, 0.5f, 1f));
+    private static final Color DEATH_TINT = new Color(120, 0, 0, 60);
+    private static final Font HUD_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 36);
 
     private Player player;
     private ArrayList<Enemy> enemies;
@@ -18,11 +30,12 @@ public class GamePanel extends JPanel {
     private ArrayList<PurpleCircleEnemy> purpleCircleEnemies;
     private ArrayList<GreenCircleEnemy> greenCircleEnemies;
     private ArrayList<PlayerProjectile> playerProjectiles;
-    private ArrayList<EnemyProjectile> enemyProjectiles;
+    private EnemyBullets enemyProjectiles;
+    private ShotBuffer firedShots; // this tick's new bullets, before they join enemyProjectiles
     private ArrayList<HealingItem> healingItems;
     private Boss boss;
     private PurpleBoss purpleBoss;
-    private ArrayList<Object[]> recentlyDeadEnemies;
+    private DeathLog recentlyDeadEnemies;
     private int waveNumber = 1;
     private boolean waveInProgress = false;
     private int enemiesSpawned = 0;
@@ -39,17 +52,93 @@ public class GamePanel extends JPanel {
     private boolean showingUpgradeMenu = false;
     private UpgradeMenu upgradeMenu;
     private int lastUpgradeWave = 0;
+    private Upgrade[] offeredUpgrades;
+    private RandomStreams random;
+    private Timer timer;
+    private Scenario.Run scenario; // a loaded stress scenario, otherwise null
+
+    // Input is only collected by the event handlers; the simulation reads it once per tick
+    // through step(InputFrame), which is what makes runs recordable and replayable.
+    private final InputFrame input = new InputFrame();
+    private boolean pauseRequested = false;
+    private boolean pendingShoot = false;
+    private boolean pendingDash = false;
+    private int pendingUpgradeChoice = -1;
+    private Replay recording;
+    private FlightRecorder flightRecorder;
+    private TelemetrySampler telemetry; // live play only
+    // Every hit and contact in one pass a tick; the rules are in addCollisionRules()
+    private final CollisionSystem collisions = new CollisionSystem();
+    private final EntityHandles handles = new EntityHandles();
+    private final SpatialIndex hostiles = new SpatialIndex(); // every live hostile, for homing shots
+    private final int[] homingCandidates = new int[PlayerProjectile.CANDIDATES]; // scratch for steer()
+
+    // Enemy AI, spread over worker threads when a list gets big. The steps are made once so the
+    // per-tick calls don't allocate; they only read the player and the wave.
+    private final ParallelAi ai = new ParallelAi();
+    private final ParallelAi.Step<Enemy> enemyAi = (enemy, shots) -> {
+        enemy.update(WIDTH, HEIGHT, waveNumber, player.hasSlowField());
+        enemy.spawnProjectiles(shots, player.getX(), player.getY(), waveNumber);
+    };
+    private final ParallelAi.Step<TriangleEnemy> triangleAi = (enemy, shots) -> {
+        enemy.update(WIDTH, HEIGHT, player.hasSlowField());
+        enemy.spawnProjectiles(shots, player.getX(), player.getY());
+    };
+    private final ParallelAi.Step<GreenTriangleEnemy> greenTriangleAi = (enemy, shots) ->
+        enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
+    private final ParallelAi.Step<PurpleTriangleEnemy> purpleTriangleAi = (enemy, shots) ->
+        enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
+    private final ParallelAi.Step<RedTriangleEnemy> redTriangleAi = (enemy, shots) -> {
+        enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
+        enemy.spawnProjectiles(shots, player.getX(), player.getY());
+    };
+    private final ParallelAi.Step<PurpleCircleEnemy> purpleCircleAi = (enemy, shots) -> {
+        enemy.update(WIDTH, HEIGHT, player.hasSlowField());
+        enemy.spawnProjectiles(shots);
+    };
+    private final ParallelAi.Step<GreenCircleEnemy> greenCircleAi = (enemy, shots) ->
+        enemy.update(WIDTH, HEIGHT, player.hasSlowField());
+
+    // The last few seconds of play, reviewed after dying before the run restarts
+    private final RewindBuffer rewind = new RewindBuffer();
+    private boolean reviewingDeath = false;
+    private int reviewTicksAgo = 0;
+    private int ticksThisWave = 0;
+
+    // Per-section timings, shown with F3. Live runs always collect them so a slow-tick report has a breakdown.
+    private final FrameProfiler profiler = new FrameProfiler();
+    private boolean showProfiler = false;
+    private final SlowFrameWatchdog watchdog = SlowFrameWatchdog.get();
+    private final FramePacing pacing = new FramePacing();
+    private final GameMetrics.Sample metricsSample = new GameMetrics.Sample();
+    private String hpLabel, waveLabel;
+    private int hpLabelValue, waveLabelValue;
 
     public GamePanel(Achievements achievements) {
         this(achievements, 1); // Default to wave 1
     }
 
     public GamePanel(Achievements achievements, int startingWave) {
+        this(achievements, startingWave, RandomStreams.newSeed());
+    }
+
+    // The same seed and the same inputs always play out the same run
+    public GamePanel(Achievements achievements, int startingWave, long seed) {
+        this(achievements, startingWave, seed, null);
+    }
+
+    // Resume a run captured by RunSnapshot; starts a fresh run if the snapshot can't be read
+    public GamePanel(Achievements achievements, byte[] snapshot) {
+        this(achievements, 1, RandomStreams.newSeed(), snapshot);
+    }
+
+    private GamePanel(Achievements achievements, int startingWave, long seed, byte[] snapshot) {
         setPreferredSize(new Dimension(WIDTH, HEIGHT));
         setBackground(Color.BLACK);
         setFocusable(true);
         this.achievements = achievements;
         this.waveNumber = startingWave;
+        this.random = new RandomStreams(seed);
         this.achievementPopups = new ArrayList<>();
 
         // Load sprites
@@ -62,20 +151,42 @@ public class GamePanel extends JPanel {
         purpleTriangleEnemies = new ArrayList<>();
         redTriangleEnemies = new ArrayList<>();
         purpleCircleEnemies = new ArrayList<>();
-        recentlyDeadEnemies = new ArrayList<>();
+        recentlyDeadEnemies = new DeathLog();
         greenCircleEnemies = new ArrayList<>();
         playerProjectiles = new ArrayList<>();
-        enemyProjectiles = new ArrayList<>();
+        enemyProjectiles = new EnemyBullets();
+        firedShots = new ShotBuffer(256);
+        addCollisionRules();
         
         pauseMenu = new PauseMenu(WIDTH, HEIGHT);
+        pauseMenu.setRecording(GameEvents.isRecording());
         pauseMenu.setListener(new PauseMenu.PauseMenuListener() {
             @Override
             public void onResumeClicked() {
-                isPaused = false;
+                pauseRequested = false;
             }
             
+            @Override
+            public void onRecordClicked() {
+                if (GameEvents.isRecording()) {
+                    GameEvents.stopRecordingAsync();
+                } else {
+                    GameEvents.startRecording();
+                }
+                pauseMenu.setRecording(GameEvents.isRecording());
+            }
+
             @Override
             public void onMainMenuClicked() {
+                // Keep the run on disk so it can be resumed from the main menu; a stress
+                // scenario isn't a run
+                if (scenario == null) {
+                    RunSnapshot.saveAsync(RunSnapshot.capture(GamePanel.this));
+                }
+                if (recording != null) {
+                    Replay.saveAsync(recording);
+                }
+                timer.stop();
                 if (gamePanelListener != null) {
                     gamePanelListener.onReturnToMenu();
                 }
@@ -88,28 +199,12 @@ public class GamePanel extends JPanel {
         addKeyListener(new KeyAdapter() {
             @Override
             public void keyPressed(KeyEvent e) {
-                if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
-                    isPaused = !isPaused;
-                    return;
-                }
-                keysPressed.add(e.getKeyCode());
-                if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-                    int dirX = 0, dirY = 0;
-                    if (keysPressed.contains(KeyEvent.VK_W)) dirY--;
-                    if (keysPressed.contains(KeyEvent.VK_S)) dirY++;
-                    if (keysPressed.contains(KeyEvent.VK_A)) dirX--;
-                    if (keysPressed.contains(KeyEvent.VK_D)) dirX++;
-                    
-                    if (dirX == 0 && dirY == 0) {
-                        dirX = 1;
-                    }
-                    player.dash(dirX, dirY);
-                }
+                GamePanel.this.keyPressed(e);
             }
 
             @Override
             public void keyReleased(KeyEvent e) {
-                keysPressed.remove(e.getKeyCode());
+                GamePanel.this.keyReleased(e);
             }
         });
 
@@ -117,13 +212,12 @@ public class GamePanel extends JPanel {
             @Override
             public void mousePressed(MouseEvent e) {
                 if (showingUpgradeMenu && upgradeMenu != null) {
-                    upgradeMenu.dispatchEvent(new MouseEvent(upgradeMenu, MouseEvent.MOUSE_CLICKED, 
-                        System.currentTimeMillis(), 0, e.getX(), e.getY(), 1, false));
+                    upgradeMenu.handleClick(e.getX(), e.getY());
                 } else if (isPaused) {
-                    pauseMenu.dispatchEvent(new MouseEvent(pauseMenu, MouseEvent.MOUSE_CLICKED, 
-                        System.currentTimeMillis(), 0, e.getX(), e.getY(), 1, false));
+                    pauseMenu.handleClick(e.getX(), e.getY());
                 } else {
-                    player.shoot(playerProjectiles, e.getX(), e.getY());
+                    mousePos.setLocation(e.getX(), e.getY());
+                    pendingShoot = true;
                 }
             }
         });
@@ -131,30 +225,174 @@ public class GamePanel extends JPanel {
         addMouseMotionListener(new MouseAdapter() {
             @Override
             public void mouseMoved(MouseEvent e) {
-                mousePos = new Point(e.getX(), e.getY());
+                mousePos.setLocation(e.getX(), e.getY());
                 if (showingUpgradeMenu && upgradeMenu != null) {
-                    upgradeMenu.dispatchEvent(new MouseEvent(upgradeMenu, MouseEvent.MOUSE_MOVED, 
-                        System.currentTimeMillis(), 0, e.getX(), e.getY(), 0, false));
+                    upgradeMenu.updateHover(e.getX(), e.getY());
                 } else if (isPaused) {
-                    pauseMenu.dispatchEvent(new MouseEvent(pauseMenu, MouseEvent.MOUSE_MOVED, 
-                        System.currentTimeMillis(), 0, e.getX(), e.getY(), 0, false));
+                    pauseMenu.updateHover(e.getX(), e.getY());
                 }
             }
         });
 
-        startWave();
+        if (snapshot == null) {
+            startWave();
+        } else if (RunSnapshot.restore(this, snapshot)) {
+            // Resume paused so the player can get their bearings
+            pauseRequested = true;
+            isPaused = true;
+        } else {
+            // Unreadable snapshot: throw away whatever was partially restored and start over
+            waveNumber = 1;
+            player = new Player(WIDTH / 2, HEIGHT / 2);
+            clearWorld();
+            startWave();
+        }
 
-        Timer timer = new Timer(1000 / FPS, e -> {
-            updateDimensions();
-            update();
+        input.width = WIDTH;
+        input.height = HEIGHT;
+        timer = new Timer(1000 / FPS, e -> {
+            pacing.tickStarted(System.nanoTime());
+            sampleInput(input);
+            if (recording != null) {
+                recording.record(this, input);
+            }
+            flightRecorder.record(this, input);
+            long stepStart = System.nanoTime();
+            watchdog.tickStarted(stepStart);
+            try {
+                step(input);
+            } catch (VirtualMachineError ex) {
+                // Out of memory and the like: nothing sensible can run after these
+                throw ex;
+            } catch (Throwable ex) {
+                // Dump the first failure with a replay of the seconds before it; keep the game running.
+                // Errors count too: a StackOverflowError or AssertionError is still a game bug.
+                if (!flightRecorder.hasDumped()) {
+                    flightRecorder.dump(this, ex);
+                } else {
+                    CRASH_LOG.log("game tick threw {}", ex.toString());
+                }
+            }
+            long stepEnd = System.nanoTime();
+            if (watchdog.tickEnded(stepEnd)) {
+                fillMetrics(metricsSample);
+                watchdog.report(stepEnd - stepStart, waveNumber, metricsSample, profiler);
+            }
+            if (GameMetrics.get().tick(stepEnd - stepStart)) {
+                fillMetrics(metricsSample);
+                GameMetrics.get().publish(metricsSample);
+            }
             repaint();
         });
+    }
+
+    // Start live play. Panels driven by a replay are never started and only advance through step().
+    public void start() {
+        // A scenario's world doesn't come from the seed, so a replay of it couldn't play back
+        if (scenario == null) {
+            recording = new Replay(random.getSeed(), waveNumber);
+        }
+        flightRecorder = new FlightRecorder();
+        if (TelemetrySampler.isEnabled()) {
+            telemetry = new TelemetrySampler();
+        }
+        profiler.setEnabled(watchdog.isEnabled());
         timer.start();
     }
 
-    private void updateDimensions() {
-        int newWidth = getWidth();
-        int newHeight = getHeight();
+    // Collect this tick's input from the event handlers
+    private void sampleInput(InputFrame frame) {
+        frame.keyBits = InputFrame.keyBitsOf(keysPressed);
+        frame.mouseX = mousePos.x;
+        frame.mouseY = mousePos.y;
+        frame.shoot = pendingShoot;
+        frame.dash = pendingDash;
+        frame.upgradeChoice = pendingUpgradeChoice;
+        frame.paused = pauseRequested;
+        if (getWidth() > 0 && getHeight() > 0) {
+            frame.width = getWidth();
+            frame.height = getHeight();
+        }
+        pendingShoot = false;
+        pendingDash = false;
+        pendingUpgradeChoice = -1;
+    }
+
+    // Advance the simulation by one tick. Everything the player did reaches the world through here.
+    public void step(InputFrame frame) {
+        updateDimensions(frame.width, frame.height);
+
+        if (reviewingDeath) {
+            reviewDeath(frame);
+            return;
+        }
+
+        if (frame.upgradeChoice >= 0 && showingUpgradeMenu && frame.upgradeChoice < offeredUpgrades.length) {
+            Upgrade upgrade = offeredUpgrades[frame.upgradeChoice];
+            upgrade.apply(player);
+            showingUpgradeMenu = false;
+            lastUpgradeWave = waveNumber;
+        }
+        isPaused = frame.paused || showingUpgradeMenu;
+
+        GameEvents.LongTick tick = GameEvents.tickStarted();
+        update(frame);
+        profiler.endTick();
+        if (tick == null) return;
+        tick.end();
+        if (tick.shouldCommit()) {
+            tick.wave = waveNumber;
+            tick.entities = entityCount();
+            tick.enemyProjectiles = enemyProjectiles.size();
+            tick.commit();
+        }
+    }
+
+    private void damagePlayer(int amount, String source) {
+        int before = player.getHP();
+        // Beams overlap the player for many ticks in a row, hence the rate-limited site
+        HIT_LOG.log("player hit by {} for {}", source, amount);
+        player.takeDamage(amount);
+        // Damage is ignored during the post-hit invulnerability window, so only report what landed
+        if (player.getHP() < before) {
+            GameEvents.playerDamaged(source, before - player.getHP(), player.getHP());
+            if (telemetry != null) {
+                telemetry.damageTaken(source, before - player.getHP(), player.getX(), player.getY());
+            }
+        }
+    }
+
+    // Left scrubs back through the rewind buffer, right scrubs forward, Enter starts the next run
+    private void reviewDeath(InputFrame frame) {
+        if (frame.isDown(InputFrame.KEY_CONFIRM)) {
+            endRun();
+            return;
+        }
+        if (frame.isDown(InputFrame.KEY_SCRUB_BACK)) {
+            reviewTicksAgo = Math.min(reviewTicksAgo + 1, Math.max(0, rewind.available() - 1));
+        } else if (frame.isDown(InputFrame.KEY_SCRUB_FORWARD)) {
+            reviewTicksAgo = Math.max(reviewTicksAgo - 1, 0);
+        }
+        rewind.seek(reviewTicksAgo);
+    }
+
+    private void endRun() {
+        // The run is over, so there's nothing left to resume
+        RunSnapshot.deleteAsync();
+        if (recording != null) {
+            Replay.saveAsync(recording);
+            recording = new Replay(random.getSeed(), 1);
+        }
+        reviewingDeath = false;
+        rewind.clear();
+        waveNumber = 1;
+        player.reset(WIDTH / 2, HEIGHT / 2);
+        // Everything, bosses included: a run can end in the middle of any wave
+        clearWorld();
+        startWave();
+    }
+
+    private void updateDimensions(int newWidth, int newHeight) {
         if (newWidth > 0 && newHeight > 0) {
             WIDTH = newWidth;
             HEIGHT = newHeight;
@@ -175,18 +413,13 @@ public class GamePanel extends JPanel {
     private void startWave() {
         // Show upgrade menu every 10 waves (at waves 11, 21, 31, etc.)
         if (waveNumber > 10 && waveNumber % 10 == 1 && waveNumber > lastUpgradeWave) {
-            showingUpgradeMenu = true;
-            isPaused = true;
-            Upgrade[] upgrades = Upgrade.getRandomUpgrades(3);
-            upgradeMenu = new UpgradeMenu(upgrades, WIDTH, HEIGHT);
-            upgradeMenu.setListener(upgrade -> {
-                upgrade.apply(player);
-                showingUpgradeMenu = false;
-                isPaused = false;
-                lastUpgradeWave = waveNumber;
-            });
+            showUpgradeMenu(Upgrade.getRandomUpgrades(3, random.loot()));
         }
         
+        // Wave boundary: record progress and flush the profile
+        achievements.recordWaveReached(waveNumber);
+        achievements.save();
+
         // Check wave achievements
         if (waveNumber >= 5) {
             unlockAchievement("Wave Survivor");
@@ -208,10 +441,10 @@ public class GamePanel extends JPanel {
             bossFight = true;
             if (waveNumber == 20) {
                 // Second boss on wave 20
-                purpleBoss = new PurpleBoss(WIDTH / 2, 150, WIDTH, HEIGHT);
+                purpleBoss = new PurpleBoss(WIDTH / 2, 150, WIDTH, HEIGHT, random.forkAi());
             } else {
                 // Regular boss on other waves (10, 30, etc.)
-                boss = new Boss(WIDTH / 2, 100, waveNumber);
+                boss = new Boss(WIDTH / 2, 100, waveNumber, random.forkAi());
             }
         } else {
             bossFight = false;
@@ -234,7 +467,7 @@ public class GamePanel extends JPanel {
             //}
             
             for (int i = 0; i < regularEnemies; i++) {
-                enemies.add(Enemy.spawnRandom(WIDTH, HEIGHT, waveNumber));
+                enemies.add(Enemy.spawnRandom(WIDTH, HEIGHT, waveNumber, random));
             }
             
             // Spawn more triangle enemies as waves progress (reduced if purple circles are present)
@@ -248,8 +481,8 @@ public class GamePanel extends JPanel {
                     triangleCount = Math.max(0, triangleCount - 2); // Further reduce when purple circles present
                 }
                 for (int i = 0; i < triangleCount; i++) {
-                    int spawnX = WIDTH / 4 + (i % 3) * (WIDTH / 3) + (int)(Math.random() * 100 - 50);
-                    triangleEnemies.add(new TriangleEnemy(spawnX, 30 + i * 20));
+                    int spawnX = WIDTH / 4 + (i % 3) * (WIDTH / 3) + (int)(random.spawn().nextDouble() * 100 - 50);
+                    triangleEnemies.add(new TriangleEnemy(spawnX, 30 + i * 20, random.forkAi()));
                 }
             }
             
@@ -267,20 +500,20 @@ public class GamePanel extends JPanel {
                 // Use purple triangles starting from wave 15
                 if (waveNumber >= 15) {
                     for (int i = 0; i < triangleCount; i++) {
-                        int spawnX = WIDTH / 3 + (i % 2) * (WIDTH / 3) + (int)(Math.random() * 80 - 40);
-                        int spawnY = HEIGHT / 3 + (int)(Math.random() * 60 - 30);
+                        int spawnX = WIDTH / 3 + (i % 2) * (WIDTH / 3) + (int)(random.spawn().nextDouble() * 80 - 40);
+                        int spawnY = HEIGHT / 3 + (int)(random.spawn().nextDouble() * 60 - 30);
                         if (waveNumber >= 25) {
-                            redTriangleEnemies.add(new RedTriangleEnemy(spawnX, spawnY));
+                            redTriangleEnemies.add(new RedTriangleEnemy(spawnX, spawnY, random.forkAi()));
                         } else {
-                            purpleTriangleEnemies.add(new PurpleTriangleEnemy(spawnX, spawnY));
+                            purpleTriangleEnemies.add(new PurpleTriangleEnemy(spawnX, spawnY, random.forkAi()));
                         }
                     }
                 } else {
                     // Use green triangles before wave 15
                     for (int i = 0; i < triangleCount; i++) {
-                        int spawnX = WIDTH / 3 + (i % 2) * (WIDTH / 3) + (int)(Math.random() * 80 - 40);
-                        int spawnY = HEIGHT / 3 + (int)(Math.random() * 60 - 30);
-                        greenTriangleEnemies.add(new GreenTriangleEnemy(spawnX, spawnY));
+                        int spawnX = WIDTH / 3 + (i % 2) * (WIDTH / 3) + (int)(random.spawn().nextDouble() * 80 - 40);
+                        int spawnY = HEIGHT / 3 + (int)(random.spawn().nextDouble() * 60 - 30);
+                        greenTriangleEnemies.add(new GreenTriangleEnemy(spawnX, spawnY, random.forkAi()));
                     }
                 }
             }
@@ -290,9 +523,9 @@ public class GamePanel extends JPanel {
                 int purpleCircleCount = 1 + (waveNumber - 11) / 5;
                 purpleCircleCount = Math.min(purpleCircleCount, 3);
                 for (int i = 0; i < purpleCircleCount; i++) {
-                    int spawnX = 100 + (int)(Math.random() * (WIDTH - 200));
-                    int spawnY = 100 + (int)(Math.random() * (HEIGHT - 200));
-                    purpleCircleEnemies.add(new PurpleCircleEnemy(spawnX, spawnY, WIDTH, HEIGHT));
+                    int spawnX = 100 + (int)(random.spawn().nextDouble() * (WIDTH - 200));
+                    int spawnY = 100 + (int)(random.spawn().nextDouble() * (HEIGHT - 200));
+                    purpleCircleEnemies.add(new PurpleCircleEnemy(spawnX, spawnY, WIDTH, HEIGHT, random.forkAi()));
                 }
             }
 
@@ -302,16 +535,111 @@ public class GamePanel extends JPanel {
                 int greenCircleCount = 1 + (waveNumber - 21) / 10;
                 greenCircleCount = Math.min(greenCircleCount, 2);
                 for (int i = 0; i < greenCircleCount; i++) {
-                    int spawnX = WIDTH / 2 + (int)(Math.random() * 400 - 200);
-                    int spawnY = HEIGHT / 3 + (int)(Math.random() * 120 - 60);
-                    greenCircleEnemies.add(new GreenCircleEnemy(spawnX, spawnY, WIDTH, HEIGHT));
+                    int spawnX = WIDTH / 2 + (int)(random.spawn().nextDouble() * 400 - 200);
+                    int spawnY = HEIGHT / 3 + (int)(random.spawn().nextDouble() * 120 - 60);
+                    greenCircleEnemies.add(new GreenCircleEnemy(spawnX, spawnY, WIDTH, HEIGHT, random.forkAi()));
                 }
             }
         }
         waveInProgress = true;
+        ticksThisWave = 0;
+        FlightRecorder.event("wave {} started", waveNumber);
+
+        GameEvents.WaveStart event = new GameEvents.WaveStart();
+        if (event.isEnabled()) {
+            event.wave = waveNumber;
+            event.bossWave = bossFight;
+            event.enemies = enemies.size();
+            event.triangles = triangleEnemies.size();
+            event.greenTriangles = greenTriangleEnemies.size();
+            event.purpleTriangles = purpleTriangleEnemies.size();
+            event.redTriangles = redTriangleEnemies.size();
+            event.purpleCircles = purpleCircleEnemies.size();
+            event.greenCircles = greenCircleEnemies.size();
+            event.commit();
+        }
+    }
+
+    // Throws the current world away for a stress scenario; see Scenario. Live play should load it
+    // before start().
+    public void loadScenario(Scenario definition) {
+        clearWorld();
+        rewind.clear();
+        hostiles.clear();
+        showingUpgradeMenu = false;
+        bossFight = false;
+        waveInProgress = true;
+        waveNumber = definition.getWave();
+        ticksThisWave = 0;
+        player.reset(WIDTH / 2, HEIGHT / 2);
+        definition.equip(player);
+        scenario = definition.start(random.forkAi(), WIDTH, HEIGHT);
+        fillScenario();
+        FlightRecorder.event("scenario {} loaded", definition.getName());
     }
 
-    private void update() {
+    // Tops every list back up to the scenario's count, at random spots
+    private void fillScenario() {
+        Scenario s = scenario.getScenario();
+        while (enemies.size() < s.getEnemies()) {
+            enemies.add(new Enemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), random.forkAi()));
+        }
+        while (triangleEnemies.size() < s.getTriangles()) {
+            triangleEnemies.add(new TriangleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), random.forkAi()));
+        }
+        while (greenTriangleEnemies.size() < s.getGreenTriangles()) {
+            greenTriangleEnemies.add(new GreenTriangleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), random.forkAi()));
+        }
+        while (purpleTriangleEnemies.size() < s.getPurpleTriangles()) {
+            purpleTriangleEnemies.add(new PurpleTriangleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), random.forkAi()));
+        }
+        while (redTriangleEnemies.size() < s.getRedTriangles()) {
+            redTriangleEnemies.add(new RedTriangleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), random.forkAi()));
+        }
+        while (purpleCircleEnemies.size() < s.getPurpleCircles()) {
+            purpleCircleEnemies.add(new PurpleCircleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), WIDTH, HEIGHT, random.forkAi()));
+        }
+        while (greenCircleEnemies.size() < s.getGreenCircles()) {
+            greenCircleEnemies.add(new GreenCircleEnemy(scenario.spawnX(WIDTH), scenario.spawnY(HEIGHT), WIDTH, HEIGHT, random.forkAi()));
+        }
+    }
+
+    private void advanceWave() {
+        GameEvents.waveEnded(waveNumber, ticksThisWave, player.getHP());
+        if (telemetry != null) {
+            telemetry.flush(waveNumber, TelemetrySampler.CLEARED);
+        }
+        waveNumber++;
+        startWave();
+    }
+
+    private void showUpgradeMenu(Upgrade[] upgrades) {
+        showingUpgradeMenu = true;
+        isPaused = true;
+        offeredUpgrades = upgrades;
+        upgradeMenu = new UpgradeMenu(upgrades, WIDTH, HEIGHT);
+        // The choice is applied on the next tick by step()
+        upgradeMenu.setListener(upgrade -> pendingUpgradeChoice = Arrays.asList(offeredUpgrades).indexOf(upgrade));
+    }
+
+    private void clearWorld() {
+        enemies.clear();
+        triangleEnemies.clear();
+        greenTriangleEnemies.clear();
+        purpleTriangleEnemies.clear();
+        redTriangleEnemies.clear();
+        purpleCircleEnemies.clear();
+        greenCircleEnemies.clear();
+        playerProjectiles.clear();
+        enemyProjectiles.clear();
+        firedShots.clear();
+        healingItems.clear();
+        recentlyDeadEnemies.clear();
+        boss = null;
+        purpleBoss = null;
+    }
+
+    private void update(InputFrame frame) {
         // Update achievement popups
         for (int i = achievementPopups.size() - 1; i >= 0; i--) {
             AchievementPopup popup = achievementPopups.get(i);
@@ -325,474 +653,586 @@ public class GamePanel extends JPanel {
         if (isPaused) {
             return;
         }
-        
+
+        ticksThisWave++;
+        long updateStart = profiler.begin();
+        long t = profiler.begin();
+
+        // Player input first, inside the player section so the shots it makes are counted there
+        if (frame.dash) {
+            int dirX = 0, dirY = 0;
+            if (frame.isDown(InputFrame.KEY_UP)) dirY--;
+            if (frame.isDown(InputFrame.KEY_DOWN)) dirY++;
+            if (frame.isDown(InputFrame.KEY_LEFT)) dirX--;
+            if (frame.isDown(InputFrame.KEY_RIGHT)) dirX++;
+
+            if (dirX == 0 && dirY == 0) {
+                dirX = 1;
+            }
+            player.dash(dirX, dirY);
+        }
+        if (frame.shoot) {
+            player.shoot(playerProjectiles, frame.mouseX, frame.mouseY);
+        }
+
+        trackHostiles();
+
         // Player movement
-        player.update(keysPressed, WIDTH, HEIGHT);
+        player.update(frame.keyBits, WIDTH, HEIGHT);
+        t = profiler.lap(FrameProfiler.Section.PLAYER, t);
 
         // Player projectile updates
         for (int i = playerProjectiles.size() - 1; i >= 0; i--) {
             PlayerProjectile proj = playerProjectiles.get(i);
+            if (proj.isHoming()) {
+                proj.steer(hostiles, homingCandidates);
+            }
             proj.update();
             if (proj.isOutOfBounds(WIDTH, HEIGHT)) {
                 playerProjectiles.remove(i);
             }
         }
 
-        // Enemy updates and projectile spawning
+        t = profiler.lap(FrameProfiler.Section.PLAYER_SHOTS, t);
+
+        // Everything moves and fires first; collisions for the whole world are resolved together
+        // below, once positions are final
+        FrameProfiler.Section enemySection = !bossFight ? FrameProfiler.Section.ENEMIES
+            : (waveNumber == 20 && purpleBoss != null ? FrameProfiler.Section.PURPLE_BOSS : FrameProfiler.Section.BOSS);
         if (!bossFight) {
-            for (int i = enemies.size() - 1; i >= 0; i--) {
+            ai.update(enemies, firedShots, enemyAi);
+        } else if (waveNumber == 20 && purpleBoss != null) {
+            // Purple boss fight
+            purpleBoss.update(player.getX(), player.getY());
+            purpleBoss.spawnProjectiles(firedShots);
+        } else {
+            // Regular boss fight
+            boss.update(WIDTH, HEIGHT, waveNumber);
+            boss.spawnProjectiles(firedShots, player.getX(), player.getY(), WIDTH, HEIGHT);
+        }
+
+        t = profiler.lap(enemySection, t);
+
+        // Triangle enemy updates
+        ai.update(triangleEnemies, firedShots, triangleAi);
+
+        t = profiler.lap(FrameProfiler.Section.TRIANGLES, t);
+
+        // Green triangle enemy updates
+        ai.update(greenTriangleEnemies, firedShots, greenTriangleAi);
+
+        t = profiler.lap(FrameProfiler.Section.GREEN_TRIANGLES, t);
+
+        // Purple triangle enemy updates
+        ai.update(purpleTriangleEnemies, firedShots, purpleTriangleAi);
+
+        t = profiler.lap(FrameProfiler.Section.PURPLE_TRIANGLES, t);
+
+        // Red triangle enemy updates (waves 25+)
+        ai.update(redTriangleEnemies, firedShots, redTriangleAi);
+
+        t = profiler.lap(FrameProfiler.Section.RED_TRIANGLES, t);
+
+        // Purple circle enemy updates
+        ai.update(purpleCircleEnemies, firedShots, purpleCircleAi);
+        for (int i = purpleCircleEnemies.size() - 1; i >= 0; i--) {
+            purpleCircleEnemies.get(i).announceBeams();
+        }
+
+        t = profiler.lap(FrameProfiler.Section.PURPLE_CIRCLES, t);
+
+        // Green circle enemy updates
+        ai.update(greenCircleEnemies, firedShots, greenCircleAi);
+
+        t = profiler.lap(FrameProfiler.Section.GREEN_CIRCLES, t);
+
+        if (scenario != null) {
+            scenario.update(firedShots, WIDTH, HEIGHT);
+        }
+
+        // Enemy projectile updates, this tick's new shots included
+        enemyProjectiles.addAll(firedShots);
+        firedShots.clear();
+        enemyProjectiles.update(WIDTH, HEIGHT, player);
+
+        t = profiler.lap(FrameProfiler.Section.ENEMY_SHOTS, t);
+
+        // Hits, contact damage and pickups, then whatever they killed
+        collideWorld();
+        removeDead();
+        if (scenario != null) {
+            fillScenario();
+        }
+        t = profiler.lap(FrameProfiler.Section.COLLISIONS, t);
+
+        recordRewind();
+        t = profiler.lap(FrameProfiler.Section.REWIND, t);
+        if (telemetry != null) {
+            telemetry.sampleTick(player, enemyProjectiles, WIDTH, HEIGHT);
+        }
+        profiler.end(FrameProfiler.Section.TELEMETRY, t);
+        profiler.end(FrameProfiler.Section.UPDATE, updateStart);
+
+        if (player.isDead()) {
+            if (telemetry != null) {
+                telemetry.playerDied(player.getX(), player.getY());
+                telemetry.flush(waveNumber, TelemetrySampler.DIED);
+            }
+            // Freeze the world on the death and review it before restarting
+            reviewingDeath = true;
+            reviewTicksAgo = 0;
+            rewind.seek(0);
+        }
+    }
+
+    // The collision matrix. Rules run in this order, so shots land before anything hurts the
+    // player and an enemy killed this tick no longer burns with its beams.
+    private void addCollisionRules() {
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.ENEMY, (shot, target) -> {
+            Enemy enemy = enemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), false)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.TRIANGLE, (shot, target) -> {
+            TriangleEnemy enemy = triangleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), false)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.GREEN_TRIANGLE, (shot, target) -> {
+            GreenTriangleEnemy enemy = greenTriangleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), false)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.PURPLE_TRIANGLE, (shot, target) -> {
+            PurpleTriangleEnemy enemy = purpleTriangleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), false)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.RED_TRIANGLE, (shot, target) -> {
+            RedTriangleEnemy enemy = redTriangleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), false)) enemy.takeDamage(1);
+        });
+        // Circles stop piercing shots
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.PURPLE_CIRCLE, (shot, target) -> {
+            PurpleCircleEnemy enemy = purpleCircleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), true)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.GREEN_CIRCLE, (shot, target) -> {
+            GreenCircleEnemy enemy = greenCircleEnemies.get(collisions.owner(target));
+            if (shotLands(shot, enemy.getHandle(), true)) enemy.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.BOSS, (shot, target) -> {
+            if (shotLands(shot, boss.getHandle(), false)) boss.takeDamage(1);
+        });
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.PURPLE_BOSS, (shot, target) -> {
+            if (shotLands(shot, purpleBoss.getHandle(), false)) purpleBoss.takeDamage(1);
+        });
+        // The beams are part of the boss: a piercing shot through body and beam still hits once
+        collisions.rule(CollisionSystem.PLAYER_SHOT, CollisionSystem.PURPLE_BOSS_BEAM, (shot, beam) -> {
+            if (shotLands(shot, purpleBoss.getHandle(), false)) purpleBoss.takeDamage(1);
+        });
+
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.ENEMY, contact(1, "Enemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.TRIANGLE, contact(1, "TriangleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.GREEN_TRIANGLE, contact(1, "GreenTriangleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PURPLE_TRIANGLE, contact(1, "PurpleTriangleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.RED_TRIANGLE, contact(2, "RedTriangleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PURPLE_CIRCLE, contact(1, "PurpleCircleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.GREEN_CIRCLE, contact(1, "GreenCircleEnemy"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PURPLE_BOSS, contact(1, "PurpleBoss"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.BOSS_BEAM, contact(1, "Boss beam"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PURPLE_BOSS_BEAM, contact(1, "PurpleBoss beam"));
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PURPLE_CIRCLE_BEAM, (player, beam) -> {
+            if (!purpleCircleEnemies.get(collisions.owner(beam)).isDead()) {
+                damagePlayer(1, "PurpleCircleEnemy beam");
+            }
+        });
+
+        collisions.rule(CollisionSystem.PLAYER, CollisionSystem.PICKUP, (player, pickup) -> pickUpHealing(pickup));
+        collisions.rule(CollisionSystem.ENEMY_SHOT, CollisionSystem.PLAYER, (shot, player) -> {
+            damagePlayer(enemyProjectiles.getDamage(collisions.owner(shot)), "EnemyProjectile");
+            collisions.consume(shot);
+        });
+    }
+
+    private CollisionSystem.Response contact(int damage, String source) {
+        return (player, target) -> damagePlayer(damage, source);
+    }
+
+    // A shot damages each target once, however many ticks it spends inside it. It is used up
+    // unless it pierces and the target lets it through; only shots that go on need to remember.
+    private boolean shotLands(int shot, int target, boolean stopsPiercing) {
+        PlayerProjectile proj = playerProjectiles.get(collisions.owner(shot));
+        if (proj.hasHit(target)) return false;
+        if (stopsPiercing || !proj.isPiercing()) {
+            collisions.consume(shot);
+        } else {
+            proj.recordHit(target);
+        }
+        return true;
+    }
+
+    private void pickUpHealing(int pickup) {
+        HealingItem item = healingItems.get(collisions.owner(pickup));
+        player.heal(1);
+        achievements.recordHealingPickup();
+        if (telemetry != null) {
+            telemetry.healingPickedUp(item.getX(), item.getY());
+        }
+        if (player.getHP() <= 5) {
+            int healingCount = 6 - player.getHP();
+            if (healingCount % 5 == 0) {
+                unlockAchievement("Medic");
+            }
+        }
+        collisions.consume(pickup);
+    }
+
+    // Gives everything shots can hit a handle (how a shot remembers what it hit) and refreshes the
+    // hostile index, from the lists as they stand when the tick starts. The index is only ever fed
+    // from here, so after a snapshot is restored it comes back exactly as it was.
+    private void trackHostiles() {
+        if (!bossFight) {
+            for (int i = 0; i < enemies.size(); i++) {
                 Enemy enemy = enemies.get(i);
-                enemy.update(WIDTH, HEIGHT, waveNumber, player.hasSlowField());
-                enemy.spawnProjectiles(enemyProjectiles, player.getX(), player.getY(), waveNumber);
-
-                // Check player projectile collisions
-                for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                    PlayerProjectile proj = playerProjectiles.get(j);
-                    if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                        enemy.takeDamage(1);
-                        if (!proj.isPiercing()) {
-                            playerProjectiles.remove(j);
-                        }
-                        break;
-                    }
-                }
+                enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+            }
+        } else if (waveNumber == 20 && purpleBoss != null) {
+            purpleBoss.setHandle(track(purpleBoss.getHandle(), purpleBoss.getX(), purpleBoss.getY()));
+        } else {
+            boss.setHandle(track(boss.getHandle(), boss.getX(), boss.getY()));
+        }
+        for (int i = 0; i < triangleEnemies.size(); i++) {
+            TriangleEnemy enemy = triangleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        for (int i = 0; i < greenTriangleEnemies.size(); i++) {
+            GreenTriangleEnemy enemy = greenTriangleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        for (int i = 0; i < purpleTriangleEnemies.size(); i++) {
+            PurpleTriangleEnemy enemy = purpleTriangleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        for (int i = 0; i < redTriangleEnemies.size(); i++) {
+            RedTriangleEnemy enemy = redTriangleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        for (int i = 0; i < purpleCircleEnemies.size(); i++) {
+            PurpleCircleEnemy enemy = purpleCircleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        for (int i = 0; i < greenCircleEnemies.size(); i++) {
+            GreenCircleEnemy enemy = greenCircleEnemies.get(i);
+            enemy.setHandle(track(enemy.getHandle(), enemy.getX(), enemy.getY()));
+        }
+        handles.sweep();
+        hostiles.sweep();
+    }
 
-                // Check contact collision with player
-                if (enemy.collidesWith(player.getX(), player.getY())) {
-                    player.takeDamage(1);
-                }
+    private int track(int handle, int x, int y) {
+        handle = handles.keep(handle);
+        hostiles.update(handle, x, y);
+        return handle;
+    }
 
+    // Adds everything that can touch to this tick's collision pass and runs the rules
+    private void collideWorld() {
+        collisions.begin(WIDTH, HEIGHT);
+        player.addCollider(collisions);
+        int firstShot = collisions.size();
+        for (int j = 0; j < playerProjectiles.size(); j++) {
+            playerProjectiles.get(j).addCollider(collisions, j);
+        }
+        enemyProjectiles.addColliders(collisions);
+        int firstPickup = collisions.size();
+        for (int j = 0; j < healingItems.size(); j++) {
+            healingItems.get(j).addCollider(collisions, j);
+        }
+        if (!bossFight) {
+            for (int i = 0; i < enemies.size(); i++) enemies.get(i).addCollider(collisions, i);
+        } else if (waveNumber == 20 && purpleBoss != null) {
+            purpleBoss.addCollider(collisions);
+        } else {
+            boss.addCollider(collisions);
+        }
+        for (int i = 0; i < triangleEnemies.size(); i++) triangleEnemies.get(i).addCollider(collisions, i);
+        for (int i = 0; i < greenTriangleEnemies.size(); i++) greenTriangleEnemies.get(i).addCollider(collisions, i);
+        for (int i = 0; i < purpleTriangleEnemies.size(); i++) purpleTriangleEnemies.get(i).addCollider(collisions, i);
+        for (int i = 0; i < redTriangleEnemies.size(); i++) redTriangleEnemies.get(i).addCollider(collisions, i);
+        for (int i = 0; i < purpleCircleEnemies.size(); i++) purpleCircleEnemies.get(i).addCollider(collisions, i);
+        for (int i = 0; i < greenCircleEnemies.size(); i++) greenCircleEnemies.get(i).addCollider(collisions, i);
+        if (scenario != null) {
+            // Free-standing scenario beams burn like the boss's
+            collisions.addBeams(CollisionSystem.BOSS_BEAM, 0, scenario.getBeams());
+        }
+        collisions.run();
+
+        // Proxy ids are list positions, so spent things go before anything can reorder the lists
+        collisions.removeConsumed(playerProjectiles, firstShot);
+        enemyProjectiles.removeConsumed(collisions);
+        collisions.removeConsumed(healingItems, firstPickup);
+    }
+
+    // Kills, loot and revives after the collision pass. Starting the next wave can clear and
+    // refill the lists, so each list is finished before the next one is looked at.
+    private void removeDead() {
+        if (!bossFight) {
+            for (int i = enemies.size() - 1; i >= 0; i--) {
+                Enemy enemy = enemies.get(i);
                 if (enemy.isDead()) {
                     totalKills++;
+                    achievements.recordKill();
                     if (totalKills == 1) {
                         unlockAchievement("First Blood");
                     }
                     if (totalKills >= 50) {
                         unlockAchievement("Sharpshooter");
                     }
-                    if (Math.random() < 0.25) {
+                    if (random.loot().nextDouble() < 0.25) {
                         healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                     }
                     // Record exact dead enemy for potential revival
-                    recentlyDeadEnemies.add(new Object[]{"Enemy", enemy.getX(), enemy.getY()});
+                    recentlyDeadEnemies.add(DeathLog.ENEMY, enemy.getX(), enemy.getY());
                     enemies.remove(i);
                 }
             }
 
-            if (enemies.isEmpty() && triangleEnemies.isEmpty() && greenTriangleEnemies.isEmpty() && purpleTriangleEnemies.isEmpty() && waveInProgress) {
-                waveNumber++;
-                startWave();
+            if (enemies.isEmpty() && triangleEnemies.isEmpty() && greenTriangleEnemies.isEmpty() && purpleTriangleEnemies.isEmpty() && waveInProgress
+                    && scenario == null) {
+                advanceWave();
             }
-        } else {
-            // Boss updates
-            if (waveNumber == 20 && purpleBoss != null) {
-                // Purple boss fight
-                purpleBoss.update(player.getX(), player.getY());
-                purpleBoss.spawnProjectiles(enemyProjectiles);
-
-                // Check player projectile collisions with purple boss
-                for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                    PlayerProjectile proj = playerProjectiles.get(j);
-                    if (purpleBoss.collidesWith(proj.getX(), proj.getY())) {
-                        purpleBoss.takeDamage(1);
-                        if (!proj.isPiercing()) {
-                            playerProjectiles.remove(j);
-                        }
-                        break;
-                    }
-                }
-
-                if (purpleBoss.isDead()) {
-                    unlockAchievement("Second Boss");
-                    waveNumber++;
-                    startWave();
-                }
-
-                // Check player collision with purple boss
-                if (purpleBoss.collidesWith(player.getX(), player.getY())) {
-                    player.takeDamage(1);
-                }
-
-
-            } else {
-                // Regular boss fight
-                boss.update(WIDTH, HEIGHT, waveNumber);
-                boss.spawnProjectiles(enemyProjectiles, player.getX(), player.getY(), WIDTH, HEIGHT);
-
-                // Check beam collisions from regular boss
-                try {
-                    for (Beam b : boss.getBeams()) {
-                        if (b.checkCollision(player.getX(), player.getY())) {
-                            player.takeDamage(1);
-                            System.out.println("GamePanel: player hit by Boss beam");
-                        }
-                    }
-                } catch (Exception ex) {
-                    // ignore if boss has no beams or method access issues
-                }
-
-                // Check player projectile collisions with boss
-                for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                    PlayerProjectile proj = playerProjectiles.get(j);
-                    if (boss.collidesWith(proj.getX(), proj.getY())) {
-                        boss.takeDamage(1);
-                        if (!proj.isPiercing()) {
-                            playerProjectiles.remove(j);
-                        }
-                        break;
-                    }
-                }
-
-                if (boss.isDead()) {
-                    unlockAchievement("First Boss");
-                    waveNumber++;
-                    startWave();
-                }
+        } else if (waveNumber == 20 && purpleBoss != null) {
+            if (purpleBoss.isDead()) {
+                unlockAchievement("Second Boss");
+                // Gone for good, so rewind, metrics and counts stop seeing it
+                purpleBoss = null;
+                advanceWave();
             }
+        } else if (boss.isDead()) {
+            unlockAchievement("First Boss");
+            boss = null;
+            advanceWave();
         }
 
-        // Triangle enemy updates
         for (int i = triangleEnemies.size() - 1; i >= 0; i--) {
             TriangleEnemy enemy = triangleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.hasSlowField());
-            enemy.spawnProjectiles(enemyProjectiles, player.getX(), player.getY());
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    if (!proj.isPiercing()) {
-                        playerProjectiles.remove(j);
-                    }
-                    break;
-                }
-            }
-
-            // Check contact collision with player
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
-            // Check contact collision with player
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
-            // Check contact collision with player
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
             if (enemy.isDead()) {
-                if (Math.random() < 0.3) {
+                if (random.loot().nextDouble() < 0.3) {
                     healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                 }
-                recentlyDeadEnemies.add(new Object[]{"TriangleEnemy", enemy.getX(), enemy.getY()});
+                recentlyDeadEnemies.add(DeathLog.TRIANGLE, enemy.getX(), enemy.getY());
                 triangleEnemies.remove(i);
             }
         }
 
-        // Green triangle enemy updates
         for (int i = greenTriangleEnemies.size() - 1; i >= 0; i--) {
             GreenTriangleEnemy enemy = greenTriangleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    if (!proj.isPiercing()) {
-                        playerProjectiles.remove(j);
-                    }
-                    break;
-                }
-            }
-
-            // Check contact collision with player (damage while dashing/hitting)
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
             if (enemy.isDead()) {
-                if (Math.random() < 0.4) {
+                if (random.loot().nextDouble() < 0.4) {
                     healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                 }
-                recentlyDeadEnemies.add(new Object[]{"GreenTriangleEnemy", enemy.getX(), enemy.getY()});
+                recentlyDeadEnemies.add(DeathLog.GREEN_TRIANGLE, enemy.getX(), enemy.getY());
                 greenTriangleEnemies.remove(i);
             }
         }
 
-        // Purple triangle enemy updates
         for (int i = purpleTriangleEnemies.size() - 1; i >= 0; i--) {
             PurpleTriangleEnemy enemy = purpleTriangleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    if (!proj.isPiercing()) {
-                        playerProjectiles.remove(j);
-                    }
-                    break;
-                }
-            }
-
-            // Check contact collision with player (damage while dashing/hitting)
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
             if (enemy.isDead()) {
-                if (Math.random() < 0.4) {
+                if (random.loot().nextDouble() < 0.4) {
                     healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                 }
-                recentlyDeadEnemies.add(new Object[]{"PurpleTriangleEnemy", enemy.getX(), enemy.getY()});
+                recentlyDeadEnemies.add(DeathLog.PURPLE_TRIANGLE, enemy.getX(), enemy.getY());
                 purpleTriangleEnemies.remove(i);
             }
         }
 
-        // Red triangle enemy updates (waves 25+)
         for (int i = redTriangleEnemies.size() - 1; i >= 0; i--) {
             RedTriangleEnemy enemy = redTriangleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.getX(), player.getY(), player.hasSlowField());
-            enemy.spawnProjectiles(enemyProjectiles, player.getX(), player.getY());
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    if (!proj.isPiercing()) playerProjectiles.remove(j);
-                    break;
-                }
-            }
-
-            // Check contact collision with player (damage while dashing/hitting)
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(2);
-            }
-
             if (enemy.isDead()) {
-                recentlyDeadEnemies.add(new Object[]{"RedTriangleEnemy", enemy.getX(), enemy.getY()});
+                recentlyDeadEnemies.add(DeathLog.RED_TRIANGLE, enemy.getX(), enemy.getY());
                 redTriangleEnemies.remove(i);
             }
         }
 
-        // Purple circle enemy updates
         for (int i = purpleCircleEnemies.size() - 1; i >= 0; i--) {
             PurpleCircleEnemy enemy = purpleCircleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.hasSlowField());
-            enemy.spawnProjectiles(enemyProjectiles);
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    playerProjectiles.remove(j);
-                    break;
-                }
-            }
-
-            // Check contact collision with player
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
             if (enemy.isDead()) {
                 totalKills++;
+                achievements.recordKill();
                 if (totalKills >= 50) {
                     unlockAchievement("Sharpshooter");
                 }
-                if (Math.random() < 0.5) {
+                if (random.loot().nextDouble() < 0.5) {
                     healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                 }
-                recentlyDeadEnemies.add(new Object[]{"PurpleCircleEnemy", enemy.getX(), enemy.getY()});
+                recentlyDeadEnemies.add(DeathLog.PURPLE_CIRCLE, enemy.getX(), enemy.getY());
                 purpleCircleEnemies.remove(i);
                 unlockAchievement("Purple Hunter");
             }
-            else {
-                // Check beams that PurpleCircleEnemy spawns for player collisions
-                try {
-                    for (Beam b : enemy.getBeams()) {
-                        if (b.checkCollision(player.getX(), player.getY())) {
-                            player.takeDamage(1);
-                            System.out.println("GamePanel: player hit by PurpleCircleEnemy beam");
-                        }
-                    }
-                } catch (Exception ex) {
-                    // ignore
-                }
-            }
         }
 
-        // Green circle enemy updates (can resummon dead enemies)
+        // Green circles can resummon dead enemies
         for (int i = greenCircleEnemies.size() - 1; i >= 0; i--) {
             GreenCircleEnemy enemy = greenCircleEnemies.get(i);
-            enemy.update(WIDTH, HEIGHT, player.hasSlowField());
-
-            // Check player projectile collisions
-            for (int j = playerProjectiles.size() - 1; j >= 0; j--) {
-                PlayerProjectile proj = playerProjectiles.get(j);
-                if (enemy.collidesWith(proj.getX(), proj.getY())) {
-                    enemy.takeDamage(1);
-                    playerProjectiles.remove(j);
-                    break;
-                }
-            }
-
-            // Check contact collision with player
-            if (enemy.collidesWith(player.getX(), player.getY())) {
-                player.takeDamage(1);
-            }
-
             // Process revive requests: GreenCircleEnemy returns a count; revive exact recently-dead enemies if available
             int reviveCount = enemy.collectReviveRequests();
             for (int rcount = 0; rcount < reviveCount; rcount++) {
                 if (!recentlyDeadEnemies.isEmpty()) {
-                    // Pop next recent death that is not a boss
-                    Object[] rec = null;
-                    while (!recentlyDeadEnemies.isEmpty()) {
-                        Object[] cand = recentlyDeadEnemies.remove(0);
-                        String candType = (String) cand[0];
-                        // Skip any type that refers to a boss
-                        if (candType != null && candType.contains("Boss")) {
-                            // skip boss revives
-                            continue;
-                        }
-                        rec = cand;
-                        break;
+                    // Pop the oldest recent death (bosses are never logged)
+                    int type = recentlyDeadEnemies.oldestType();
+                    int rx = recentlyDeadEnemies.oldestX();
+                    int ry = recentlyDeadEnemies.oldestY();
+                    recentlyDeadEnemies.removeOldest();
+                    // Recreate the exact enemy type at the same position
+                    switch (type) {
+                        case DeathLog.TRIANGLE:
+                            triangleEnemies.add(new TriangleEnemy(rx, ry, random.forkAi()));
+                            break;
+                        case DeathLog.GREEN_TRIANGLE:
+                            greenTriangleEnemies.add(new GreenTriangleEnemy(rx, ry, random.forkAi()));
+                            break;
+                        case DeathLog.PURPLE_TRIANGLE:
+                            purpleTriangleEnemies.add(new PurpleTriangleEnemy(rx, ry, random.forkAi()));
+                            break;
+                        case DeathLog.RED_TRIANGLE:
+                            redTriangleEnemies.add(new RedTriangleEnemy(rx, ry, random.forkAi()));
+                            break;
+                        case DeathLog.PURPLE_CIRCLE:
+                            purpleCircleEnemies.add(new PurpleCircleEnemy(rx, ry, WIDTH, HEIGHT, random.forkAi()));
+                            break;
+                        case DeathLog.ENEMY:
+                        default:
+                            enemies.add(new Enemy(rx, ry, random.forkAi()));
+                            break;
                     }
-                    if (rec != null) {
-                        String type = (String) rec[0];
-                        int rx = (Integer) rec[1];
-                        int ry = (Integer) rec[2];
-                        // Recreate the exact enemy type at the same position
-                        switch (type) {
-                            case "TriangleEnemy":
-                                triangleEnemies.add(new TriangleEnemy(rx, ry));
-                                break;
-                            case "GreenTriangleEnemy":
-                                greenTriangleEnemies.add(new GreenTriangleEnemy(rx, ry));
-                                break;
-                            case "PurpleTriangleEnemy":
-                                purpleTriangleEnemies.add(new PurpleTriangleEnemy(rx, ry));
-                                break;
-                            case "RedTriangleEnemy":
-                                redTriangleEnemies.add(new RedTriangleEnemy(rx, ry));
-                                break;
-                            case "PurpleCircleEnemy":
-                                purpleCircleEnemies.add(new PurpleCircleEnemy(rx, ry, WIDTH, HEIGHT));
-                                break;
-                            case "Enemy":
-                            default:
-                                enemies.add(new Enemy(rx, ry));
-                                break;
-                        }
-                        // Play revive sound and spawn green particle burst at revived position
-                        try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
-                        for (int p = 0; p < 12; p++) {
-                            double pa = Math.random() * Math.PI * 2;
-                            int psz = 2 + (int)(Math.random() * 3);
-                            enemyProjectiles.add(new EnemyProjectile(rx, ry, pa, psz, new Color(0, 220, 0), 0));
-                        }
-                    } else {
-                        // No non-boss recent deaths available: fallback spawn near green circle
-                        int rx = enemy.getX() + (int)(Math.random() * 160 - 80);
-                        int ry = enemy.getY() + (int)(Math.random() * 120 - 60);
-                        triangleEnemies.add(new TriangleEnemy(rx, ry));
-                        try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
-                        for (int p = 0; p < 8; p++) {
-                            double pa = Math.random() * Math.PI * 2;
-                            enemyProjectiles.add(new EnemyProjectile(rx, ry, pa, 2, new Color(0, 200, 0), 0));
-                        }
+                    // Play revive sound and spawn green particle burst at revived position
+                    try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
+                    for (int p = 0; p < 12; p++) {
+                        double pa = random.cosmetic().nextDouble() * Math.PI * 2;
+                        int psz = 2 + (int)(random.cosmetic().nextDouble() * 3);
+                        enemyProjectiles.fire(rx, ry, pa, psz, REVIVE_BURST, 0);
                     }
                 } else {
                     // Fallback: spawn a triangle near the green circle
-                    int rx = enemy.getX() + (int)(Math.random() * 160 - 80);
-                    int ry = enemy.getY() + (int)(Math.random() * 120 - 60);
-                    triangleEnemies.add(new TriangleEnemy(rx, ry));
+                    int rx = enemy.getX() + (int)(random.spawn().nextDouble() * 160 - 80);
+                    int ry = enemy.getY() + (int)(random.spawn().nextDouble() * 120 - 60);
+                    triangleEnemies.add(new TriangleEnemy(rx, ry, random.forkAi()));
                     try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
                     for (int p = 0; p < 8; p++) {
-                        double pa = Math.random() * Math.PI * 2;
-                        enemyProjectiles.add(new EnemyProjectile(rx, ry, pa, 2, new Color(0, 200, 0), 0));
+                        double pa = random.cosmetic().nextDouble() * Math.PI * 2;
+                        enemyProjectiles.fire(rx, ry, pa, 2, SPAWN_BURST, 0);
                     }
                 }
             }
 
             if (enemy.isDead()) {
-                if (Math.random() < 0.6) {
+                if (random.loot().nextDouble() < 0.6) {
                     healingItems.add(new HealingItem(enemy.getX(), enemy.getY()));
                 }
                 greenCircleEnemies.remove(i);
             }
         }
+    }
 
-        // Healing item collision detection
-        for (int i = healingItems.size() - 1; i >= 0; i--) {
-            HealingItem item = healingItems.get(i);
-            if (item.collidesWith(player.getX(), player.getY())) {
-                player.heal(1);
-                if (player.getHP() <= 5) {
-                    int healingCount = 6 - player.getHP();
-                    if (healingCount % 5 == 0) {
-                        unlockAchievement("Medic");
-                    }
-                }
-                healingItems.remove(i);
-            }
+    // Runs every tick, so it only walks the lists by index and never allocates
+    private void recordRewind() {
+        rewind.beginTick();
+        rewind.add(RewindBuffer.PLAYER, player.getX(), player.getY(), player.getHP());
+        for (int i = 0; i < enemies.size(); i++) {
+            Enemy e = enemies.get(i);
+            rewind.add(RewindBuffer.ENEMY, e.getX(), e.getY(), 0);
         }
-
-        // Enemy projectile updates
-        for (int i = enemyProjectiles.size() - 1; i >= 0; i--) {
-            EnemyProjectile proj = enemyProjectiles.get(i);
-            proj.update();
-            if (proj.isOutOfBounds(WIDTH, HEIGHT)) {
-                enemyProjectiles.remove(i);
-            } else if (player.collidesWith(proj.getX(), proj.getY())) {
-                player.takeDamage(proj.getDamage());
-                enemyProjectiles.remove(i);
+        for (int i = 0; i < triangleEnemies.size(); i++) {
+            TriangleEnemy e = triangleEnemies.get(i);
+            rewind.add(RewindBuffer.TRIANGLE, e.getX(), e.getY(), 0);
+        }
+        for (int i = 0; i < greenTriangleEnemies.size(); i++) {
+            GreenTriangleEnemy e = greenTriangleEnemies.get(i);
+            rewind.add(RewindBuffer.GREEN_TRIANGLE, e.getX(), e.getY(), 0);
+        }
+        for (int i = 0; i < purpleTriangleEnemies.size(); i++) {
+            PurpleTriangleEnemy e = purpleTriangleEnemies.get(i);
+            rewind.add(RewindBuffer.PURPLE_TRIANGLE, e.getX(), e.getY(), 0);
+        }
+        for (int i = 0; i < redTriangleEnemies.size(); i++) {
+            RedTriangleEnemy e = redTriangleEnemies.get(i);
+            rewind.add(RewindBuffer.RED_TRIANGLE, e.getX(), e.getY(), 0);
+        }
+        for (int i = 0; i < purpleCircleEnemies.size(); i++) {
+            PurpleCircleEnemy e = purpleCircleEnemies.get(i);
+            rewind.add(RewindBuffer.PURPLE_CIRCLE, e.getX(), e.getY(), 0);
+            addRewindBeams(e.getBeams());
+        }
+        for (int i = 0; i < greenCircleEnemies.size(); i++) {
+            GreenCircleEnemy e = greenCircleEnemies.get(i);
+            rewind.add(RewindBuffer.GREEN_CIRCLE, e.getX(), e.getY(), 0);
+        }
+        if (boss != null) {
+            rewind.add(RewindBuffer.BOSS, boss.getX(), boss.getY(), (int) (boss.getHealthPercent() * 100));
+            addRewindBeams(boss.getBeams());
+        }
+        if (purpleBoss != null) {
+            rewind.add(RewindBuffer.PURPLE_BOSS, purpleBoss.getX(), purpleBoss.getY(), 0);
+            addRewindBeams(purpleBoss.getBeams());
+            ArrayList<RotatingBeam> rotating = purpleBoss.getRotatingBeams();
+            for (int i = 0; i < rotating.size(); i++) {
+                RotatingBeam b = rotating.get(i);
+                rewind.add(RewindBuffer.ROTATING_BEAM, b.getCenterX(), b.getCenterY(), RewindBuffer.encodeAngle(b.getAngle()));
             }
         }
+        for (int i = 0; i < healingItems.size(); i++) {
+            HealingItem h = healingItems.get(i);
+            rewind.add(RewindBuffer.HEALING, h.getX(), h.getY(), 0);
+        }
+        for (int i = 0; i < playerProjectiles.size(); i++) {
+            PlayerProjectile p = playerProjectiles.get(i);
+            rewind.add(RewindBuffer.PLAYER_SHOT, p.getX(), p.getY(), 0);
+        }
+        for (int i = 0; i < enemyProjectiles.size(); i++) {
+            rewind.add(RewindBuffer.ENEMY_SHOT, enemyProjectiles.getX(i), enemyProjectiles.getY(i), 0);
+        }
+        rewind.endTick();
+    }
 
-        // Check if player is dead
-        if (player.isDead()) {
-            waveNumber = 1;
-            player.reset(WIDTH / 2, HEIGHT / 2);
-            enemies.clear();
-            triangleEnemies.clear();
-            greenTriangleEnemies.clear();
-            enemyProjectiles.clear();
-            playerProjectiles.clear();
-            healingItems.clear();
-            startWave();
+    private void addRewindBeams(ArrayList<Beam> beams) {
+        for (int i = 0; i < beams.size(); i++) {
+            Beam b = beams.get(i);
+            int type = b.getState() == 0 ? RewindBuffer.BEAM_WARNING : RewindBuffer.BEAM;
+            rewind.add(type, b.getX(), b.getY(), RewindBuffer.encodeAngle(b.getAngle()));
         }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
+        if (StartupTimer.isRunning()) {
+            // Runs after this frame is drawn, once per process
+            SwingUtilities.invokeLater(StartupTimer::firstFrame);
+        }
         super.paintComponent(g);
         Graphics2D g2d = (Graphics2D) g;
         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
+        if (reviewingDeath) {
+            drawDeathReview(g2d);
+            presented();
+            return;
+        }
+
+        long paintStart = profiler.begin();
+        long t = profiler.begin();
+
         // Draw dash trail
         if (player.getTrailPositions().size() > 0) {
             for (int i = 0; i < player.getTrailPositions().size(); i++) {
                 int[] pos = player.getTrailPositions().get(i);
                 float alpha = (float) i / player.getTrailPositions().size();
-                g2d.setColor(new Color(0, 0.5f, 1f, alpha * 0.5f));
+                g2d.setColor(Colors.fade(DASH_TRAIL, alpha * 0.5f));
                 g2d.fillRect(pos[0] - 20, pos[1] - 20, 40, 40);
             }
         }
 
         // Draw player
-        var playerSprite = SpriteLoader.getSprite("player");
+        var playerSprite = SpriteLoader.getSprite("player", 40, 40);
         if (playerSprite != null) {
-            g2d.drawImage(playerSprite, player.getX() - 20, player.getY() - 20, 40, 40, null);
+            g2d.drawImage(playerSprite, player.getX() - 20, player.getY() - 20, null);
         }
 
         // Draw dash cooldown meter below player (only show when cooling down)
@@ -810,20 +1250,24 @@ public class GamePanel extends JPanel {
             g2d.drawRect(meterX, meterY, meterWidth, meterHeight);
         }
 
+        t = profiler.lap(FrameProfiler.Section.DRAW_PLAYER, t);
+
         // Draw player projectiles
-        var playerProjSprite = SpriteLoader.getSprite("player_projectile");
+        var playerProjSprite = SpriteLoader.getSprite("player_projectile", 12, 12);
         for (PlayerProjectile proj : playerProjectiles) {
             if (playerProjSprite != null) {
-                g2d.drawImage(playerProjSprite, proj.getX() - 6, proj.getY() - 6, 12, 12, null);
+                g2d.drawImage(playerProjSprite, proj.getX() - 6, proj.getY() - 6, null);
             }
         }
 
+        t = profiler.lap(FrameProfiler.Section.DRAW_SHOTS, t);
+
         // Draw enemies and boss
         if (!bossFight) {
-            var enemySprite = SpriteLoader.getSprite("enemy");
+            var enemySprite = SpriteLoader.getSprite("enemy", 40, 40);
             for (Enemy enemy : enemies) {
                 if (enemySprite != null) {
-                    g2d.drawImage(enemySprite, enemy.getX() - 20, enemy.getY() - 20, 40, 40, null);
+                    g2d.drawImage(enemySprite, enemy.getX() - 20, enemy.getY() - 20, null);
                 }
             }
             // Draw triangle enemies
@@ -850,6 +1294,12 @@ public class GamePanel extends JPanel {
             for (GreenCircleEnemy enemy : greenCircleEnemies) {
                 enemy.draw(g2d);
             }
+            if (scenario != null) {
+                ArrayList<Beam> beams = scenario.getBeams();
+                for (int i = 0; i < beams.size(); i++) {
+                    beams.get(i).draw(g2d);
+                }
+            }
         } else {
             if (waveNumber == 20 && purpleBoss != null) {
                 purpleBoss.draw(g2d);
@@ -858,25 +1308,36 @@ public class GamePanel extends JPanel {
             }
         }
 
+        t = profiler.lap(FrameProfiler.Section.DRAW_ENEMIES, t);
+
         // Draw healing items
         for (HealingItem item : healingItems) {
             item.draw(g2d);
         }
+        t = profiler.lap(FrameProfiler.Section.DRAW_PICKUPS, t);
 
         // Draw enemy projectiles
-        var enemyProjSprite = SpriteLoader.getSprite("enemy_projectile");
-        for (EnemyProjectile proj : enemyProjectiles) {
+        // Bullets come in a handful of sizes, so each size's sprite is looked up only when it changes
+        BufferedImage enemyProjSprite = null;
+        int spriteSize = -1;
+        for (int i = 0; i < enemyProjectiles.size(); i++) {
+            int size = enemyProjectiles.getSize(i);
+            if (size != spriteSize) {
+                enemyProjSprite = SpriteLoader.getSprite("enemy_projectile", size * 2, size * 2);
+                spriteSize = size;
+            }
             if (enemyProjSprite != null) {
-                int size = proj.getSize();
-                g2d.drawImage(enemyProjSprite, proj.getX() - size, proj.getY() - size, size * 2, size * 2, null);
+                g2d.drawImage(enemyProjSprite, enemyProjectiles.getX(i) - size, enemyProjectiles.getY(i) - size, null);
             }
         }
 
+        t = profiler.lap(FrameProfiler.Section.DRAW_ENEMY_SHOTS, t);
+
         // Draw UI
         g2d.setColor(Color.WHITE);
-        g2d.setFont(new Font("Arial", Font.BOLD, 16));
-        g2d.drawString("HP: " + player.getHP(), 20, 30);
-        g2d.drawString("Wave: " + waveNumber, WIDTH - 150, 30);
+        g2d.setFont(HUD_FONT);
+        g2d.drawString(hpLabel(), 20, 30);
+        g2d.drawString(waveLabel(), WIDTH - 150, 30);
 
         if (bossFight) {
             g2d.drawString("BOSS", WIDTH / 2 - 30, 30);
@@ -918,21 +1379,120 @@ public class GamePanel extends JPanel {
             pauseMenu.setSize(WIDTH, HEIGHT);
             pauseMenu.paintComponent(g2d);
         }
+        profiler.end(FrameProfiler.Section.DRAW_UI, t);
+        profiler.end(FrameProfiler.Section.PAINT, paintStart);
+
+        if (showProfiler) {
+            int below = profiler.drawOverlay(g2d, 20, 80, entityCounts());
+            pacing.drawOverlay(g2d, 20, below + 8);
+        }
+        presented();
+    }
+
+    // End of a paint: the first paint of each tick closes its frame, for pacing and the metrics
+    private void presented() {
+        long frameNanos = pacing.presented(System.nanoTime());
+        if (frameNanos >= 0) {
+            GameMetrics.get().framePresented(frameNanos);
+        }
+    }
+
+    private void fillMetrics(GameMetrics.Sample sample) {
+        sample.wave = waveNumber;
+        sample.kills = totalKills;
+        sample.playerHP = player.getHP();
+        sample.enemies = enemies.size();
+        sample.triangleEnemies = triangleEnemies.size();
+        sample.greenTriangleEnemies = greenTriangleEnemies.size();
+        sample.purpleTriangleEnemies = purpleTriangleEnemies.size();
+        sample.redTriangleEnemies = redTriangleEnemies.size();
+        sample.purpleCircleEnemies = purpleCircleEnemies.size();
+        sample.greenCircleEnemies = greenCircleEnemies.size();
+        sample.playerProjectiles = playerProjectiles.size();
+        sample.enemyProjectiles = enemyProjectiles.size();
+        sample.healingItems = healingItems.size();
+        int beams = 0;
+        for (PurpleCircleEnemy enemy : purpleCircleEnemies) {
+            beams += enemy.getBeams().size();
+        }
+        sample.bossAttackState = -1;
+        if (boss != null) {
+            beams += boss.getBeams().size();
+            sample.bossAttackState = boss.getAttackPattern();
+        }
+        if (purpleBoss != null) {
+            beams += purpleBoss.getBeams().size() + purpleBoss.getRotatingBeams().size();
+            sample.bossAttackState = purpleBoss.getAttackState();
+        }
+        if (scenario != null) {
+            beams += scenario.getBeams().size();
+        }
+        sample.activeBeams = beams;
+    }
+
+    // HUD text only changes on a hit or a new wave, so keep the strings between frames
+    private String hpLabel() {
+        if (player.getHP() != hpLabelValue || hpLabel == null) {
+            hpLabelValue = player.getHP();
+            hpLabel = "HP: " + hpLabelValue;
+        }
+        return hpLabel;
+    }
+
+    private String waveLabel() {
+        if (waveNumber != waveLabelValue || waveLabel == null) {
+            waveLabelValue = waveNumber;
+            waveLabel = "Wave: " + waveLabelValue;
+        }
+        return waveLabel;
+    }
+
+    private String entityCounts() {
+        return "enemies " + enemyCount() + "  shots " + playerProjectiles.size() + "/" + enemyProjectiles.size()
+            + "  items " + healingItems.size();
+    }
+
+    private int enemyCount() {
+        return enemies.size() + triangleEnemies.size() + greenTriangleEnemies.size()
+            + purpleTriangleEnemies.size() + redTriangleEnemies.size() + purpleCircleEnemies.size()
+            + greenCircleEnemies.size() + (boss != null ? 1 : 0) + (purpleBoss != null ? 1 : 0);
+    }
+
+    private int entityCount() {
+        return enemyCount() + playerProjectiles.size() + enemyProjectiles.size() + healingItems.size();
+    }
+
+    private void drawDeathReview(Graphics2D g2d) {
+        rewind.draw(g2d, WIDTH, HEIGHT);
+
+        g2d.setColor(DEATH_TINT);
+        g2d.fillRect(0, 0, WIDTH, HEIGHT);
+        g2d.setColor(Color.WHITE);
+        g2d.setFont(TITLE_FONT);
+        g2d.drawString("YOU DIED", WIDTH / 2 - 90, 80);
+        g2d.setFont(HUD_FONT);
+        g2d.drawString(String.format("-%.1fs   HP: %d", reviewTicksAgo / (double) FPS, rewind.getViewPlayerHP()), 20, 30);
+        g2d.drawString("Hold LEFT to rewind, RIGHT to go forward, ENTER to continue", WIDTH / 2 - 240, HEIGHT - 40);
     }
 
     public void keyPressed(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+            pauseRequested = !pauseRequested;
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F3) {
+            showProfiler = !showProfiler;
+            profiler.setEnabled(showProfiler || watchdog.isEnabled());
+            return;
+        }
+        if (e.getKeyCode() == KeyEvent.VK_F4 && showProfiler) {
+            profiler.exportAsync();
+            pacing.exportAsync();
+            return;
+        }
         keysPressed.add(e.getKeyCode());
         if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-            int dirX = 0, dirY = 0;
-            if (keysPressed.contains(KeyEvent.VK_W)) dirY--;
-            if (keysPressed.contains(KeyEvent.VK_S)) dirY++;
-            if (keysPressed.contains(KeyEvent.VK_A)) dirX--;
-            if (keysPressed.contains(KeyEvent.VK_D)) dirX++;
-            
-            if (dirX == 0 && dirY == 0) {
-                dirX = 1;
-            }
-            player.dash(dirX, dirY);
+            pendingDash = true;
         }
         if (e.getKeyCode() == KeyEvent.VK_F11) {
             // Fullscreen toggle handled by Window
@@ -943,8 +1503,146 @@ public class GamePanel extends JPanel {
         keysPressed.remove(e.getKeyCode());
     }
 
+    public void writeSnapshot(DataOutput out) throws IOException {
+        out.writeInt(WIDTH);
+        out.writeInt(HEIGHT);
+        out.writeLong(random.getSeed());
+        random.writeState(out);
+        out.writeInt(waveNumber);
+        out.writeBoolean(waveInProgress);
+        out.writeInt(enemiesSpawned);
+        out.writeBoolean(bossFight);
+        out.writeBoolean(reviewingDeath);
+        out.writeInt(totalKills);
+        out.writeInt(damageFreakoutWave);
+        out.writeInt(lastUpgradeWave);
+        out.writeBoolean(showingUpgradeMenu);
+        if (showingUpgradeMenu) {
+            out.writeInt(offeredUpgrades.length);
+            for (Upgrade upgrade : offeredUpgrades) {
+                out.writeInt(upgrade.getType().ordinal());
+            }
+        }
+
+        player.writeState(out);
+        RunSnapshot.writeList(out, enemies, Enemy::writeState);
+        RunSnapshot.writeList(out, triangleEnemies, TriangleEnemy::writeState);
+        RunSnapshot.writeList(out, greenTriangleEnemies, GreenTriangleEnemy::writeState);
+        RunSnapshot.writeList(out, purpleTriangleEnemies, PurpleTriangleEnemy::writeState);
+        RunSnapshot.writeList(out, redTriangleEnemies, RedTriangleEnemy::writeState);
+        RunSnapshot.writeList(out, purpleCircleEnemies, PurpleCircleEnemy::writeState);
+        RunSnapshot.writeList(out, greenCircleEnemies, GreenCircleEnemy::writeState);
+        RunSnapshot.writeList(out, playerProjectiles, PlayerProjectile::writeState);
+        enemyProjectiles.writeState(out);
+        RunSnapshot.writeList(out, healingItems, HealingItem::writeState);
+
+        out.writeBoolean(boss != null);
+        if (boss != null) boss.writeState(out);
+        out.writeBoolean(purpleBoss != null);
+        if (purpleBoss != null) purpleBoss.writeState(out);
+
+        recentlyDeadEnemies.writeState(out);
+        handles.writeState(out);
+    }
+
+    public void readSnapshot(DataInput in) throws IOException {
+        WIDTH = in.readInt();
+        HEIGHT = in.readInt();
+        random = new RandomStreams(in.readLong());
+        random.readState(in);
+        waveNumber = in.readInt();
+        waveInProgress = in.readBoolean();
+        enemiesSpawned = in.readInt();
+        bossFight = in.readBoolean();
+        reviewingDeath = in.readBoolean();
+        reviewTicksAgo = 0;
+        rewind.clear();
+        totalKills = in.readInt();
+        damageFreakoutWave = in.readInt();
+        lastUpgradeWave = in.readInt();
+        showingUpgradeMenu = false;
+        upgradeMenu = null;
+        if (in.readBoolean()) {
+            Upgrade.UpgradeType[] types = Upgrade.UpgradeType.values();
+            Upgrade[] upgrades = new Upgrade[in.readInt()];
+            for (int i = 0; i < upgrades.length; i++) {
+                upgrades[i] = new Upgrade(types[in.readInt()]);
+            }
+            showUpgradeMenu(upgrades);
+        }
+
+        player.readState(in);
+        RunSnapshot.readList(in, enemies, () -> new Enemy(0, 0, new GameRandom(0)), Enemy::readState);
+        RunSnapshot.readList(in, triangleEnemies, () -> new TriangleEnemy(0, 0, new GameRandom(0)), TriangleEnemy::readState);
+        RunSnapshot.readList(in, greenTriangleEnemies, () -> new GreenTriangleEnemy(0, 0, new GameRandom(0)), GreenTriangleEnemy::readState);
+        RunSnapshot.readList(in, purpleTriangleEnemies, () -> new PurpleTriangleEnemy(0, 0, new GameRandom(0)), PurpleTriangleEnemy::readState);
+        RunSnapshot.readList(in, redTriangleEnemies, () -> new RedTriangleEnemy(0, 0, new GameRandom(0)), RedTriangleEnemy::readState);
+        RunSnapshot.readList(in, purpleCircleEnemies, () -> new PurpleCircleEnemy(0, 0, WIDTH, HEIGHT, new GameRandom(0)), PurpleCircleEnemy::readState);
+        RunSnapshot.readList(in, greenCircleEnemies, () -> new GreenCircleEnemy(0, 0, WIDTH, HEIGHT, new GameRandom(0)), GreenCircleEnemy::readState);
+        RunSnapshot.readList(in, playerProjectiles, () -> new PlayerProjectile(0, 0, 0), PlayerProjectile::readState);
+        enemyProjectiles.readState(in);
+        RunSnapshot.readList(in, healingItems, () -> new HealingItem(0, 0), HealingItem::readState);
+
+        boss = null;
+        if (in.readBoolean()) {
+            boss = new Boss(0, 0, waveNumber, new GameRandom(0));
+            boss.readState(in);
+        }
+        purpleBoss = null;
+        if (in.readBoolean()) {
+            purpleBoss = new PurpleBoss(0, 0, WIDTH, HEIGHT, new GameRandom(0));
+            purpleBoss.readState(in);
+        }
+
+        recentlyDeadEnemies.readState(in);
+        handles.readState(in);
+        hostiles.clear();
+    }
+
+    public FramePacing getPacing() {
+        return pacing;
+    }
+
+    public FrameProfiler getProfiler() {
+        return profiler;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    public int getWaveNumber() {
+        return waveNumber;
+    }
+
+    public int getEntityCount() {
+        return entityCount();
+    }
+
+    public int getEnemyProjectileCount() {
+        return enemyProjectiles.size();
+    }
+
+    // What moves and culls the enemy bullets; scalar or vector, see BulletKernel
+    public BulletKernel getBulletKernel() {
+        return enemyProjectiles.getKernel();
+    }
+
+    public void setBulletKernel(BulletKernel kernel) {
+        enemyProjectiles.setKernel(kernel);
+    }
+
+    public long getBulletKernelNanos() {
+        return enemyProjectiles.getKernelNanos();
+    }
+
     private void unlockAchievement(String achievement) {
         if (achievements.unlock(achievement)) {
+            GameEvents.achievementUnlocked(achievement);
             achievementPopups.add(new AchievementPopup(achievement, WIDTH));
         }
     }
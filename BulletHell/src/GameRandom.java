@@ -0,0 +1,34 @@
+// Small, fast pseudo-random stream (SplitMix64). Unlike Math.random() it is not shared or
+// synchronized: each stream belongs to one owner and must only be used from one thread at a time.
+public class GameRandom {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private long state;
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform in [0, 1), a drop-in replacement for Math.random()
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public int nextInt(int bound) {
+        return (int) (nextDouble() * bound);
+    }
+
+    // Split off an independent stream, e.g. one per entity so entity AI stays thread-confined
+    public GameRandom fork() {
+        return new GameRandom(nextLong());
+    }
+
+    public long getState() { return state; }
+    public void setState(long state) { this.state = state; }
+}
@@ -1,8 +1,18 @@
 import java.awt.*;
 import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class GreenCircleEnemy {
+    private static final int HALF_SIZE = 28; // the hit box is 2 * HALF_SIZE square
+    private static final Color BODY = new Color(60, 180, 80);
+    private static final Color OUTLINE = new Color(160, 255, 160);
+    private static final Stroke OUTLINE_STROKE = new BasicStroke(2);
+    private static final Color[] REVIVE_RING = Colors.alphaRamp(Color.GREEN);
+
     private int x, y;
+    private int handle; // from EntityHandles; 0 until the first collision pass
     private int hp = 6;
     private int screenWidth, screenHeight;
     private int reviveTimer = 0;
@@ -10,14 +20,16 @@ public class GreenCircleEnemy {
     private int warningDuration = 90; // 1.5 seconds warning
     private int pendingReviveCount = 0;
     private int pulseTimer = 0;
+    private final GameRandom random;
 
-    public GreenCircleEnemy(int x, int y, int screenWidth, int screenHeight) {
+    public GreenCircleEnemy(int x, int y, int screenWidth, int screenHeight, GameRandom random) {
         this.x = x;
         this.y = y;
+        this.random = random;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
         this.pendingReviveCount = 0;
-        this.reviveTimer = (int)(Math.random() * reviveInterval / 2);
+        this.reviveTimer = (int)(random.nextDouble() * reviveInterval / 2);
     }
 
     public void update(int width, int height) {
@@ -35,7 +47,7 @@ public class GreenCircleEnemy {
 
         if (reviveTimer >= reviveInterval) {
             // Time to request revives: request a count (GamePanel will revive exact recent deaths)
-            int count = 1 + (int)(Math.random() * 3);
+            int count = 1 + (int)(random.nextDouble() * 3);
             pendingReviveCount = count;
             reviveTimer = 0;
         }
@@ -51,16 +63,18 @@ public class GreenCircleEnemy {
 
     public void takeDamage(int d) { hp -= d; }
     public boolean isDead() { return hp <= 0; }
-    public boolean collidesWith(int px, int py) { return Math.abs(x - px) < 28 && Math.abs(y - py) < 28; }
+    public void addCollider(CollisionSystem collisions, int index) { collisions.addBox(CollisionSystem.GREEN_CIRCLE, index, x, y, x, y, HALF_SIZE, HALF_SIZE); }
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
 
     public void draw(Graphics2D g) {
         // Draw green circle
-        g.setColor(new Color(60, 180, 80));
+        g.setColor(BODY);
         g.fillOval(x - 22, y - 22, 44, 44);
-        g.setColor(new Color(160, 255, 160));
-        g.setStroke(new BasicStroke(2));
+        g.setColor(OUTLINE);
+        g.setStroke(OUTLINE_STROKE);
         g.drawOval(x - 22, y - 22, 44, 44);
 
         // Revive warning pulsing ring
@@ -69,10 +83,40 @@ public class GreenCircleEnemy {
             float prog = 1f - Math.max(0f, Math.min(1f, t));
             int size = 60 + (int)(prog * 40);
             float alpha = 0.6f * prog;
-            g.setColor(new Color(0f, 1f, 0f, alpha));
+            g.setColor(Colors.fade(REVIVE_RING, alpha));
             g.fillOval(x - size/2, y - size/2, size, size);
-            g.setColor(new Color(0f, 1f, 0f, Math.min(0.9f, alpha + 0.2f)));
+            g.setColor(Colors.fade(REVIVE_RING, Math.min(0.9f, alpha + 0.2f)));
             g.drawOval(x - size/2, y - size/2, size, size);
         }
     }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(hp);
+        out.writeInt(screenWidth);
+        out.writeInt(screenHeight);
+        out.writeInt(reviveTimer);
+        out.writeInt(reviveInterval);
+        out.writeInt(warningDuration);
+        out.writeInt(pendingReviveCount);
+        out.writeInt(pulseTimer);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        hp = in.readInt();
+        screenWidth = in.readInt();
+        screenHeight = in.readInt();
+        reviveTimer = in.readInt();
+        reviveInterval = in.readInt();
+        warningDuration = in.readInt();
+        pendingReviveCount = in.readInt();
+        pulseTimer = in.readInt();
+        random.setState(in.readLong());
+    }
 }
@@ -1,8 +1,13 @@
 import java.awt.*;
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class GreenTriangleEnemy {
+    private static final int HALF_SIZE = 18; // the hit box is 2 * HALF_SIZE square
     private int x, y;
+    private int fixedX, fixedY; // 16.16 position (see Fixed); x and y are it rounded
+    private int handle; // from EntityHandles; 0 until the first collision pass
     private int hp = 2;
     private int spinTimer = 0;
     private int spinDuration;
@@ -12,17 +17,21 @@ public class GreenTriangleEnemy {
     private int waitDuration;
     private double dashAngle = 0;
     private double spinAngle = 0;
-    private ArrayList<int[]> trailPositions;
+    private Trail trailPositions;
     private static final int DASH_SPEED = 6;
     private static final double SPIN_SPEED = 0.3;
     private int state = 0; // 0 = spinning, 1 = dashing, 2 = waiting
+    private final GameRandom random;
 
-    public GreenTriangleEnemy(int x, int y) {
+    public GreenTriangleEnemy(int x, int y, GameRandom random) {
         this.x = x;
         this.y = y;
-        this.trailPositions = new ArrayList<>();
+        this.fixedX = Fixed.of(x);
+        this.fixedY = Fixed.of(y);
+        this.random = random;
+        this.trailPositions = new Trail(31);
         this.spinDuration = 60;
-        this.waitDuration = 180 + (int)(Math.random() * 120); // 3-5 seconds
+        this.waitDuration = 180 + (int)(random.nextDouble() * 120); // 3-5 seconds
     }
 
     public void update(int width, int height, int playerX, int playerY) {
@@ -33,9 +42,9 @@ public class GreenTriangleEnemy {
         if (state == 0) {
             // Spinning state
             spinAngle += SPIN_SPEED;
-            trailPositions.add(new int[]{x, y});
+            trailPositions.add(x, y);
             if (trailPositions.size() > 20) {
-                trailPositions.remove(0);
+                trailPositions.removeOldest();
             }
             
             spinTimer++;
@@ -50,8 +59,10 @@ public class GreenTriangleEnemy {
         } else if (state == 1) {
             // Dashing state - always move in direction of initial dash angle (unless slowed)
             if (!isSlowed) {
-                int nextX = x + (int)(Math.cos(dashAngle) * DASH_SPEED);
-                int nextY = y + (int)(Math.sin(dashAngle) * DASH_SPEED);
+                fixedX = Fixed.follow(fixedX, x) + Fixed.of(Math.cos(dashAngle) * DASH_SPEED);
+                fixedY = Fixed.follow(fixedY, y) + Fixed.of(Math.sin(dashAngle) * DASH_SPEED);
+                int nextX = Fixed.toInt(fixedX);
+                int nextY = Fixed.toInt(fixedY);
                 
                 // Check collision with walls and bounce
                 if (nextX < 20) {
@@ -74,9 +85,9 @@ public class GreenTriangleEnemy {
                 y = nextY;
             }
             dashTimer++;
-            trailPositions.add(new int[]{x, y});
+            trailPositions.add(x, y);
             if (trailPositions.size() > 30) {
-                trailPositions.remove(0);
+                trailPositions.removeOldest();
             }
             
             if (dashTimer >= dashDuration) {
@@ -104,8 +115,8 @@ public class GreenTriangleEnemy {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 18 && Math.abs(y - py) < 18;
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.GREEN_TRIANGLE, index, x, y, x, y, HALF_SIZE, HALF_SIZE);
     }
 
     public void draw(Graphics2D g) {
@@ -162,6 +173,48 @@ public class GreenTriangleEnemy {
         }
     }
 
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(fixedX);
+        out.writeInt(fixedY);
+        out.writeInt(hp);
+        out.writeInt(state);
+        out.writeInt(spinTimer);
+        out.writeInt(spinDuration);
+        out.writeInt(dashDuration);
+        out.writeInt(dashTimer);
+        out.writeInt(waitTimer);
+        out.writeInt(waitDuration);
+        out.writeDouble(dashAngle);
+        out.writeDouble(spinAngle);
+        RunSnapshot.writeTrail(out, trailPositions);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        fixedX = in.readInt();
+        fixedY = in.readInt();
+        hp = in.readInt();
+        state = in.readInt();
+        spinTimer = in.readInt();
+        spinDuration = in.readInt();
+        dashDuration = in.readInt();
+        dashTimer = in.readInt();
+        waitTimer = in.readInt();
+        waitDuration = in.readInt();
+        dashAngle = in.readDouble();
+        spinAngle = in.readDouble();
+        RunSnapshot.readTrail(in, trailPositions);
+        random.setState(in.readLong());
+    }
 }
@@ -1,6 +1,10 @@
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class HealingItem {
+    private static final int HALF_SIZE = 15; // the hit box is 2 * HALF_SIZE square
     private int x, y;
 
     public HealingItem(int x, int y) {
@@ -9,16 +13,26 @@ public class HealingItem {
     }
 
     public void draw(Graphics2D g) {
-        var sprite = SpriteLoader.getSprite("healing_item");
+        var sprite = SpriteLoader.getSprite("healing_item", 24, 24);
         if (sprite != null) {
-            g.drawImage(sprite, x - 12, y - 12, 24, 24, null);
+            g.drawImage(sprite, x - 12, y - 12, null);
         }
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 15 && Math.abs(y - py) < 15;
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.PICKUP, index, x, y, x, y, HALF_SIZE, HALF_SIZE);
     }
 
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        x = in.readInt();
+        y = in.readInt();
+    }
 }
@@ -0,0 +1,51 @@
+import java.awt.event.KeyEvent;
+import java.util.Set;
+
+// Everything the simulation reads from the player during one tick. Live play fills one of
+// these from the keyboard and mouse each tick; replays fill it from a recorded InputLog.
+public class InputFrame {
+    public static final int KEY_UP = 1;
+    public static final int KEY_DOWN = 2;
+    public static final int KEY_LEFT = 4;
+    public static final int KEY_RIGHT = 8;
+    // Death review controls
+    public static final int KEY_SCRUB_BACK = 16;
+    public static final int KEY_SCRUB_FORWARD = 32;
+    public static final int KEY_CONFIRM = 64;
+
+    public int keyBits;
+    public int mouseX, mouseY;
+    public boolean shoot;
+    public boolean dash;
+    public int upgradeChoice = -1; // index into the offered upgrades, -1 for none
+    public boolean paused;
+    public int width, height;
+
+    public static int keyBitsOf(Set<Integer> keysPressed) {
+        int bits = 0;
+        if (keysPressed.contains(KeyEvent.VK_W)) bits |= KEY_UP;
+        if (keysPressed.contains(KeyEvent.VK_S)) bits |= KEY_DOWN;
+        if (keysPressed.contains(KeyEvent.VK_A)) bits |= KEY_LEFT;
+        if (keysPressed.contains(KeyEvent.VK_D)) bits |= KEY_RIGHT;
+        if (keysPressed.contains(KeyEvent.VK_LEFT)) bits |= KEY_SCRUB_BACK;
+        if (keysPressed.contains(KeyEvent.VK_RIGHT)) bits |= KEY_SCRUB_FORWARD;
+        if (keysPressed.contains(KeyEvent.VK_ENTER)) bits |= KEY_CONFIRM;
+        return bits;
+    }
+
+    public boolean isDown(int key) {
+        return (keyBits & key) != 0;
+    }
+
+    public void copyFrom(InputFrame other) {
+        keyBits = other.keyBits;
+        mouseX = other.mouseX;
+        mouseY = other.mouseY;
+        shoot = other.shoot;
+        dash = other.dash;
+        upgradeChoice = other.upgradeChoice;
+        paused = other.paused;
+        width = other.width;
+        height = other.height;
+    }
+}
@@ -0,0 +1,132 @@
+import java.util.Arrays;
+
+// Compact per-tick input encoding. Each tick is one flags byte followed only by what changed:
+// the key bits, the mouse movement as zigzag varint deltas, the upgrade choice and the screen
+// size. A tick where nothing happens costs a single byte.
+public class InputLog {
+    private static final int KEYS_CHANGED = 1;
+    private static final int MOUSE_MOVED = 2;
+    private static final int SHOOT = 4;
+    private static final int DASH = 8;
+    private static final int UPGRADE = 16;
+    private static final int PAUSED = 32;
+    private static final int SIZE_CHANGED = 64;
+
+    private byte[] data;
+    private int length = 0;
+    private int frameCount = 0;
+
+    // Delta state: the previous frame's values
+    private final InputFrame last = new InputFrame();
+
+    public InputLog() {
+        this(new byte[4096], 0, 0);
+    }
+
+    public InputLog(byte[] data, int length, int frameCount) {
+        this.data = data;
+        this.length = length;
+        this.frameCount = frameCount;
+    }
+
+    public void append(InputFrame frame) {
+        int flags = 0;
+        if (frame.keyBits != last.keyBits) flags |= KEYS_CHANGED;
+        if (frame.mouseX != last.mouseX || frame.mouseY != last.mouseY) flags |= MOUSE_MOVED;
+        if (frame.shoot) flags |= SHOOT;
+        if (frame.dash) flags |= DASH;
+        if (frame.upgradeChoice >= 0) flags |= UPGRADE;
+        if (frame.paused) flags |= PAUSED;
+        if (frame.width != last.width || frame.height != last.height) flags |= SIZE_CHANGED;
+
+        ensureCapacity(24);
+        data[length++] = (byte) flags;
+        if ((flags & KEYS_CHANGED) != 0) data[length++] = (byte) frame.keyBits;
+        if ((flags & MOUSE_MOVED) != 0) {
+            writeVarInt(zigzag(frame.mouseX - last.mouseX));
+            writeVarInt(zigzag(frame.mouseY - last.mouseY));
+        }
+        if ((flags & UPGRADE) != 0) data[length++] = (byte) frame.upgradeChoice;
+        if ((flags & SIZE_CHANGED) != 0) {
+            writeVarInt(frame.width);
+            writeVarInt(frame.height);
+        }
+        last.copyFrom(frame);
+        frameCount++;
+    }
+
+    public int length() { return length; }
+    public int frameCount() { return frameCount; }
+    public byte[] data() { return data; }
+
+    // The delta state a reader needs to start decoding at the current end of the log
+    public InputFrame lastFrame() { return last; }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, length + extra));
+        }
+    }
+
+    private void writeVarInt(int value) {
+        while ((value & ~0x7F) != 0) {
+            data[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[length++] = (byte) value;
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Sequential decoder. Seeking is done by positioning it at a keyframe's offset with that
+    // keyframe's delta state.
+    public class Reader {
+        private int position;
+        private final InputFrame state = new InputFrame();
+
+        public void seek(int offset, InputFrame deltaState) {
+            position = offset;
+            state.copyFrom(deltaState);
+        }
+
+        public boolean hasNext() {
+            return position < length;
+        }
+
+        public void next(InputFrame out) {
+            int flags = data[position++];
+            if ((flags & KEYS_CHANGED) != 0) state.keyBits = data[position++] & 0xFF;
+            if ((flags & MOUSE_MOVED) != 0) {
+                state.mouseX += unzigzag(readVarInt());
+                state.mouseY += unzigzag(readVarInt());
+            }
+            state.upgradeChoice = (flags & UPGRADE) != 0 ? data[position++] : -1;
+            if ((flags & SIZE_CHANGED) != 0) {
+                state.width = readVarInt();
+                state.height = readVarInt();
+            }
+            state.shoot = (flags & SHOOT) != 0;
+            state.dash = (flags & DASH) != 0;
+            state.paused = (flags & PAUSED) != 0;
+            out.copyFrom(state);
+        }
+
+        private int readVarInt() {
+            int value = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+}
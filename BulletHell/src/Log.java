@@ -0,0 +1,258 @@
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Small logging facility for the game. Callers fill a slot in a fixed ring of entries and a
+// daemon thread formats and prints them, so the game thread never waits on console I/O and
+// logging doesn't allocate. When the ring is full new messages are dropped and counted.
+//
+// Messages are templates with {} placeholders filled from long or String arguments on the
+// appender thread; a disabled level is a volatile read and a compare, with nothing built.
+// The threshold comes from -Dbullethell.log=debug|info|warn|error|off (default info).
+//
+// Hot paths log through a Site, which also caps how often that call can print:
+//   private static final Log.Site HIT = new Log.Site("GamePanel", Log.Level.DEBUG, 5);
+//   HIT.log("player hit by {}", source);
+public final class Log {
+    public enum Level { DEBUG, INFO, WARN, ERROR, OFF }
+
+    private static final int CAPACITY = 1024; // power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final PrintStream OUT = System.err;
+
+    private static volatile Level threshold = parseLevel(System.getProperty("bullethell.log"), Level.INFO);
+
+    private static final class Entry {
+        volatile long sequence;
+        long timeMillis;
+        Level level;
+        String source;
+        String template;
+        String text;
+        long a, b;
+        int longArgs;
+        Throwable thrown;
+    }
+
+    private static final Entry[] ring = new Entry[CAPACITY];
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    // Appender side
+    private static long head = 0;
+    private static long reportedDrops = 0;
+    private static final SimpleDateFormat TIME = new SimpleDateFormat("HH:mm:ss.SSS");
+
+    static {
+        for (int i = 0; i < CAPACITY; i++) {
+            ring[i] = new Entry();
+            ring[i].sequence = i;
+        }
+        Thread appender = new Thread(Log::appendLoop, "log-appender");
+        appender.setDaemon(true);
+        appender.start();
+        // Daemon threads die with the JVM, so print whatever is still queued on the way out
+        Runtime.getRuntime().addShutdownHook(new Thread(Log::drain, "log-flush"));
+    }
+
+    private Log() {
+    }
+
+    // A call site with its own level and a cap on lines per second. Only approximate when
+    // several threads share one site, which is fine for a rate limit.
+    public static final class Site {
+        private final String source;
+        private final Level level;
+        private final int maxPerSecond;
+        private long windowStart;
+        private int inWindow;
+        private int suppressed;
+
+        public Site(String source, Level level, int maxPerSecond) {
+            this.source = source;
+            this.level = level;
+            this.maxPerSecond = maxPerSecond;
+        }
+
+        public boolean isEnabled() {
+            return Log.isEnabled(level);
+        }
+
+        public void log(String message) {
+            if (isEnabled() && admit()) enqueue(level, source, message, null, 0, 0, 0, null);
+        }
+
+        public void log(String template, long a) {
+            if (isEnabled() && admit()) enqueue(level, source, template, null, a, 0, 1, null);
+        }
+
+        public void log(String template, long a, long b) {
+            if (isEnabled() && admit()) enqueue(level, source, template, null, a, b, 2, null);
+        }
+
+        public void log(String template, String text) {
+            if (isEnabled() && admit()) enqueue(level, source, template, text, 0, 0, 0, null);
+        }
+
+        public void log(String template, String text, long a) {
+            if (isEnabled() && admit()) enqueue(level, source, template, text, a, 0, 1, null);
+        }
+
+        public void log(String template, String text, long a, long b) {
+            if (isEnabled() && admit()) enqueue(level, source, template, text, a, b, 2, null);
+        }
+
+        private boolean admit() {
+            long now = System.nanoTime();
+            if (now - windowStart >= 1_000_000_000L) {
+                if (suppressed > 0) {
+                    enqueue(level, source, "({} similar messages suppressed)", null, suppressed, 0, 1, null);
+                }
+                windowStart = now;
+                inWindow = 0;
+                suppressed = 0;
+            }
+            if (inWindow < maxPerSecond) {
+                inWindow++;
+                return true;
+            }
+            suppressed++;
+            return false;
+        }
+    }
+
+    public static boolean isEnabled(Level level) {
+        return level.compareTo(threshold) >= 0 && level != Level.OFF;
+    }
+
+    public static void setLevel(Level level) {
+        threshold = level;
+    }
+
+    public static Level getLevel() {
+        return threshold;
+    }
+
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    // One-off messages from cold paths (startup, file I/O); not rate limited
+    public static void info(String source, String message) {
+        if (isEnabled(Level.INFO)) enqueue(Level.INFO, source, message, null, 0, 0, 0, null);
+    }
+
+    public static void warn(String source, String message) {
+        if (isEnabled(Level.WARN)) enqueue(Level.WARN, source, message, null, 0, 0, 0, null);
+    }
+
+    public static void warn(String source, String message, Throwable thrown) {
+        if (isEnabled(Level.WARN)) enqueue(Level.WARN, source, message, null, 0, 0, 0, thrown);
+    }
+
+    public static void error(String source, String message, Throwable thrown) {
+        if (isEnabled(Level.ERROR)) enqueue(Level.ERROR, source, message, null, 0, 0, 0, thrown);
+    }
+
+    private static void enqueue(Level level, String source, String template, String text,
+                                long a, long b, int longArgs, Throwable thrown) {
+        // Bounded multi-producer ring: claim a slot by advancing tail, fill it, then publish it
+        // by bumping its sequence. A slot still holding an unprinted entry means the ring is full.
+        Entry e;
+        long pos = tail.get();
+        while (true) {
+            e = ring[(int) (pos & MASK)];
+            long diff = e.sequence - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) break;
+                pos = tail.get();
+            } else if (diff < 0) {
+                dropped.incrementAndGet();
+                return;
+            } else {
+                pos = tail.get();
+            }
+        }
+        e.timeMillis = System.currentTimeMillis();
+        e.level = level;
+        e.source = source;
+        e.template = template;
+        e.text = text;
+        e.a = a;
+        e.b = b;
+        e.longArgs = longArgs;
+        e.thrown = thrown;
+        e.sequence = pos + 1;
+    }
+
+    private static void appendLoop() {
+        while (true) {
+            if (!printNext()) {
+                LockSupport.parkNanos(5_000_000L);
+            }
+        }
+    }
+
+    private static synchronized void drain() {
+        while (printNext()) {
+            // keep going until the ring is empty
+        }
+        OUT.flush();
+    }
+
+    // Appender side: print the oldest published entry, if any
+    private static synchronized boolean printNext() {
+        Entry e = ring[(int) (head & MASK)];
+        if (e.sequence != head + 1) return false;
+        StringBuilder sb = new StringBuilder(96);
+        sb.append(TIME.format(new Date(e.timeMillis))).append(' ')
+          .append(e.level).append(" [").append(e.source).append("] ");
+        format(sb, e.template, e.text, e.a, e.b, 0, e.longArgs);
+        Throwable thrown = e.thrown;
+        e.text = null;
+        e.thrown = null;
+        e.sequence = head + CAPACITY; // free the slot for the producer one lap ahead
+        head++;
+        OUT.println(sb);
+        if (thrown != null) thrown.printStackTrace(OUT);
+        long drops = dropped.get();
+        if (drops != reportedDrops) {
+            OUT.println("(" + (drops - reportedDrops) + " log messages dropped, queue full)");
+            reportedDrops = drops;
+        }
+        return true;
+    }
+
+    // Fills a {} template: the String argument, if any, takes the first {}, then the first longArgs
+    // of a, b, c in order. Placeholders left over are printed as they are. FlightRecorder's event
+    // ring uses the same templates.
+    static void format(StringBuilder sb, String template, String text, long a, long b, long c, int longArgs) {
+        int arg = text != null ? -1 : 0;
+        int from = 0;
+        while (true) {
+            int at = template.indexOf("{}", from);
+            if (at < 0) break;
+            sb.append(template, from, at);
+            if (arg == -1) {
+                sb.append(text);
+            } else if (arg < longArgs) {
+                sb.append(arg == 0 ? a : arg == 1 ? b : c);
+            } else {
+                sb.append("{}");
+            }
+            arg++;
+            from = at + 2;
+        }
+        sb.append(template, from, template.length());
+    }
+
+    private static Level parseLevel(String value, Level fallback) {
+        if (value == null) return fallback;
+        try {
+            return Level.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+}
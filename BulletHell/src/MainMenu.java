@@ -6,9 +6,11 @@ import java.util.Map;
 public class MainMenu extends JPanel {
     private Achievements achievements;
     private MainMenuListener listener;
+    private Button continueButton;
     private Button playButton;
     private Button achievementsButton;
     private Button quitButton;
+    private boolean canContinue; // a saved run was there when the menu was last shown
     private boolean showingAchievements = false;
     private boolean showDebugMenu = false;
     private String debugInput = "";
@@ -56,9 +58,11 @@ public class MainMenu extends JPanel {
 
         int centerX = 400;
         int centerY = 300;
+        continueButton = new Button(centerX - 75, centerY - 110, 150, 50, "Continue");
         playButton = new Button(centerX - 75, centerY - 40, 150, 50, "Play Game");
         achievementsButton = new Button(centerX - 75, centerY + 30, 150, 50, "Achievements");
         quitButton = new Button(centerX - 75, centerY + 100, 150, 50, "Quit");
+        refreshSavedRun();
 
         addMouseListener(new MouseAdapter() {
             @Override
@@ -81,6 +85,7 @@ public class MainMenu extends JPanel {
     }
 
     private void updateHover(int x, int y) {
+        continueButton.hovered = continueButton.contains(x, y);
         playButton.hovered = playButton.contains(x, y);
         achievementsButton.hovered = achievementsButton.contains(x, y);
         quitButton.hovered = quitButton.contains(x, y);
@@ -98,7 +103,9 @@ public class MainMenu extends JPanel {
             showingAchievements = false;
             repaint();
         } else {
-            if (playButton.contains(x, y)) {
+            if (canContinue && continueButton.contains(x, y)) {
+                if (listener != null) listener.onContinueClicked();
+            } else if (playButton.contains(x, y)) {
                 if (listener != null) listener.onPlayClicked();
             } else if (achievementsButton.contains(x, y)) {
                 showingAchievements = true;
@@ -181,7 +188,10 @@ public class MainMenu extends JPanel {
         int titleX = (getWidth() - fm.stringWidth(title)) / 2;
         g.drawString(title, titleX, 100);
 
-        // Draw buttons
+        // Draw buttons (Continue only when there's a saved run to resume)
+        if (canContinue) {
+            continueButton.draw(g);
+        }
         playButton.draw(g);
         achievementsButton.draw(g);
         quitButton.draw(g);
@@ -237,6 +247,11 @@ public class MainMenu extends JPanel {
         g.drawString("Back", 45, getHeight() - 25);
     }
 
+    // Called whenever the menu is shown, since the run that just ended may have saved or deleted it
+    public void refreshSavedRun() {
+        canContinue = RunSnapshot.exists();
+    }
+
     public void setListener(MainMenuListener listener) {
         this.listener = listener;
     }
@@ -273,6 +288,7 @@ public class MainMenu extends JPanel {
 
     public interface MainMenuListener {
         void onPlayClicked();
+        void onContinueClicked();
         void onDebugWaveSelected(int wave);
     }
 }
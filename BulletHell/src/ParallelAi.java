@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+
+// Runs one enemy list's AI across a ForkJoinPool once the list is big enough to be worth it.
+// Below the threshold it is exactly the old serial loop, last entity first.
+//
+// Above it, the list is cut into fixed chunks of CHUNK entities. Each chunk updates its entities in
+// the same order the serial loop would and fires into its own buffer, and afterwards the buffers
+// are appended to the real projectile list in serial order. Every enemy has its own GameRandom and
+// only reads the rest of the world, so the result is identical to the serial loop whatever the
+// thread timing. Anything else an update wants to report (beam spawn events, revives) has to be
+// picked up by the caller afterwards, on the game thread. With a single CPU it always runs serially.
+//
+//   -Dbullethell.parallelAi.threshold=N   entities a list needs before it goes parallel
+public class ParallelAi {
+    public static final String THRESHOLD_PROPERTY = "bullethell.parallelAi.threshold";
+    private static final int CHUNK = 32;
+    private static final int CPUS = Runtime.getRuntime().availableProcessors();
+
+    public interface Step<T> {
+        // Updates one entity; projectiles it fires go into shots
+        void run(T entity, ShotBuffer shots);
+    }
+
+    private static ForkJoinPool pool; // made on first use, so ordinary waves never start threads
+
+    private int threshold = Integer.getInteger(THRESHOLD_PROPERTY, 128);
+    private final ArrayList<ShotBuffer> buffers = new ArrayList<>();
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = Math.max(1, threshold);
+    }
+
+    public <T> void update(ArrayList<T> entities, ShotBuffer shots, Step<T> step) {
+        int n = entities.size();
+        if (n < threshold || CPUS < 2) {
+            for (int i = n - 1; i >= 0; i--) {
+                step.run(entities.get(i), shots);
+            }
+            return;
+        }
+        int chunks = (n + CHUNK - 1) / CHUNK;
+        while (buffers.size() < chunks) {
+            buffers.add(new ShotBuffer());
+        }
+        pool().invoke(new Chunks<>(entities, step, 0, chunks));
+        // Serial order is from the top of the list down, so the last chunk's shots come first
+        for (int c = chunks - 1; c >= 0; c--) {
+            ShotBuffer buffer = buffers.get(c);
+            shots.addAll(buffer);
+            buffer.clear();
+        }
+    }
+
+    // Splits the chunk range in half until it is one chunk, then runs it. Tasks are never
+    // serialized, though ForkJoinTask is Serializable.
+    @SuppressWarnings("serial")
+    private class Chunks<T> extends RecursiveAction {
+        private final ArrayList<T> entities;
+        private final Step<T> step;
+        private final int from, to;
+
+        Chunks(ArrayList<T> entities, Step<T> step, int from, int to) {
+            this.entities = entities;
+            this.step = step;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Chunks<>(entities, step, from, mid), new Chunks<>(entities, step, mid, to));
+                return;
+            }
+            ShotBuffer buffer = buffers.get(from);
+            int start = from * CHUNK;
+            for (int i = Math.min(entities.size(), start + CHUNK) - 1; i >= start; i--) {
+                step.run(entities.get(i), buffer);
+            }
+        }
+    }
+
+    private static synchronized ForkJoinPool pool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(CPUS, p -> {
+                ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                t.setName("enemy-ai-" + t.getPoolIndex());
+                t.setDaemon(true);
+                return t;
+            }, null, false);
+        }
+        return pool;
+    }
+}
@@ -5,11 +5,15 @@ import java.awt.event.*;
 public class PauseMenu extends JPanel {
     private Button resumeButton;
     private Button mainMenuButton;
+    private Button recordButton;
     private PauseMenuListener listener;
     private static final Color BG_COLOR = new Color(0, 0, 0, 200);
     private static final Color BUTTON_COLOR = new Color(100, 50, 150);
     private static final Color BUTTON_HOVER_COLOR = new Color(150, 80, 200);
     private static final Color TEXT_COLOR = Color.WHITE;
+    private static final Stroke BUTTON_STROKE = new BasicStroke(2);
+    private static final Font BUTTON_FONT = new Font("Arial", Font.BOLD, 18);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 50);
 
     private class Button {
         int x, y, width, height;
@@ -32,10 +36,10 @@ public class PauseMenu extends JPanel {
             g.setColor(hovered ? BUTTON_HOVER_COLOR : BUTTON_COLOR);
             g.fillRect(x, y, width, height);
             g.setColor(TEXT_COLOR);
-            g.setStroke(new BasicStroke(2));
+            g.setStroke(BUTTON_STROKE);
             g.drawRect(x, y, width, height);
             
-            g.setFont(new Font("Arial", Font.BOLD, 18));
+            g.setFont(BUTTON_FONT);
             FontMetrics fm = g.getFontMetrics();
             int textX = x + (width - fm.stringWidth(text)) / 2;
             int textY = y + ((height - fm.getHeight()) / 2) + fm.getAscent();
@@ -48,6 +52,7 @@ public class PauseMenu extends JPanel {
         int centerY = height / 2;
         resumeButton = new Button(centerX - 75, centerY - 40, 150, 50, "Resume");
         mainMenuButton = new Button(centerX - 75, centerY + 30, 150, 50, "Main Menu");
+        recordButton = new Button(centerX - 75, centerY + 100, 150, 50, "Record JFR");
 
         setFocusable(true);
         addMouseListener(new MouseAdapter() {
@@ -70,17 +75,20 @@ public class PauseMenu extends JPanel {
         });
     }
 
-    private void updateHover(int x, int y) {
+    public void updateHover(int x, int y) {
         resumeButton.hovered = resumeButton.contains(x, y);
         mainMenuButton.hovered = mainMenuButton.contains(x, y);
+        recordButton.hovered = recordButton.contains(x, y);
         repaint();
     }
 
-    private void handleClick(int x, int y) {
+    public void handleClick(int x, int y) {
         if (resumeButton.contains(x, y)) {
             if (listener != null) listener.onResumeClicked();
         } else if (mainMenuButton.contains(x, y)) {
             if (listener != null) listener.onMainMenuClicked();
+        } else if (recordButton.contains(x, y)) {
+            if (listener != null) listener.onRecordClicked();
         }
     }
 
@@ -95,7 +103,7 @@ public class PauseMenu extends JPanel {
 
         // Draw title
         g2d.setColor(TEXT_COLOR);
-        g2d.setFont(new Font("Arial", Font.BOLD, 50));
+        g2d.setFont(TITLE_FONT);
         String title = "PAUSED";
         FontMetrics fm = g2d.getFontMetrics();
         int titleX = (getWidth() - fm.stringWidth(title)) / 2;
@@ -104,6 +112,13 @@ public class PauseMenu extends JPanel {
         // Draw buttons
         resumeButton.draw(g2d);
         mainMenuButton.draw(g2d);
+        recordButton.draw(g2d);
+    }
+
+    // The record button starts a flight recording, and saves it when pressed again
+    public void setRecording(boolean recording) {
+        recordButton.text = recording ? "Save JFR" : "Record JFR";
+        repaint();
     }
 
     public void setListener(PauseMenuListener listener) {
@@ -117,11 +132,14 @@ public class PauseMenu extends JPanel {
         resumeButton.y = centerY - 40;
         mainMenuButton.x = centerX - 75;
         mainMenuButton.y = centerY + 30;
+        recordButton.x = centerX - 75;
+        recordButton.y = centerY + 100;
         repaint();
     }
 
     public interface PauseMenuListener {
         void onResumeClicked();
         void onMainMenuClicked();
+        void onRecordClicked();
     }
 }
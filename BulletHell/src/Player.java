@@ -1,18 +1,22 @@
-import java.awt.event.KeyEvent;
 import java.util.ArrayList;
-import java.util.Set;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class Player {
     private int x, y;
+    private int prevX, prevY; // position before this tick's move
     private int hp = 10;
     private int maxHp = 10;
     private int dashCooldown = 0;
     private int shootCooldown = 0;
     private static final int SHOOT_COOLDOWN_BASE = 8;
+    private static final int SHOOT_COOLDOWN_MIN = 2;
+    public static final int MAX_FIRE_RATE_BONUS = SHOOT_COOLDOWN_BASE - SHOOT_COOLDOWN_MIN; // more changes nothing
     private int dashDuration = 0;
     private int dashDirectionX = 0;
     private int dashDirectionY = 0;
-    private ArrayList<int[]> trailPositions;
+    private Trail trailPositions;
     private static final int DASH_SPEED = 10;
     private static final int MOVE_SPEED = 5;
     private static final int DASH_DURATION_MAX = 15;
@@ -20,35 +24,42 @@ public class Player {
     private int fireRateBonus = 0;
     private boolean piercingShots = false;
     private boolean tripleShot = false;
+    private boolean homingShots = false;
     private boolean slowFieldActive = false;
     private int damageCooldown = 0; // frames of invulnerability after taking damage
+    private boolean invulnerable = false; // stress scenarios only, so never saved
     private static final int DAMAGE_COOLDOWN_FRAMES = 30;
+    public static final int HALF_SIZE = 20; // the hit box is 2 * HALF_SIZE square
 
     public Player(int x, int y) {
         this.x = x;
         this.y = y;
-        this.trailPositions = new ArrayList<>();
+        this.prevX = x;
+        this.prevY = y;
+        this.trailPositions = new Trail(32);
     }
 
-    public void update(Set<Integer> keysPressed, int width, int height) {
+    public void update(int keyBits, int width, int height) {
+        prevX = x;
+        prevY = y;
         int moveX = 0;
         int moveY = 0;
         
-        if (keysPressed.contains(KeyEvent.VK_W)) moveY -= MOVE_SPEED;
-        if (keysPressed.contains(KeyEvent.VK_S)) moveY += MOVE_SPEED;
-        if (keysPressed.contains(KeyEvent.VK_A)) moveX -= MOVE_SPEED;
-        if (keysPressed.contains(KeyEvent.VK_D)) moveX += MOVE_SPEED;
+        if ((keyBits & InputFrame.KEY_UP) != 0) moveY -= MOVE_SPEED;
+        if ((keyBits & InputFrame.KEY_DOWN) != 0) moveY += MOVE_SPEED;
+        if ((keyBits & InputFrame.KEY_LEFT) != 0) moveX -= MOVE_SPEED;
+        if ((keyBits & InputFrame.KEY_RIGHT) != 0) moveX += MOVE_SPEED;
 
         if (dashDuration > 0) {
             x += dashDirectionX * DASH_SPEED;
             y += dashDirectionY * DASH_SPEED;
-            trailPositions.add(new int[]{x, y});
+            trailPositions.add(x, y);
             dashDuration--;
         } else {
             x += moveX;
             y += moveY;
             if (trailPositions.size() > 0) {
-                trailPositions.remove(0);
+                trailPositions.removeOldest();
             }
         }
 
@@ -81,19 +92,19 @@ public class Player {
         
         if (tripleShot) {
             // Fire 3 projectiles at slightly different angles
-            projectiles.add(new PlayerProjectile(x, y, angle - 0.3, piercingShots));
-            projectiles.add(new PlayerProjectile(x, y, angle, piercingShots));
-            projectiles.add(new PlayerProjectile(x, y, angle + 0.3, piercingShots));
+            projectiles.add(new PlayerProjectile(x, y, angle - 0.3, piercingShots, homingShots));
+            projectiles.add(new PlayerProjectile(x, y, angle, piercingShots, homingShots));
+            projectiles.add(new PlayerProjectile(x, y, angle + 0.3, piercingShots, homingShots));
         } else {
-            projectiles.add(new PlayerProjectile(x, y, angle, piercingShots));
+            projectiles.add(new PlayerProjectile(x, y, angle, piercingShots, homingShots));
         }
         
         // Apply fire rate bonus (higher bonus = shorter cooldown)
-        shootCooldown = Math.max(2, SHOOT_COOLDOWN_BASE - fireRateBonus);
+        shootCooldown = Math.max(SHOOT_COOLDOWN_MIN, SHOOT_COOLDOWN_BASE - fireRateBonus);
     }
 
     public void takeDamage(int damage) {
-        if (dashDuration == 0 && damageCooldown == 0) {
+        if (dashDuration == 0 && damageCooldown == 0 && !invulnerable) {
             hp -= damage;
             damageCooldown = DAMAGE_COOLDOWN_FRAMES;
         }
@@ -122,27 +133,38 @@ public class Player {
     public void reset(int startX, int startY) {
         x = startX;
         y = startY;
+        prevX = x;
+        prevY = y;
         hp = 5;
         dashCooldown = 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 20 && Math.abs(y - py) < 20;
+    // The same box, swept from last tick's position, for the tick's collision pass
+    public void addCollider(CollisionSystem collisions) {
+        collisions.addBox(CollisionSystem.PLAYER, 0, prevX, prevY, x, y, HALF_SIZE, HALF_SIZE);
     }
 
+    public int getPrevX() { return prevX; }
+    public int getPrevY() { return prevY; }
+
     public int getX() { return x; }
     public int getY() { return y; }
     public int getHP() { return hp; }
     public int getMaxHP() { return maxHp; }
-    public ArrayList<int[]> getTrailPositions() { return trailPositions; }
+    public Trail getTrailPositions() { return trailPositions; }
     public boolean hasPiercingShots() { return piercingShots; }
     public boolean hasTripleShot() { return tripleShot; }
+    public boolean hasHomingShots() { return homingShots; }
     public boolean hasSlowField() { return slowFieldActive; }
     public int getFireRateBonus() { return fireRateBonus; }
     
     public void increaseFireRate() {
         fireRateBonus += 5;
     }
+
+    public void setFireRateBonus(int value) {
+        fireRateBonus = value;
+    }
     
     public void decreaseDashCooldown() {
         dashCooldownMax = Math.max(150, dashCooldownMax - 50);
@@ -160,8 +182,58 @@ public class Player {
     public void setTripleShot(boolean value) {
         tripleShot = value;
     }
+
+    public void setHomingShots(boolean value) {
+        homingShots = value;
+    }
     
     public void setSlowFieldActive(boolean value) {
         slowFieldActive = value;
     }
+
+    public void setInvulnerable(boolean value) {
+        invulnerable = value;
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(hp);
+        out.writeInt(maxHp);
+        out.writeInt(dashCooldown);
+        out.writeInt(shootCooldown);
+        out.writeInt(dashDuration);
+        out.writeInt(dashDirectionX);
+        out.writeInt(dashDirectionY);
+        out.writeInt(dashCooldownMax);
+        out.writeInt(fireRateBonus);
+        out.writeBoolean(piercingShots);
+        out.writeBoolean(tripleShot);
+        out.writeBoolean(homingShots);
+        out.writeBoolean(slowFieldActive);
+        out.writeInt(damageCooldown);
+        RunSnapshot.writeTrail(out, trailPositions);
+    }
+
+    public void readState(DataInput in) throws IOException {
+        x = in.readInt();
+        y = in.readInt();
+        prevX = x;
+        prevY = y;
+        hp = in.readInt();
+        maxHp = in.readInt();
+        dashCooldown = in.readInt();
+        shootCooldown = in.readInt();
+        dashDuration = in.readInt();
+        dashDirectionX = in.readInt();
+        dashDirectionY = in.readInt();
+        dashCooldownMax = in.readInt();
+        fireRateBonus = in.readInt();
+        piercingShots = in.readBoolean();
+        tripleShot = in.readBoolean();
+        homingShots = in.readBoolean();
+        slowFieldActive = in.readBoolean();
+        damageCooldown = in.readInt();
+        RunSnapshot.readTrail(in, trailPositions);
+    }
 }
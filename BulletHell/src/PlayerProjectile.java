@@ -1,31 +1,156 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Position and velocity are 16.16 fixed point (see Fixed)
 public class PlayerProjectile {
     private int x, y;
-    private double vx, vy;
+    private int prevX, prevY; // where update() moved from, for swept collision
+    private int vx, vy;       // per tick
     private boolean isPiercing;
+    // Handles of everything this shot has damaged, so a piercing shot hits each target once.
+    // Most shots never hit anything, so the array only appears on the first hit.
+    private int[] hits;
+    private int hitCount = 0;
     private static final int SPEED = 8;
+    private static final int MARGIN = 10; // how far past the edge of the screen a shot lives
+    private static final int HOMING_RANGE = 400;
+    private static final int RETARGET_TICKS = 10;
+    private static final double TURN_RATE = 0.12; // radians a tick
+    private static final double TURN_COS = Math.cos(TURN_RATE);
+    private static final double TURN_SIN = Math.sin(TURN_RATE);
+    private static final double TURN_TAN = Math.tan(TURN_RATE);
+    public static final int CANDIDATES = 4; // nearest hostiles tried when picking a new target
+
+    private boolean homing;
+    private int target;      // handle of what a homing shot is chasing, 0 for nothing
+    private int retargetIn;  // ticks until it looks for a closer target
 
     public PlayerProjectile(int x, int y, double angle) {
         this(x, y, angle, false);
     }
 
     public PlayerProjectile(int x, int y, double angle, boolean isPiercing) {
-        this.x = x;
-        this.y = y;
+        this(x, y, angle, isPiercing, false);
+    }
+
+    public PlayerProjectile(int x, int y, double angle, boolean isPiercing, boolean homing) {
+        this.homing = homing;
+        this.x = Fixed.of(x);
+        this.y = Fixed.of(y);
+        this.prevX = this.x;
+        this.prevY = this.y;
         this.isPiercing = isPiercing;
-        this.vx = Math.cos(angle) * SPEED;
-        this.vy = Math.sin(angle) * SPEED;
+        this.vx = Fixed.of(Math.cos(angle) * SPEED);
+        this.vy = Fixed.of(Math.sin(angle) * SPEED);
     }
 
     public void update() {
+        prevX = x;
+        prevY = y;
         x += vx;
         y += vy;
     }
 
     public boolean isOutOfBounds(int width, int height) {
-        return x < -10 || x > width + 10 || y < -10 || y > height + 10;
+        return x < Fixed.of(-MARGIN) || x > Fixed.of(width + MARGIN)
+            || y < Fixed.of(-MARGIN) || y > Fixed.of(height + MARGIN);
+    }
+
+    // Turns a homing shot towards its target, at most TURN_RATE a tick. The target is the nearest
+    // hostile it hasn't hit yet, picked again every RETARGET_TICKS or as soon as it is gone.
+    // candidates is the caller's scratch for the search, CANDIDATES long.
+    public void steer(SpatialIndex hostiles, int[] candidates) {
+        if (--retargetIn <= 0 || !hostiles.contains(target) || hasHit(target)) {
+            target = 0;
+            int found = hostiles.nearest(getX(), getY(), HOMING_RANGE, candidates.length, candidates);
+            for (int i = 0; i < found; i++) {
+                if (!hasHit(candidates[i])) {
+                    target = candidates[i];
+                    break;
+                }
+            }
+            retargetIn = RETARGET_TICKS;
+        }
+        if (target == 0) return;
+        // Turning is worked out in doubles and the result stored back in fixed point
+        double dx = Fixed.toDouble(Fixed.of(hostiles.getX(target)) - x);
+        double dy = Fixed.toDouble(Fixed.of(hostiles.getY(target)) - y);
+        double velX = Fixed.toDouble(vx);
+        double velY = Fixed.toDouble(vy);
+        double cross = velX * dy - velY * dx; // which side the target is on
+        double dot = velX * dx + velY * dy;
+        if (dot > 0 && Math.abs(cross) <= TURN_TAN * dot) {
+            // Within one tick's turn: head straight for it
+            double length = Math.sqrt(dx * dx + dy * dy);
+            if (length > 0) {
+                vx = Fixed.of(dx / length * SPEED);
+                vy = Fixed.of(dy / length * SPEED);
+            }
+        } else {
+            double sin = cross < 0 ? -TURN_SIN : TURN_SIN;
+            vx = Fixed.of(velX * TURN_COS - velY * sin);
+            vy = Fixed.of(velX * sin + velY * TURN_COS);
+        }
     }
 
     public boolean isPiercing() { return isPiercing; }
-    public int getX() { return x; }
-    public int getY() { return y; }
+    public boolean isHoming() { return homing; }
+    public int getX() { return Fixed.toInt(x); }
+    public int getY() { return Fixed.toInt(y); }
+    public int getPrevX() { return Fixed.toInt(prevX); }
+    public int getPrevY() { return Fixed.toInt(prevY); }
+
+    public boolean hasHit(int handle) {
+        for (int i = 0; i < hitCount; i++) {
+            if (hits[i] == handle) return true;
+        }
+        return false;
+    }
+
+    public void recordHit(int handle) {
+        if (hits == null) {
+            hits = new int[4];
+        } else if (hitCount == hits.length) {
+            hits = Arrays.copyOf(hits, hitCount * 2);
+        }
+        hits[hitCount++] = handle;
+    }
+
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addPoint(CollisionSystem.PLAYER_SHOT, index, getPrevX(), getPrevY(), getX(), getY());
+    }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(vx);
+        out.writeInt(vy);
+        out.writeBoolean(isPiercing);
+        out.writeBoolean(homing);
+        out.writeInt(target);
+        out.writeInt(retargetIn);
+        out.writeInt(hitCount);
+        for (int i = 0; i < hitCount; i++) {
+            out.writeInt(hits[i]);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        x = in.readInt();
+        y = in.readInt();
+        vx = in.readInt();
+        vy = in.readInt();
+        isPiercing = in.readBoolean();
+        homing = in.readBoolean();
+        target = in.readInt();
+        retargetIn = in.readInt();
+        hitCount = 0;
+        for (int i = in.readInt(); i > 0; i--) {
+            recordHit(in.readInt());
+        }
+        prevX = x;
+        prevY = y;
+    }
 }
@@ -1,8 +1,32 @@
 import java.awt.*;
 import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class PurpleBoss {
+    private static final int HALF_SIZE = 40; // the hit box is 2 * HALF_SIZE square
+    private static final Log.Site STATE_LOG = new Log.Site("PurpleBoss", Log.Level.DEBUG, 10);
+    private static final Color[] DASH_TRAIL = Colors.alphaRamp(Color.MAGENTA);
+    private static final Color SHIELD_FILL = new Color(0f, 0.6f, 1f, 0.4f);
+    private static final Color SHIELD_RING = new Color(0f, 0.8f, 1f, 0.7f);
+    private static final Color[] DASH_HIGHLIGHT = Colors.alphaRamp(Color.YELLOW);
+    private static final Color BODY = new Color(150, 0, 150);
+    private static final Color SPIKE = new Color(200, 50, 200);
+    private static final Color[] DASH_FINISH = Colors.alphaRamp(new Color(1f, 0.9f, 0.4f));
+    private static final Color[] WALL_HIT = Colors.alphaRamp(new Color(0.4f, 0.9f, 1f));
+    private static final Stroke THICK = new BasicStroke(3);
+    private static final BulletPattern SPIN_BURST = BulletPattern.ring(6).look(4, Color.MAGENTA, 1).compile();
+    private static final BulletPattern DASH_SPREAD = new BulletPattern(3, 0.6).look(5, Color.MAGENTA, 1).compile();
+    // Random bursts when a dash sequence ends: the full one after its last bounce, a smaller one
+    // when it is cut short
+    private static final BulletPattern DASH_END_BURST = BulletPattern.ring(8).aim(BulletPattern.Aim.RANDOM).look(4, Color.MAGENTA, 1).compile();
+    private static final BulletPattern DASH_CUT_BURST = BulletPattern.ring(6).aim(BulletPattern.Aim.RANDOM).look(4, Color.MAGENTA, 1).compile();
+
     private int x, y;
+    private int fixedX, fixedY; // 16.16 position (see Fixed); x and y are it rounded
+    private int handle; // from EntityHandles; 0 until the first collision pass
+    private int prevX, prevY; // position before this tick's move
     private int hp = 250;
     private int maxHp = 250;
     private int attackState = 0; // 0 = beam spam, 1 = beam spin, 2 = dash attack, 3 = spiral bullets
@@ -10,7 +34,7 @@ public class PurpleBoss {
     private int stateTransitionTimer = 0;
     private int screenWidth, screenHeight;
     private ArrayList<Beam> beams;
-    private ArrayList<EnemyProjectile> spiralBullets;
+    private ShotBuffer spiralBullets;
     private ArrayList<Integer> dashAttackQueue; // Number of dashes to perform
     private int dashDashCount = 0; // Current dash count in sequence
     private int dashTimer = 0;
@@ -36,11 +60,14 @@ public class PurpleBoss {
     private double beamRotationAngle = 0; // For rotating beams in beam spin attack
     private ArrayList<Double> activeBeamAngles; // Beams that are rotating
     private ArrayList<RotatingBeam> persistentBeams; // Beams that stay active and rotate
-    private ArrayList<int[]> dashTrail; // Trail of positions during dash
+    private Trail dashTrail; // Trail of positions during dash
+    // Scratch for drawing spikes; fill(Polygon) allocates far less than fillPolygon(int[], int[], n)
+    private final Polygon spike = new Polygon(new int[3], new int[3], 3);
     private double bossRotation = 0; // For spinning during dash attack
     
     private int dashFinishTimer = 0; // visual cue timer after dash ends
     private int rotatingBeamCueTimer = 0; // visual cue when rotating beams spawn
+    private final GameRandom random;
     
     // Attack durations
     private static final int BEAM_SPAM_DURATION = 180; // 3 seconds
@@ -48,32 +75,46 @@ public class PurpleBoss {
     private static final int DASH_ATTACK_DURATION = 300; // 5 seconds per dash attempt
     private static final int DASH_MAX_FRAMES = 80; // cap per individual dash
     private static final int SPIRAL_DURATION = 180; // 3 seconds
+    // The spiral gains a bullet every 30 ticks: SPIRALS[n] is the ring of 8 + n
+    private static final BulletPattern[] SPIRALS = new BulletPattern[SPIRAL_DURATION / 30 + 1];
+    static {
+        for (int n = 0; n < SPIRALS.length; n++) {
+            SPIRALS[n] = BulletPattern.ring(8 + n).look(4, Color.MAGENTA, 1).compile();
+        }
+    }
     private static final int STATE_TRANSITION_DURATION = 60; // 1 second between attacks
     private static final int SHIELD_DURATION = 250; // Shield lasts 4.17 seconds
 
-    public PurpleBoss(int x, int y, int screenWidth, int screenHeight) {
+    public PurpleBoss(int x, int y, int screenWidth, int screenHeight, GameRandom random) {
         this.x = x;
         this.y = y;
+        this.fixedX = Fixed.of(x);
+        this.fixedY = Fixed.of(y);
+        this.prevX = x;
+        this.prevY = y;
+        this.random = random;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
         this.beams = new ArrayList<>();
-        this.spiralBullets = new ArrayList<>();
+        this.spiralBullets = new ShotBuffer();
         this.dashAttackQueue = new ArrayList<>();
         this.activeBeamAngles = new ArrayList<>();
         this.persistentBeams = new ArrayList<>();
-        this.dashTrail = new ArrayList<>();
+        this.dashTrail = new Trail(31);
     }
 
     public void setScreenSize(int w, int h) {
         this.screenWidth = w;
         this.screenHeight = h;
-        // propagate to persistent beams
-        for (RotatingBeam rb : persistentBeams) {
-            rb.setScreenSize(w, h);
+        // propagate to persistent beams; called every tick, so no iterator
+        for (int i = 0; i < persistentBeams.size(); i++) {
+            persistentBeams.get(i).setScreenSize(w, h);
         }
     }
 
     public void update(int playerX, int playerY) {
+        prevX = x;
+        prevY = y;
         // Shield management
         if (shieldActive) {
             shieldTimer++;
@@ -133,9 +174,9 @@ public class PurpleBoss {
             // While dashing, keep transition timer reset so no other attack starts
             stateTransitionTimer = 0;
         }
-        // Debug: print when attack state changes
         if (prevState != attackState) {
-            System.out.println("PurpleBoss: state changed " + prevState + " -> " + attackState + " (attackTimer=" + attackTimer + ")");
+            GameEvents.bossStateChanged("PurpleBoss", prevState, attackState, attackTimer, hp);
+            STATE_LOG.log("state changed {} -> {}", prevState, attackState);
         }
         if (rotatingBeamCueTimer > 0) rotatingBeamCueTimer--;
         if (wallHitTimer > 0) wallHitTimer--;
@@ -145,8 +186,7 @@ public class PurpleBoss {
         attackTimer++;
         
         // Move around screen while firing beams
-        x += Math.cos(beamSpamAngle) * 2;
-        y += Math.sin(beamSpamAngle) * 2;
+        moveBy(Math.cos(beamSpamAngle) * 2, Math.sin(beamSpamAngle) * 2);
         
         // Keep boss on screen
         x = Math.max(60, Math.min(screenWidth - 60, x));
@@ -154,15 +194,15 @@ public class PurpleBoss {
         
         // Change direction occasionally
         if (attackTimer % 60 == 0) {
-            beamSpamAngle = Math.random() * Math.PI * 2;
+            beamSpamAngle = random.nextDouble() * Math.PI * 2;
         }
 
         // Fire beams less frequently - fewer beams but wider spread
         if (attackTimer % 25 == 0) {
             // Fire 2-4 beams in random directions (reduced count)
-            int beamCount = 2 + (int)(Math.random() * 3);
+            int beamCount = 2 + (int)(random.nextDouble() * 3);
             for (int i = 0; i < beamCount; i++) {
-                double beamAngle = Math.random() * Math.PI * 2;
+                double beamAngle = random.nextDouble() * Math.PI * 2;
                 Beam beam = new Beam(x, y, screenWidth, screenHeight, beamAngle);
                 beam.setRemoveAfterFade(true);
                 beams.add(beam);
@@ -189,7 +229,6 @@ public class PurpleBoss {
             shieldActive = false;
             dashHighlightTimer = 0;
             persistentBeams.clear();
-            System.out.println("PurpleBoss: transitioning to beam-spin (state=1)");
         }
     }
 
@@ -202,8 +241,7 @@ public class PurpleBoss {
             int targetY = screenHeight / 2;
             double dist = Math.sqrt(Math.pow(targetX - x, 2) + Math.pow(targetY - y, 2));
             if (dist > 5) {
-                x += (targetX - x) / dist * 6;
-                y += (targetY - y) / dist * 6;
+                moveBy((targetX - x) / dist * 6, (targetY - y) / dist * 6);
             } else {
                 x = targetX;
                 y = targetY;
@@ -218,7 +256,6 @@ public class PurpleBoss {
                 persistentBeams.add(new RotatingBeam(x, y, angle, screenWidth, screenHeight));
             }
             beamRotationAngle = 0;
-            System.out.println("PurpleBoss: created persistent rotating beams at (" + x + "," + y + ")");
             rotatingBeamCueTimer = 60; // one second visual cue
         } else if (attackTimer < BEAM_SPIN_DURATION) {
             // Smooth slow rotation; slowed down overall and modestly faster at low HP
@@ -236,7 +273,7 @@ public class PurpleBoss {
             // Periodically fire additional temporary beams (less often)
             if (attackTimer % 50 == 0 && attackTimer > 40) {
                 for (int i = 0; i < 2; i++) {
-                    double angle = Math.random() * Math.PI * 2;
+                    double angle = random.nextDouble() * Math.PI * 2;
                     Beam beam = new Beam(x, y, screenWidth, screenHeight, angle);
                     beam.setRemoveAfterFade(true);
                     beams.add(beam);
@@ -245,17 +282,12 @@ public class PurpleBoss {
 
             // Occasionally fire bullets outward while beams are active
             if (attackTimer % 30 == 0) {
-                int shots = 6;
-                for (int i = 0; i < shots; i++) {
-                    double a = beamRotationAngle + (i * Math.PI * 2 / shots);
-                    spiralBullets.add(new EnemyProjectile(x, y, a, 4, Color.MAGENTA, 1));
-                }
+                SPIN_BURST.fire(spiralBullets, x, y, beamRotationAngle);
             }
         }
 
         // End the beam-spin cleanly when duration is reached
         if (attackTimer >= BEAM_SPIN_DURATION) {
-            System.out.println("PurpleBoss: beam spin complete, clearing beams and advancing state");
             persistentBeams.clear();
             shieldActive = false;
             // Advance to next state immediately
@@ -305,29 +337,26 @@ public class PurpleBoss {
                 bossRotation += 0.15; // Spin during dash
                 
                 // Add to trail
-                dashTrail.add(new int[]{x, y});
+                dashTrail.add(x, y);
                 if (dashTrail.size() > 30) {
-                    dashTrail.remove(0);
+                    dashTrail.removeOldest();
                 }
                 
                 // Move in dash direction using variable speed
-                x += Math.cos(dashAngle) * dashSpeed;
-                y += Math.sin(dashAngle) * dashSpeed;
+                moveBy(Math.cos(dashAngle) * dashSpeed, Math.sin(dashAngle) * dashSpeed);
 
                 // Fire bullets occasionally while dashing
-                if (dashTimer % 20 == 0 && Math.random() > 0.3) {
+                if (dashTimer % 20 == 0 && random.nextDouble() > 0.3) {
                     // Random bullets or beams
-                    if (Math.random() > 0.6) {
+                    if (random.nextDouble() > 0.6) {
                         // Fire beam
-                        double beamAngle = Math.random() * Math.PI * 2;
+                        double beamAngle = random.nextDouble() * Math.PI * 2;
                         Beam beam = new Beam(x, y, screenWidth, screenHeight, beamAngle);
                         beam.setRemoveAfterFade(true);
                         beams.add(beam);
                     } else {
                         // Fire bullets in spread
-                        for (int i = -1; i <= 1; i++) {
-                            spiralBullets.add(new EnemyProjectile(x, y, dashAngle + i * 0.3, 5, Color.MAGENTA, 1));
-                        }
+                        DASH_SPREAD.fire(spiralBullets, x, y, dashAngle);
                     }
                 }
 
@@ -361,16 +390,15 @@ public class PurpleBoss {
                     // Slow down on bounce (less severe)
                     dashSpeed *= 0.85;
                     // nudge away from edge to avoid immediate re-collision
-                    x += Math.cos(dashAngle) * 8;
-                    y += Math.sin(dashAngle) * 8;
+                    moveBy(Math.cos(dashAngle) * 8, Math.sin(dashAngle) * 8);
                     // Wall-hit effect: small radial burst and flash
                     wallHitTimer = 12;
                     wallHitX = x;
                     wallHitY = y;
                     for (int p = 0; p < 6; p++) {
-                        double pa = Math.random() * Math.PI * 2;
-                        int psz = 2 + (int)(Math.random() * 2);
-                        spiralBullets.add(new EnemyProjectile(x, y, pa, psz, Color.CYAN, 0));
+                        double pa = random.nextDouble() * Math.PI * 2;
+                        int psz = 2 + (int)(random.nextDouble() * 2);
+                        spiralBullets.fire(x, y, pa, psz, Color.CYAN, 0);
                     }
                     try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
                     // If we've hit the allowed number of bounces for this dash, treat it as completed
@@ -388,15 +416,12 @@ public class PurpleBoss {
                             try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
                             // spawn a short spam burst then go to spiral attack
                             for (int s = 0; s < 6; s++) {
-                                double a = Math.random() * Math.PI * 2;
+                                double a = random.nextDouble() * Math.PI * 2;
                                 Beam b = new Beam(x, y, screenWidth, screenHeight, a);
                                 b.setRemoveAfterFade(true);
                                 beams.add(b);
                             }
-                            for (int s = 0; s < 8; s++) {
-                                double a = Math.random() * Math.PI * 2;
-                                spiralBullets.add(new EnemyProjectile(x, y, a, 4, Color.MAGENTA, 1));
-                            }
+                            DASH_END_BURST.fireRandom(spiralBullets, x, y, random);
                             // advance to spiral attack next
                             attackState = 3;
                             attackTimer = 0;
@@ -414,15 +439,12 @@ public class PurpleBoss {
                     dashFinishTimer = 20;
                     try { java.awt.Toolkit.getDefaultToolkit().beep(); } catch (Exception ex) {}
                     for (int s = 0; s < 4; s++) {
-                        double a = Math.random() * Math.PI * 2;
+                        double a = random.nextDouble() * Math.PI * 2;
                         Beam b = new Beam(x, y, screenWidth, screenHeight, a);
                         b.setRemoveAfterFade(true);
                         beams.add(b);
                     }
-                    for (int s = 0; s < 6; s++) {
-                        double a = Math.random() * Math.PI * 2;
-                        spiralBullets.add(new EnemyProjectile(x, y, a, 4, Color.MAGENTA, 1));
-                    }
+                    DASH_CUT_BURST.fireRandom(spiralBullets, x, y, random);
                     attackState = 3;
                     attackTimer = 0;
                     stateTransitionTimer = 0;
@@ -437,15 +459,12 @@ public class PurpleBoss {
             x = Math.max(60, Math.min(screenWidth - 60, x));
             y = Math.max(60, Math.min(screenHeight - 60, y));
             for (int s = 0; s < 4; s++) {
-                double a = Math.random() * Math.PI * 2;
+                double a = random.nextDouble() * Math.PI * 2;
                 Beam b = new Beam(x, y, screenWidth, screenHeight, a);
                 b.setRemoveAfterFade(true);
                 beams.add(b);
             }
-            for (int s = 0; s < 6; s++) {
-                double a = Math.random() * Math.PI * 2;
-                spiralBullets.add(new EnemyProjectile(x, y, a, 4, Color.MAGENTA, 1));
-            }
+            DASH_CUT_BURST.fireRandom(spiralBullets, x, y, random);
             attackState = 0;
             attackTimer = 0;
         }
@@ -456,17 +475,12 @@ public class PurpleBoss {
         
         // Fire bullets in expanding spiral
         if (attackTimer % 8 == 0) {
-            int bulletCount = 8 + (attackTimer / 30);
-            for (int i = 0; i < bulletCount; i++) {
-                double angle = spiralAngle + (i * Math.PI * 2 / bulletCount);
-                spiralBullets.add(new EnemyProjectile(x, y, angle, 4, Color.MAGENTA, 1));
-            }
+            SPIRALS[Math.min(attackTimer / 30, SPIRALS.length - 1)].fire(spiralBullets, x, y, spiralAngle);
             spiralAngle += 0.2; // Rotate spiral
         }
 
         if (attackTimer >= SPIRAL_DURATION) {
             // End spiral attack and transition immediately
-            System.out.println("PurpleBoss: spiral complete, advancing state");
             spiralAngle = 0;
             persistentBeams.clear();
             // Advance to next state
@@ -476,7 +490,15 @@ public class PurpleBoss {
         }
     }
 
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles) {
+    // Moves by any fraction of a pixel; the part that doesn't show yet is kept for the next move
+    private void moveBy(double dx, double dy) {
+        fixedX = Fixed.follow(fixedX, x) + Fixed.of(dx);
+        fixedY = Fixed.follow(fixedY, y) + Fixed.of(dy);
+        x = Fixed.toInt(fixedX);
+        y = Fixed.toInt(fixedY);
+    }
+
+    public void spawnProjectiles(ShotBuffer projectiles) {
         projectiles.addAll(spiralBullets);
         spiralBullets.clear();
     }
@@ -491,26 +513,22 @@ public class PurpleBoss {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        // First check body collision
-        if (Math.abs(x - px) < 40 && Math.abs(y - py) < 40) return true;
-        // Then check persistent rotating beams for contact damage
-        for (RotatingBeam beam : persistentBeams) {
-            if (beam.checkCollision(px, py)) return true;
-        }
-        // Then check regular timed beams
-        for (Beam b : beams) {
-            try {
-                if (b.checkCollision(px, py)) return true;
-            } catch (Exception ex) {
-                // in case beam lacks method or errors, ignore
-            }
-        }
-        return false;
+    // The body plus both kinds of beam; shots that land in a beam damage the boss too
+    public void addCollider(CollisionSystem collisions) {
+        collisions.addBox(CollisionSystem.PURPLE_BOSS, 0, prevX, prevY, x, y, HALF_SIZE, HALF_SIZE);
+        collisions.addBeams(CollisionSystem.PURPLE_BOSS_BEAM, 0, beams);
+        collisions.addRotatingBeams(CollisionSystem.PURPLE_BOSS_BEAM, 0, persistentBeams);
     }
 
     public int getHP() { return hp; }
     public int getMaxHP() { return maxHp; }
+    public int getAttackState() { return attackState; }
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public ArrayList<Beam> getBeams() { return beams; }
+    public ArrayList<RotatingBeam> getRotatingBeams() { return persistentBeams; }
 
     public void draw(Graphics2D g) {
         
@@ -523,11 +541,7 @@ public class PurpleBoss {
 
         // Draw persistent rotating beams (spawned during beam spin)
         for (RotatingBeam beam : persistentBeams) {
-            try {
-                beam.draw(g);
-            } catch (Exception ex) {
-                // ignore drawing errors for safety
-            }
+            beam.draw(g);
         }
 
         // Draw dash trail (older positions = more faded and smaller)
@@ -536,7 +550,7 @@ public class PurpleBoss {
                 int[] pos = dashTrail.get(i);
                 // Alpha increases toward end of trail (newer = brighter)
                 float alpha = (float) (i + 1) / (dashTrail.size() + 1) * 0.8f;
-                g.setColor(new Color(1f, 0f, 1f, alpha));
+                g.setColor(Colors.fade(DASH_TRAIL, alpha));
                 // Size matches boss body (80 pixel diameter), decreases toward start of trail
                 int size = 20 + (dashTrail.size() - i) * 2;
                 g.fillOval(pos[0] - size / 2, pos[1] - size / 2, size, size);
@@ -545,18 +559,17 @@ public class PurpleBoss {
 
         // Draw shield if active (full semi-transparent circle)
         if (shieldActive) {
-            float alpha = 0.4f;
-            g.setColor(new Color(0f, 0.6f, 1f, alpha));
+            g.setColor(SHIELD_FILL);
             g.fillOval(x - SHIELD_SIZE / 2, y - SHIELD_SIZE / 2, SHIELD_SIZE, SHIELD_SIZE);
-            g.setColor(new Color(0f, 0.8f, 1f, 0.7f));
-            g.setStroke(new BasicStroke(3));
+            g.setColor(SHIELD_RING);
+            g.setStroke(THICK);
             g.drawOval(x - SHIELD_SIZE / 2, y - SHIELD_SIZE / 2, SHIELD_SIZE, SHIELD_SIZE);
         }
 
         // Draw highlight effect during dash charge
         if (attackState == 2 && dashHighlightTimer > 0) {
             float progress = (float) dashHighlightTimer / DASH_HIGHLIGHT_DURATION;
-            g.setColor(new Color(1f, 1f, 0f, 0.3f * progress));
+            g.setColor(Colors.fade(DASH_HIGHLIGHT, 0.3f * progress));
             int highlightSize = 80 + (int)(progress * 20);
             g.fillOval(x - highlightSize / 2, y - highlightSize / 2, highlightSize, highlightSize);
         }
@@ -572,14 +585,14 @@ public class PurpleBoss {
         }
 
         // Giant spiked purple circle
-        g.setColor(new Color(150, 0, 150));
+        g.setColor(BODY);
         g.fillOval(x - 40, y - 40, 80, 80);
         g.setColor(Color.MAGENTA);
-        g.setStroke(new BasicStroke(3));
+        g.setStroke(THICK);
         g.drawOval(x - 40, y - 40, 80, 80);
 
         // Draw spikes around the circle (12 triangle spikes)
-        g.setColor(new Color(200, 50, 200));
+        g.setColor(SPIKE);
         for (int i = 0; i < 12; i++) {
             double angle = (i * Math.PI * 2 / 12);
             int centerX = x + (int) (Math.cos(angle) * 45);
@@ -595,12 +608,13 @@ public class PurpleBoss {
             int rightY = centerY - (int) (Math.sin(perpAngle) * 12);
             
             // Fill spike triangle
-            int[] xPoints = {leftX, rightX, tipX};
-            int[] yPoints = {leftY, rightY, tipY};
-            g.fillPolygon(xPoints, yPoints, 3);
+            spike.xpoints[0] = leftX; spike.xpoints[1] = rightX; spike.xpoints[2] = tipX;
+            spike.ypoints[0] = leftY; spike.ypoints[1] = rightY; spike.ypoints[2] = tipY;
+            spike.invalidate();
+            g.fill(spike);
             g.setColor(Color.MAGENTA);
-            g.drawPolygon(xPoints, yPoints, 3);
-            g.setColor(new Color(200, 50, 200));
+            g.draw(spike);
+            g.setColor(SPIKE);
         }
 
         g.setTransform(oldTransform);
@@ -610,10 +624,10 @@ public class PurpleBoss {
             float progress = (20 - dashFinishTimer) / 20.0f;
             int cueSize = 80 + (int)(progress * 80);
             float alpha = 0.8f * (1.0f - progress);
-            g.setColor(new Color(1f, 0.9f, 0.4f, alpha));
+            g.setColor(Colors.fade(DASH_FINISH, alpha));
             g.fillOval(x - cueSize / 2, y - cueSize / 2, cueSize, cueSize);
-            g.setColor(new Color(1f, 0.9f, 0.4f, Math.min(0.9f, alpha + 0.2f)));
-            g.setStroke(new BasicStroke(3));
+            g.setColor(Colors.fade(DASH_FINISH, Math.min(0.9f, alpha + 0.2f)));
+            g.setStroke(THICK);
             g.drawOval(x - cueSize / 2, y - cueSize / 2, cueSize, cueSize);
         }
 
@@ -622,10 +636,10 @@ public class PurpleBoss {
             float prog = rotatingBeamCueTimer / 60.0f;
             float alpha = 0.7f * prog;
             int cueSize = 120 + (int)((1.0f - prog) * 60);
-            g.setColor(new Color(1f, 0f, 1f, alpha));
+            g.setColor(Colors.fade(DASH_TRAIL, alpha));
             g.fillOval(x - cueSize / 2, y - cueSize / 2, cueSize, cueSize);
-            g.setColor(new Color(1f, 0f, 1f, Math.min(0.95f, alpha + 0.2f)));
-            g.setStroke(new BasicStroke(3));
+            g.setColor(Colors.fade(DASH_TRAIL, Math.min(0.95f, alpha + 0.2f)));
+            g.setStroke(THICK);
             g.drawOval(x - cueSize / 2, y - cueSize / 2, cueSize, cueSize);
         }
 
@@ -634,7 +648,7 @@ public class PurpleBoss {
             float prog = (float) wallHitTimer / 12.0f;
             float alpha = 0.9f * prog;
             int size = 40 + (int) ((1.0f - prog) * 80);
-            g.setColor(new Color(0.4f, 0.9f, 1f, alpha));
+            g.setColor(Colors.fade(WALL_HIT, alpha));
             g.fillOval(wallHitX - size / 2, wallHitY - size / 2, size, size);
         }
 
@@ -645,5 +659,94 @@ public class PurpleBoss {
         // This method exists for compatibility with Beam interface expectations
     }
 
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(fixedX);
+        out.writeInt(fixedY);
+        out.writeInt(hp);
+        out.writeInt(maxHp);
+        out.writeInt(attackState);
+        out.writeInt(attackTimer);
+        out.writeInt(stateTransitionTimer);
+        out.writeInt(screenWidth);
+        out.writeInt(screenHeight);
+        out.writeInt(dashAttackQueue.size());
+        out.writeInt(dashDashCount);
+        out.writeInt(dashTimer);
+        out.writeDouble(dashAngle);
+        out.writeDouble(dashSpeed);
+        out.writeInt(dashBounces);
+        out.writeInt(wallHitTimer);
+        out.writeInt(wallHitX);
+        out.writeInt(wallHitY);
+        out.writeInt(currentDashAllowedBounces);
+        out.writeInt(currentDashMaxFrames);
+        out.writeDouble(spiralAngle);
+        out.writeBoolean(shieldActive);
+        out.writeInt(shieldTimer);
+        out.writeInt(beamSpamCounter);
+        out.writeDouble(beamSpamAngle);
+        out.writeInt(dashHighlightTimer);
+        out.writeDouble(beamRotationAngle);
+        out.writeDouble(bossRotation);
+        out.writeInt(dashFinishTimer);
+        out.writeInt(rotatingBeamCueTimer);
+        RunSnapshot.writeTrail(out, dashTrail);
+        RunSnapshot.writeList(out, beams, Beam::writeState);
+        RunSnapshot.writeList(out, persistentBeams, RotatingBeam::writeState);
+        spiralBullets.writeState(out);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        fixedX = in.readInt();
+        fixedY = in.readInt();
+        prevX = x;
+        prevY = y;
+        hp = in.readInt();
+        maxHp = in.readInt();
+        attackState = in.readInt();
+        attackTimer = in.readInt();
+        stateTransitionTimer = in.readInt();
+        screenWidth = in.readInt();
+        screenHeight = in.readInt();
+        // The queue only ever holds its own indices, so its length is all that matters
+        int queued = in.readInt();
+        dashAttackQueue.clear();
+        for (int i = 0; i < queued; i++) {
+            dashAttackQueue.add(i);
+        }
+        dashDashCount = in.readInt();
+        dashTimer = in.readInt();
+        dashAngle = in.readDouble();
+        dashSpeed = in.readDouble();
+        dashBounces = in.readInt();
+        wallHitTimer = in.readInt();
+        wallHitX = in.readInt();
+        wallHitY = in.readInt();
+        currentDashAllowedBounces = in.readInt();
+        currentDashMaxFrames = in.readInt();
+        spiralAngle = in.readDouble();
+        shieldActive = in.readBoolean();
+        shieldTimer = in.readInt();
+        beamSpamCounter = in.readInt();
+        beamSpamAngle = in.readDouble();
+        dashHighlightTimer = in.readInt();
+        beamRotationAngle = in.readDouble();
+        bossRotation = in.readDouble();
+        dashFinishTimer = in.readInt();
+        rotatingBeamCueTimer = in.readInt();
+        RunSnapshot.readTrail(in, dashTrail);
+        RunSnapshot.readList(in, beams, Beam::new, Beam::readState);
+        RunSnapshot.readList(in, persistentBeams, RotatingBeam::new, RotatingBeam::readState);
+        spiralBullets.readState(in);
+        random.setState(in.readLong());
+    }
+
     // Using external RotatingBeam class (RotatingBeam.java)
 }
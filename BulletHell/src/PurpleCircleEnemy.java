@@ -1,8 +1,20 @@
 import java.awt.*;
 import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class PurpleCircleEnemy {
+    private static final int HALF_SIZE = 25; // the hit box is 2 * HALF_SIZE square
+    private static final Color BODY = new Color(128, 0, 128);
+    private static final Stroke OUTLINE_STROKE = new BasicStroke(2);
+    private static final Stroke WARNING_STROKE = new BasicStroke(1);
+    private static final Color[] WARNING_FILL = Colors.alphaRamp(new Color(1f, 0.4f, 1f));
+    private static final Color[] WARNING_RING = Colors.alphaRamp(Color.MAGENTA);
+
     private int x, y;
+    private int fixedX, fixedY; // 16.16 position (see Fixed); x and y are it rounded
+    private int handle; // from EntityHandles; 0 until the first collision pass
     private int hp = 5;
     private int rotationState = 0; // 0 = spinning fast, 1 = spinning slow, 2 = firing
     private int rotationTimer = 0;
@@ -11,7 +23,8 @@ public class PurpleCircleEnemy {
     private int fireTimer = 0;
     private ArrayList<int[]> beamPositions;
     private ArrayList<Beam> beams;
-    private ArrayList<EnemyProjectile> visualParticles;
+    private boolean beamsToAnnounce; // beams spawned by update() that announceBeams() hasn't reported
+    private ShotBuffer visualParticles;
     private int targetX, targetY;
     private int moveTimer = 0;
     private static final int MOVE_CHANGE_INTERVAL = 180; // change target every 3s
@@ -19,15 +32,19 @@ public class PurpleCircleEnemy {
     private static final int SPIN_SLOW_DURATION = 120; // 2 seconds - more warning before firing
     private static final int RADIUS = 60; // Distance of beams from center
     private int screenWidth, screenHeight;
+    private final GameRandom random;
 
-    public PurpleCircleEnemy(int x, int y, int screenWidth, int screenHeight) {
+    public PurpleCircleEnemy(int x, int y, int screenWidth, int screenHeight, GameRandom random) {
         this.x = x;
         this.y = y;
+        this.fixedX = Fixed.of(x);
+        this.fixedY = Fixed.of(y);
+        this.random = random;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
         this.beamPositions = new ArrayList<>();
         this.beams = new ArrayList<>();
-        this.visualParticles = new ArrayList<>();
+        this.visualParticles = new ShotBuffer();
         this.targetX = x;
         this.targetY = y;
         initializeBeamPositions();
@@ -61,15 +78,14 @@ public class PurpleCircleEnemy {
         moveTimer++;
         if (moveTimer >= MOVE_CHANGE_INTERVAL) {
             moveTimer = 0;
-            targetX = 100 + (int)(Math.random() * (width - 200));
-            targetY = 100 + (int)(Math.random() * (height - 200));
+            targetX = 100 + (int)(random.nextDouble() * (width - 200));
+            targetY = 100 + (int)(random.nextDouble() * (height - 200));
         }
         double mdx = targetX - x;
         double mdy = targetY - y;
         double mdist = Math.sqrt(mdx*mdx + mdy*mdy);
         if (mdist > 1) {
-            x += (int)(mdx / mdist * 1.5);
-            y += (int)(mdy / mdist * 1.5);
+            moveBy(mdx / mdist * 1.5, mdy / mdist * 1.5);
         }
         rotationTimer++;
 
@@ -81,7 +97,7 @@ public class PurpleCircleEnemy {
                 rotationTimer = 0;
                 rotationSpeed = 0.02; // Slow down gradually
                 // Randomize rotation for next cycle so beams fire in different directions
-                beamRotation += Math.random() * Math.PI * 2;
+                beamRotation += random.nextDouble() * Math.PI * 2;
             }
         } else if (rotationState == 1) {
             // Slow spinning (always spin regardless of slowField)
@@ -93,18 +109,19 @@ public class PurpleCircleEnemy {
                 rotationTimer = 0;
                 // Spawn beams at the current circle positions after spinning
                 beams.clear();
+                beamsToAnnounce = true;
                 beamCount = beamPositions.size();
                 for (int i = 0; i < beamCount; i++) {
                     int beamX = beamPositions.get(i)[0];
                     int beamY = beamPositions.get(i)[1];
                     double angle = beamRotation + (i * Math.PI * 2 / beamCount);
-                    Beam beam = new Beam(beamX, beamY, screenWidth, screenHeight, angle);
+                    Beam beam = new Beam(beamX, beamY, screenWidth, screenHeight, angle, false);
                     beams.add(beam);
                     // Add visual particle streaks for improved beam visuals
                     for (int p = 0; p < 6; p++) {
-                        double pa = angle + (Math.random() - 0.5) * 0.2;
-                        int psz = 2 + (int)(Math.random() * 3);
-                        visualParticles.add(new EnemyProjectile(beamX, beamY, pa, psz, new Color(200, 50, 200), 0));
+                        double pa = angle + (random.nextDouble() - 0.5) * 0.2;
+                        int psz = 2 + (int)(random.nextDouble() * 3);
+                        visualParticles.fire(beamX, beamY, pa, psz, new Color(200, 50, 200), 0);
                     }
                 }
             }
@@ -133,7 +150,25 @@ public class PurpleCircleEnemy {
         }
     }
 
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles) {
+    // Moves by any fraction of a pixel; the part that doesn't show yet is kept for the next move
+    private void moveBy(double dx, double dy) {
+        fixedX = Fixed.follow(fixedX, x) + Fixed.of(dx);
+        fixedY = Fixed.follow(fixedY, y) + Fixed.of(dy);
+        x = Fixed.toInt(fixedX);
+        y = Fixed.toInt(fixedY);
+    }
+
+    // Reports the beams the last update() spawned. update() may run on a ParallelAi worker, so this
+    // is left to the game thread.
+    public void announceBeams() {
+        if (!beamsToAnnounce) return;
+        beamsToAnnounce = false;
+        for (int i = 0; i < beams.size(); i++) {
+            beams.get(i).announce();
+        }
+    }
+
+    public void spawnProjectiles(ShotBuffer projectiles) {
         // Fire projectiles when beams finish flashing
         int beamCount = beamPositions.size();
         for (int i = 0; i < beams.size(); i++) {
@@ -144,7 +179,7 @@ public class PurpleCircleEnemy {
                 int beamX = beamPositions.get(i)[0];
                 int beamY = beamPositions.get(i)[1];
                 // Fire projectile in beam direction
-                projectiles.add(new EnemyProjectile(beamX, beamY, angle, 4, Color.MAGENTA, 1));
+                projectiles.fire(beamX, beamY, angle, 4, Color.MAGENTA, 1);
             }
         }
         // Also add visual particles produced when beams spawned
@@ -162,8 +197,10 @@ public class PurpleCircleEnemy {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 25 && Math.abs(y - py) < 25;
+    // The body and its damaging beams; the beams carry the same index so a hit can be traced back
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.PURPLE_CIRCLE, index, x, y, x, y, HALF_SIZE, HALF_SIZE);
+        collisions.addBeams(CollisionSystem.PURPLE_CIRCLE_BEAM, index, beams);
     }
 
     public void draw(Graphics2D g) {
@@ -173,10 +210,10 @@ public class PurpleCircleEnemy {
         }
         
         // Draw purple circle
-        g.setColor(new Color(128, 0, 128));
+        g.setColor(BODY);
         g.fillOval(x - 25, y - 25, 50, 50);
         g.setColor(Color.MAGENTA);
-        g.setStroke(new BasicStroke(2));
+        g.setStroke(OUTLINE_STROKE);
         g.drawOval(x - 25, y - 25, 50, 50);
 
         // Draw beam warnings during spinning/slow phases (enhanced visuals)
@@ -184,11 +221,11 @@ public class PurpleCircleEnemy {
             for (int idx = 0; idx < beamPositions.size(); idx++) {
                 int[] pos = beamPositions.get(idx);
                 float alpha = 0.5f + (float)Math.abs(Math.sin(rotationTimer * 0.05)) * 0.4f;
-                g.setColor(new Color(1f, 0.4f, 1f, Math.min(0.9f, alpha)));
+                g.setColor(Colors.fade(WARNING_FILL, Math.min(0.9f, alpha)));
                 int size = 12 + (idx % 2) * 6;
                 g.fillOval(pos[0] - size/2, pos[1] - size/2, size, size);
-                g.setColor(new Color(1f, 0f, 1f, Math.min(0.95f, alpha + 0.1f)));
-                g.setStroke(new BasicStroke(1));
+                g.setColor(Colors.fade(WARNING_RING, Math.min(0.95f, alpha + 0.1f)));
+                g.setStroke(WARNING_STROKE);
                 g.drawOval(pos[0] - size/2, pos[1] - size/2, size, size);
             }
         }
@@ -202,6 +239,54 @@ public class PurpleCircleEnemy {
         return beams;
     }
 
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(fixedX);
+        out.writeInt(fixedY);
+        out.writeInt(hp);
+        out.writeInt(rotationState);
+        out.writeInt(rotationTimer);
+        out.writeDouble(beamRotation);
+        out.writeDouble(rotationSpeed);
+        out.writeInt(fireTimer);
+        out.writeInt(targetX);
+        out.writeInt(targetY);
+        out.writeInt(moveTimer);
+        out.writeInt(screenWidth);
+        out.writeInt(screenHeight);
+        RunSnapshot.writeTrail(out, beamPositions);
+        RunSnapshot.writeList(out, beams, Beam::writeState);
+        visualParticles.writeState(out);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        fixedX = in.readInt();
+        fixedY = in.readInt();
+        hp = in.readInt();
+        rotationState = in.readInt();
+        rotationTimer = in.readInt();
+        beamRotation = in.readDouble();
+        rotationSpeed = in.readDouble();
+        fireTimer = in.readInt();
+        targetX = in.readInt();
+        targetY = in.readInt();
+        moveTimer = in.readInt();
+        screenWidth = in.readInt();
+        screenHeight = in.readInt();
+        RunSnapshot.readTrail(in, beamPositions);
+        RunSnapshot.readList(in, beams, Beam::new, Beam::readState);
+        visualParticles.readState(in);
+        random.setState(in.readLong());
+    }
 }
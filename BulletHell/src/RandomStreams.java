@@ -0,0 +1,55 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+// Per-world random service. Every subsystem draws from its own stream so that, for example,
+// an extra loot roll never shifts enemy spawn positions. The same seed and the same inputs
+// always produce the same run.
+public class RandomStreams {
+    private final long seed;
+    private final GameRandom spawn;
+    private final GameRandom ai;
+    private final GameRandom loot;
+    private final GameRandom cosmetic;
+
+    public RandomStreams(long seed) {
+        this.seed = seed;
+        GameRandom seeder = new GameRandom(seed);
+        this.spawn = seeder.fork();
+        this.ai = seeder.fork();
+        this.loot = seeder.fork();
+        this.cosmetic = seeder.fork();
+    }
+
+    public static long newSeed() {
+        return System.nanoTime() ^ 0x5DEECE66DL;
+    }
+
+    public long getSeed() { return seed; }
+
+    // Spawn positions and wave composition
+    public GameRandom spawn() { return spawn; }
+
+    // Drop rolls and upgrade offers
+    public GameRandom loot() { return loot; }
+
+    // Particles and other effects that don't belong to an entity
+    public GameRandom cosmetic() { return cosmetic; }
+
+    // Each entity gets its own AI stream when it's created, so entity updates never share state
+    public GameRandom forkAi() { return ai.fork(); }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeLong(spawn.getState());
+        out.writeLong(ai.getState());
+        out.writeLong(loot.getState());
+        out.writeLong(cosmetic.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        spawn.setState(in.readLong());
+        ai.setState(in.readLong());
+        loot.setState(in.readLong());
+        cosmetic.setState(in.readLong());
+    }
+}
@@ -1,9 +1,25 @@
 import java.awt.*;
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class RedTriangleEnemy {
+    private static final int HALF_SIZE = 18; // the hit box is 2 * HALF_SIZE square
+    private static final Color[] WARNING = Colors.alphaRamp(new Color(1f, 0.3f, 0.3f));
+    private static final Color[] VANISH_FILL = Colors.alphaRamp(new Color(1f, 0.2f, 0.2f));
+    private static final Color[] VANISH_RING = Colors.alphaRamp(new Color(0.6f, 0.1f, 0.1f));
+    private static final Stroke OUTLINE_STROKE = new BasicStroke(2);
+    // Drawn when there's no sprite, about the origin and pointing up
+    private static final Polygon FALLBACK_SHAPE = new Polygon(new int[] {0, -12, 12}, new int[] {-14, 12, 12}, 3);
+    private static final Color SPIN_FILL = new Color(200, 40, 40);
+    private static final Color SPIN_OUTLINE = new Color(120, 20, 20);
+    private static final Color DASH_FILL = new Color(220, 60, 60);
+    private static final Color DASH_OUTLINE = new Color(140, 30, 30);
+
     private int x, y;
-    private double posX, posY;
+    private int handle; // from EntityHandles; 0 until the first collision pass
+    private int prevX, prevY; // position before this tick's move
+    private int fixedX, fixedY; // 16.16 position the dash moves (see Fixed)
     private int hp = 2;
     private int state = 0; // 0=spinning,1=vanished+warning,2=dashing
     private double spinAngle = 0;
@@ -17,7 +33,7 @@ public class RedTriangleEnemy {
     private double currentSpeed = DASH_SPEED;
     private int bounceCount = 0;
     private static final int MAX_BOUNCES = 2;
-    private ArrayList<int[]> trailPositions;
+    private Trail trailPositions;
     private static final int TRAIL_MAX = 30;
     private int trailFade = 0;
     // vanish-circle visual
@@ -26,25 +42,31 @@ public class RedTriangleEnemy {
     // death/dying state after dash ends
     private int deathTimer = 0;
     private static final int DEATH_CIRCLE_DURATION = 24;
+    private final GameRandom random;
 
-    public RedTriangleEnemy(int x, int y) {
+    public RedTriangleEnemy(int x, int y, GameRandom random) {
         this.x = x;
         this.y = y;
-        this.posX = x;
-        this.posY = y;
-        this.trailPositions = new ArrayList<>();
+        this.prevX = x;
+        this.prevY = y;
+        this.random = random;
+        this.fixedX = Fixed.of(x);
+        this.fixedY = Fixed.of(y);
+        this.trailPositions = new Trail(TRAIL_MAX + 1);
         randomizeTimings();
     }
 
     private void randomizeTimings() {
         // spinDuration: base 50-90 frames
-        this.spinDuration = 50 + (int)(Math.random() * 40);
+        this.spinDuration = 50 + (int)(random.nextDouble() * 40);
         // vanishDuration: base 30-60 frames
-        this.vanishDuration = 30 + (int)(Math.random() * 30);
+        this.vanishDuration = 30 + (int)(random.nextDouble() * 30);
     }
 
     // update with player coordinates to pick respawn near player
     public void update(int width, int height, int playerX, int playerY, boolean isSlowed) {
+        prevX = x;
+        prevY = y;
         // if killed by damage, switch to death state to play circle
         if (hp <= 0 && state != 3) {
             state = 3;
@@ -60,8 +82,8 @@ public class RedTriangleEnemy {
                 state = 1;
                 vanishTimer = 0;
                 // respawn location near player
-                respawnX = playerX + (int)(Math.random() * 160 - 80);
-                respawnY = playerY + (int)(Math.random() * 120 - 60);
+                respawnX = playerX + (int)(random.nextDouble() * 160 - 80);
+                respawnY = playerY + (int)(random.nextDouble() * 120 - 60);
                 // record vanish location for a circle visual
                 vanishCircleX = x;
                 vanishCircleY = y;
@@ -74,8 +96,11 @@ public class RedTriangleEnemy {
                 x = respawnX;
                 y = respawnY;
                 // initialize precise position used by dash physics
-                posX = x;
-                posY = y;
+                fixedX = Fixed.of(x);
+                fixedY = Fixed.of(y);
+                // a teleport, not a move: nothing between here and the vanish point is swept
+                prevX = x;
+                prevY = y;
                 // reset dash motion state
                 currentSpeed = DASH_SPEED;
                 bounceCount = 0;
@@ -88,27 +113,29 @@ public class RedTriangleEnemy {
                 vanishCircleY = -1000;
             }
         } else if (state == 2) {
-            // dash quickly toward dashAngle using double positions for smooth movement
-            double nx = posX + Math.cos(dashAngle) * currentSpeed;
-            double ny = posY + Math.sin(dashAngle) * currentSpeed;
+            // dash quickly toward dashAngle in fixed point so no fraction of a pixel is lost
+            int nx = fixedX + Fixed.of(Math.cos(dashAngle) * currentSpeed);
+            int ny = fixedY + Fixed.of(Math.sin(dashAngle) * currentSpeed);
+            int minX = Fixed.of(10), maxX = Fixed.of(width - 10);
+            int minY = Fixed.of(10), maxY = Fixed.of(height - 10);
 
             // detect wall collisions and bounce back toward player if hit
             boolean hitWall = false;
-            if (nx < 10 || nx > width - 10) {
+            if (nx < minX || nx > maxX) {
                 hitWall = true;
             }
-            if (ny < 10 || ny > height - 10) {
+            if (ny < minY || ny > maxY) {
                 hitWall = true;
             }
 
             // update and clamp positions so dash starts/stays onscreen
-            posX = Math.max(10, Math.min(width - 10, nx));
-            posY = Math.max(10, Math.min(height - 10, ny));
-            x = (int) Math.round(posX);
-            y = (int) Math.round(posY);
+            fixedX = Math.max(minX, Math.min(maxX, nx));
+            fixedY = Math.max(minY, Math.min(maxY, ny));
+            x = Fixed.toInt(fixedX);
+            y = Fixed.toInt(fixedY);
 
-            trailPositions.add(new int[]{x, y});
-            if (trailPositions.size() > TRAIL_MAX) trailPositions.remove(0);
+            trailPositions.add(x, y);
+            if (trailPositions.size() > TRAIL_MAX) trailPositions.removeOldest();
             // fade timer to eventually remove enemy if offscreen or after trail
             trailFade++;
 
@@ -136,16 +163,19 @@ public class RedTriangleEnemy {
     }
 
     // Spawn local projectiles/particles to global list
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles, int playerX, int playerY) {
+    public void spawnProjectiles(ShotBuffer projectiles, int playerX, int playerY) {
         // Red triangle no longer spawns flying particles; visual circle is drawn directly in draw().
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 18 && Math.abs(y - py) < 18;
+    // Swept from last tick's position, since a dash covers more than its own width per tick
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.RED_TRIANGLE, index, prevX, prevY, x, y, HALF_SIZE, HALF_SIZE);
     }
 
     public void takeDamage(int d) { hp -= d; }
     public boolean isDead() { return hp <= 0 && state == 3 ? (deathTimer <= 0) : (state == 3 && deathTimer <= 0); }
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
 
@@ -165,19 +195,17 @@ public class RedTriangleEnemy {
                 java.awt.geom.AffineTransform t = g.getTransform();
                 g.translate(x, y);
                 g.rotate(spinAngle);
-                int[] xp = {0, -12, 12};
-                int[] yp = {-14, 12, 12};
-                g.setColor(new Color(200, 40, 40));
-                g.fillPolygon(xp, yp, 3);
-                g.setColor(new Color(120, 20, 20));
-                g.setStroke(new BasicStroke(2));
-                g.drawPolygon(xp, yp, 3);
+                g.setColor(SPIN_FILL);
+                g.fill(FALLBACK_SHAPE);
+                g.setColor(SPIN_OUTLINE);
+                g.setStroke(OUTLINE_STROKE);
+                g.draw(FALLBACK_SHAPE);
                 g.setTransform(t);
             }
         } else if (state == 1) {
             // draw nothing at original spot; draw warning at respawn
             float alpha = (float)(vanishTimer) / vanishDuration;
-            g.setColor(new Color(1f, 0.3f, 0.3f, Math.min(0.9f, alpha)));
+            g.setColor(Colors.fade(WARNING, Math.min(0.9f, alpha)));
             int size = 20 + (int)(alpha * 30);
             g.fillOval(respawnX - size/2, respawnY - size/2, size, size);
             // draw a short vanish-circle at the original vanish location
@@ -185,10 +213,10 @@ public class RedTriangleEnemy {
                 float vprog = (float)vanishTimer / (float)Math.max(1, vanishCircleDuration);
                 float valpha = Math.max(0f, 1f - vprog);
                 int vr = 12 + (int)(vprog * 36);
-                g.setColor(new Color(1f, 0.2f, 0.2f, valpha * 0.9f));
+                g.setColor(Colors.fade(VANISH_FILL, valpha * 0.9f));
                 g.fillOval(vanishCircleX - vr/2, vanishCircleY - vr/2, vr, vr);
-                g.setColor(new Color(0.6f, 0.1f, 0.1f, valpha));
-                g.setStroke(new BasicStroke(2));
+                g.setColor(Colors.fade(VANISH_RING, valpha));
+                g.setStroke(OUTLINE_STROKE);
                 g.drawOval(vanishCircleX - vr/2, vanishCircleY - vr/2, vr, vr);
             }
         } else if (state == 3) {
@@ -197,17 +225,17 @@ public class RedTriangleEnemy {
             float vprog = (float)v / (float)Math.max(1, DEATH_CIRCLE_DURATION);
             float valpha = Math.max(0f, 1f - vprog);
             int vr = 12 + (int)(vprog * 36);
-            g.setColor(new Color(1f, 0.2f, 0.2f, valpha * 0.95f));
+            g.setColor(Colors.fade(VANISH_FILL, valpha * 0.95f));
             g.fillOval(vanishCircleX - vr/2, vanishCircleY - vr/2, vr, vr);
-            g.setColor(new Color(0.6f, 0.1f, 0.1f, valpha));
-            g.setStroke(new BasicStroke(2));
+            g.setColor(Colors.fade(VANISH_RING, valpha));
+            g.setStroke(OUTLINE_STROKE);
             g.drawOval(vanishCircleX - vr/2, vanishCircleY - vr/2, vr, vr);
         } else if (state == 2) {
             // draw trail
             for (int i = 0; i < trailPositions.size(); i++) {
                 int[] pos = trailPositions.get(i);
                 float a = (float)i / trailPositions.size();
-                g.setColor(new Color(1f, 0.2f, 0.2f, a));
+                g.setColor(Colors.fade(VANISH_FILL, a));
                 int s = 12 - (i * 10 / Math.max(1, trailPositions.size()));
                 g.fillRect(pos[0] - s/2, pos[1] - s/2, s, s);
             }
@@ -215,24 +243,78 @@ public class RedTriangleEnemy {
             if (sprite != null) {
                 java.awt.geom.AffineTransform t = g.getTransform();
                 // draw using rounded pos for smoother rotation when dashing
-                g.translate((int)Math.round(posX), (int)Math.round(posY));
+                g.translate(Fixed.toInt(fixedX), Fixed.toInt(fixedY));
                 g.rotate(dashAngle + Math.PI/2);
                 g.drawImage(sprite, -20, -20, 40, 40, null);
                 g.setTransform(t);
             } else {
                 // fallback red triangle when no sprite loaded
                 java.awt.geom.AffineTransform t = g.getTransform();
-                g.translate((int)Math.round(posX), (int)Math.round(posY));
+                g.translate(Fixed.toInt(fixedX), Fixed.toInt(fixedY));
                 g.rotate(dashAngle + Math.PI/2);
-                int[] xp = {0, -12, 12};
-                int[] yp = {-14, 12, 12};
-                g.setColor(new Color(220, 60, 60));
-                g.fillPolygon(xp, yp, 3);
-                g.setColor(new Color(140, 30, 30));
-                g.setStroke(new BasicStroke(2));
-                g.drawPolygon(xp, yp, 3);
+                g.setColor(DASH_FILL);
+                g.fill(FALLBACK_SHAPE);
+                g.setColor(DASH_OUTLINE);
+                g.setStroke(OUTLINE_STROKE);
+                g.draw(FALLBACK_SHAPE);
                 g.setTransform(t);
             }
         }
     }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(fixedX);
+        out.writeInt(fixedY);
+        out.writeInt(hp);
+        out.writeInt(state);
+        out.writeDouble(spinAngle);
+        out.writeInt(spinTimer);
+        out.writeInt(spinDuration);
+        out.writeInt(vanishTimer);
+        out.writeInt(vanishDuration);
+        out.writeInt(respawnX);
+        out.writeInt(respawnY);
+        out.writeDouble(dashAngle);
+        out.writeDouble(currentSpeed);
+        out.writeInt(bounceCount);
+        out.writeInt(trailFade);
+        out.writeInt(vanishCircleX);
+        out.writeInt(vanishCircleY);
+        out.writeInt(vanishCircleDuration);
+        out.writeInt(deathTimer);
+        RunSnapshot.writeTrail(out, trailPositions);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        prevX = x;
+        prevY = y;
+        fixedX = in.readInt();
+        fixedY = in.readInt();
+        hp = in.readInt();
+        state = in.readInt();
+        spinAngle = in.readDouble();
+        spinTimer = in.readInt();
+        spinDuration = in.readInt();
+        vanishTimer = in.readInt();
+        vanishDuration = in.readInt();
+        respawnX = in.readInt();
+        respawnY = in.readInt();
+        dashAngle = in.readDouble();
+        currentSpeed = in.readDouble();
+        bounceCount = in.readInt();
+        trailFade = in.readInt();
+        vanishCircleX = in.readInt();
+        vanishCircleY = in.readInt();
+        vanishCircleDuration = in.readInt();
+        deathTimer = in.readInt();
+        RunSnapshot.readTrail(in, trailPositions);
+        random.setState(in.readLong());
+    }
 }
@@ -0,0 +1,204 @@
+import java.io.*;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// A recorded run: the seed and starting wave, every tick's input, and a RunSnapshot keyframe
+// every few seconds so playback can seek without simulating from tick 0.
+public class Replay {
+    private static final String REPLAY_DIR = "replays";
+    private static final int MAGIC = 0x42485250; // "BHRP"
+    private static final int VERSION = 1;
+    // Ten seconds of play between keyframes
+    private static final int KEYFRAME_INTERVAL = 600;
+
+    private static final ExecutorService ioThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "replay-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final long seed;
+    private final int startingWave;
+    private final InputLog log;
+    private final ArrayList<Keyframe> keyframes = new ArrayList<>();
+
+    private static class Keyframe {
+        int tick;
+        int offset; // byte offset of this tick's input in the log
+        InputFrame deltaState = new InputFrame();
+        byte[] snapshot;
+    }
+
+    public Replay(long seed, int startingWave) {
+        this(seed, startingWave, new InputLog());
+    }
+
+    private Replay(long seed, int startingWave, InputLog log) {
+        this.seed = seed;
+        this.startingWave = startingWave;
+        this.log = log;
+    }
+
+    // A replay that starts from a captured world rather than the start of a run. The log must
+    // have been recorded from that world, starting with an empty delta state.
+    public static Replay fromSnapshot(long seed, int wave, byte[] snapshot, InputLog log) {
+        Replay replay = new Replay(seed, wave, log);
+        Keyframe keyframe = new Keyframe();
+        keyframe.snapshot = snapshot;
+        replay.keyframes.add(keyframe);
+        return replay;
+    }
+
+    // Called by the live game before it steps with this input
+    public void record(GamePanel panel, InputFrame frame) {
+        if (log.frameCount() % KEYFRAME_INTERVAL == 0) {
+            Keyframe keyframe = new Keyframe();
+            keyframe.tick = log.frameCount();
+            keyframe.offset = log.length();
+            keyframe.deltaState.copyFrom(log.lastFrame());
+            keyframe.snapshot = RunSnapshot.capture(panel);
+            keyframes.add(keyframe);
+        }
+        log.append(frame);
+    }
+
+    public long getSeed() { return seed; }
+    public int getStartingWave() { return startingWave; }
+    public int getTickCount() { return log.frameCount(); }
+
+    public Playback play(GamePanel panel) {
+        Playback playback = new Playback(panel);
+        playback.seek(0);
+        return playback;
+    }
+
+    // Feeds the recorded input back into a panel one tick at a time
+    public class Playback {
+        private final GamePanel panel;
+        private final InputLog.Reader reader = log.new Reader();
+        private final InputFrame frame = new InputFrame();
+        private int tick = -1;
+
+        private Playback(GamePanel panel) {
+            this.panel = panel;
+        }
+
+        public int getTick() { return tick; }
+
+        public boolean isFinished() {
+            return !reader.hasNext();
+        }
+
+        public boolean step() {
+            if (!reader.hasNext()) {
+                return false;
+            }
+            reader.next(frame);
+            panel.step(frame);
+            tick++;
+            return true;
+        }
+
+        // Jump to the nearest keyframe at or before the target and simulate forward from there
+        public void seek(int targetTick) {
+            if (keyframes.isEmpty()) {
+                return;
+            }
+            targetTick = Math.max(0, Math.min(targetTick, getTickCount()));
+            Keyframe keyframe = keyframes.get(0);
+            for (Keyframe k : keyframes) {
+                if (k.tick <= targetTick) keyframe = k;
+            }
+            if (tick < 0 || targetTick < tick || keyframe.tick > tick) {
+                if (!RunSnapshot.restore(panel, keyframe.snapshot)) {
+                    throw new IllegalStateException("Replay keyframe at tick " + keyframe.tick + " is unreadable");
+                }
+                reader.seek(keyframe.offset, keyframe.deltaState);
+                tick = keyframe.tick;
+            }
+            while (tick < targetTick && step()) {
+                // Simulate up to the target
+            }
+        }
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(log.length() + 64 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(seed);
+            out.writeInt(startingWave);
+            out.writeInt(log.frameCount());
+            out.writeInt(log.length());
+            out.write(log.data(), 0, log.length());
+            out.writeInt(keyframes.size());
+            for (Keyframe k : keyframes) {
+                out.writeInt(k.tick);
+                out.writeInt(k.offset);
+                out.writeInt(k.deltaState.keyBits);
+                out.writeInt(k.deltaState.mouseX);
+                out.writeInt(k.deltaState.mouseY);
+                out.writeInt(k.deltaState.width);
+                out.writeInt(k.deltaState.height);
+                out.writeInt(k.snapshot.length);
+                out.write(k.snapshot);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static Replay load(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a replay file: " + path);
+            }
+            long seed = in.readLong();
+            int startingWave = in.readInt();
+            int frameCount = in.readInt();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            Replay replay = new Replay(seed, startingWave, new InputLog(data, data.length, frameCount));
+            int keyframeCount = in.readInt();
+            for (int i = 0; i < keyframeCount; i++) {
+                Keyframe k = new Keyframe();
+                k.tick = in.readInt();
+                k.offset = in.readInt();
+                k.deltaState.keyBits = in.readInt();
+                k.deltaState.mouseX = in.readInt();
+                k.deltaState.mouseY = in.readInt();
+                k.deltaState.width = in.readInt();
+                k.deltaState.height = in.readInt();
+                k.snapshot = new byte[in.readInt()];
+                in.readFully(k.snapshot);
+                replay.keyframes.add(k);
+            }
+            return replay;
+        }
+    }
+
+    // Serialize on the calling thread, write on the I/O thread
+    public static void saveAsync(Replay replay) {
+        if (replay.getTickCount() == 0) {
+            return;
+        }
+        byte[] data = replay.toBytes();
+        String name = "run-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".bhr";
+        ioThread.execute(() -> {
+            try {
+                Path dir = Paths.get(REPLAY_DIR);
+                Files.createDirectories(dir);
+                Files.write(dir.resolve(name), data);
+            } catch (IOException e) {
+                // Silently fail; the replay is a debugging aid
+            }
+        });
+    }
+}
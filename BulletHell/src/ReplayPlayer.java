@@ -0,0 +1,80 @@
+import javax.swing.*;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+// Plays back a recorded run.
+//   java ReplayPlayer replays/run-....bhr             headless, as fast as possible
+//   java ReplayPlayer replays/run-....bhr --render    in a window at normal speed
+//   --seek <tick>                                     start playback from that tick
+public class ReplayPlayer {
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ReplayPlayer <replay file> [--render] [--seek <tick>]");
+            System.exit(2);
+        }
+        boolean render = false;
+        int seekTick = 0;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--render")) {
+                render = true;
+            } else if (args[i].equals("--seek") && i + 1 < args.length) {
+                seekTick = Integer.parseInt(args[++i]);
+            }
+        }
+
+        Replay replay = Replay.load(Paths.get(args[0]));
+        if (render) {
+            int startTick = seekTick;
+            SwingUtilities.invokeLater(() -> playRendered(replay, startTick));
+        } else {
+            playHeadless(replay, seekTick);
+        }
+    }
+
+    private static void playHeadless(Replay replay, int seekTick) {
+        // Replays never touch the real achievement profile
+        GamePanel panel = new GamePanel(new Achievements(false), replay.getStartingWave(), replay.getSeed());
+        long start = System.nanoTime();
+        Replay.Playback playback = replay.play(panel);
+        playback.seek(seekTick);
+        long seekNanos = System.nanoTime() - start;
+        while (playback.step()) {
+            // Run to the end as fast as possible
+        }
+        long totalNanos = System.nanoTime() - start;
+
+        // Checksum of the final world, to compare runs of the same replay
+        CRC32 crc = new CRC32();
+        crc.update(RunSnapshot.capture(panel));
+
+        int ticks = playback.getTick() - seekTick;
+        double seconds = totalNanos / 1e9;
+        System.out.printf("seed=%d startingWave=%d ticks=%d finalWave=%d%n",
+            replay.getSeed(), replay.getStartingWave(), replay.getTickCount(), panel.getWaveNumber());
+        System.out.printf("seek to %d: %.1f ms, total %.1f ms, %.0f ticks/s%n",
+            seekTick, seekNanos / 1e6, totalNanos / 1e6, ticks / Math.max(seconds, 1e-9));
+        System.out.printf("final state crc=%08x%n", crc.getValue());
+    }
+
+    private static void playRendered(Replay replay, int seekTick) {
+        GamePanel panel = new GamePanel(new Achievements(false), replay.getStartingWave(), replay.getSeed());
+        Replay.Playback playback = replay.play(panel);
+        playback.seek(seekTick);
+
+        JFrame frame = new JFrame("Bullet Hell Replay");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.add(panel);
+        frame.pack();
+        frame.setLocationRelativeTo(null);
+        frame.setVisible(true);
+
+        new Timer(1000 / 60, e -> {
+            if (playback.step()) {
+                panel.repaint();
+            } else {
+                ((Timer) e.getSource()).stop();
+                frame.setTitle("Bullet Hell Replay (finished at tick " + playback.getTick() + ")");
+            }
+        }).start();
+    }
+}
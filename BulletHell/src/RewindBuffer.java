@@ -0,0 +1,210 @@
+import java.awt.*;
+import java.nio.ByteBuffer;
+
+// The last few seconds of the world, kept so a death can be scrubbed back through.
+// Every tick goes into a fixed-size slot of one direct buffer allocated up front, so
+// recording costs the same memory for the whole run and never allocates on the heap.
+// Each slot is a list of entity records delta-encoded against the previous tick, with a
+// full keyframe every KEYFRAME_INTERVAL ticks to decode from.
+public class RewindBuffer {
+    public static final int SECONDS = 5;
+    private static final int SLOTS = SECONDS * 60;
+    private static final int KEYFRAME_INTERVAL = 30;
+    private static final int MAX_ENTITIES = 1500;
+
+    // Slot layout: short count, then count records
+    //   full:      byte type, short x, short y, byte state
+    //   moved:     byte MOVED, byte dx, byte dy         (same type and state as last tick)
+    //   unchanged: byte UNCHANGED
+    private static final int HEADER_BYTES = 2;
+    private static final int SLOT_BYTES = HEADER_BYTES + MAX_ENTITIES * 6;
+    private static final int MOVED = 0x80;
+    private static final int UNCHANGED = 0xC0;
+
+    // Entity types
+    public static final int PLAYER = 0;
+    public static final int ENEMY = 1;
+    public static final int TRIANGLE = 2;
+    public static final int GREEN_TRIANGLE = 3;
+    public static final int PURPLE_TRIANGLE = 4;
+    public static final int RED_TRIANGLE = 5;
+    public static final int PURPLE_CIRCLE = 6;
+    public static final int GREEN_CIRCLE = 7;
+    public static final int PLAYER_SHOT = 8;
+    public static final int ENEMY_SHOT = 9;
+    public static final int HEALING = 10;
+    public static final int BOSS = 11;
+    public static final int PURPLE_BOSS = 12;
+    public static final int BEAM_WARNING = 13; // state is the angle in 1/256ths of a turn
+    public static final int BEAM = 14;
+    public static final int ROTATING_BEAM = 15;
+
+    private static final Color[] TYPE_COLORS = {
+        Color.CYAN, Color.RED, Color.ORANGE, Color.GREEN, new Color(180, 100, 200), new Color(200, 40, 40),
+        Color.MAGENTA, new Color(60, 180, 80), Color.WHITE, Color.PINK, Color.GREEN, Color.RED,
+        new Color(150, 0, 150), new Color(255, 255, 0, 120), Color.YELLOW, new Color(0, 200, 255)
+    };
+    private static final int[] TYPE_SIZES = {
+        20, 30, 24, 24, 24, 24, 36, 36, 6, 8, 16, 80, 90, 0, 0, 0
+    };
+    private static final Stroke THIN = new BasicStroke(2);
+    private static final Stroke WIDE = new BasicStroke(12);
+
+    private final ByteBuffer slots = ByteBuffer.allocateDirect(SLOTS * SLOT_BYTES);
+
+    // Last written tick, for delta encoding
+    private final int[] prevType = new int[MAX_ENTITIES];
+    private final int[] prevX = new int[MAX_ENTITIES];
+    private final int[] prevY = new int[MAX_ENTITIES];
+    private final int[] prevState = new int[MAX_ENTITIES];
+    private int prevCount = 0;
+
+    // Tick being written
+    private int ticksWritten = 0;
+    private int slotStart;
+    private int writePos;
+    private int count;
+    private boolean keyframe;
+
+    // Decoded tick for review
+    private final int[] viewType = new int[MAX_ENTITIES];
+    private final int[] viewX = new int[MAX_ENTITIES];
+    private final int[] viewY = new int[MAX_ENTITIES];
+    private final int[] viewState = new int[MAX_ENTITIES];
+    private int viewCount = 0;
+
+    public void beginTick() {
+        slotStart = (ticksWritten % SLOTS) * SLOT_BYTES;
+        writePos = slotStart + HEADER_BYTES;
+        count = 0;
+        keyframe = ticksWritten % KEYFRAME_INTERVAL == 0;
+    }
+
+    public void add(int type, int x, int y, int state) {
+        if (count >= MAX_ENTITIES) return;
+        x = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, x));
+        y = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, y));
+        state &= 0xFF;
+        int i = count++;
+        if (!keyframe && i < prevCount && prevType[i] == type && prevState[i] == state) {
+            int dx = x - prevX[i];
+            int dy = y - prevY[i];
+            if (dx == 0 && dy == 0) {
+                slots.put(writePos++, (byte) UNCHANGED);
+                return;
+            }
+            if (dx >= -128 && dx <= 127 && dy >= -128 && dy <= 127) {
+                slots.put(writePos++, (byte) MOVED);
+                slots.put(writePos++, (byte) dx);
+                slots.put(writePos++, (byte) dy);
+                prevX[i] = x;
+                prevY[i] = y;
+                return;
+            }
+        }
+        slots.put(writePos++, (byte) type);
+        slots.putShort(writePos, (short) x);
+        slots.putShort(writePos + 2, (short) y);
+        writePos += 4;
+        slots.put(writePos++, (byte) state);
+        prevType[i] = type;
+        prevX[i] = x;
+        prevY[i] = y;
+        prevState[i] = state;
+    }
+
+    public void endTick() {
+        slots.putShort(slotStart, (short) count);
+        prevCount = count;
+        ticksWritten++;
+    }
+
+    public void clear() {
+        ticksWritten = 0;
+        prevCount = 0;
+        viewCount = 0;
+    }
+
+    // How many ticks back can be reviewed: the oldest slots are only decodable if their keyframe
+    // hasn't been overwritten yet
+    public int available() {
+        int oldest = Math.max(0, ticksWritten - SLOTS);
+        int firstKeyframe = (oldest + KEYFRAME_INTERVAL - 1) / KEYFRAME_INTERVAL * KEYFRAME_INTERVAL;
+        return Math.max(0, ticksWritten - firstKeyframe);
+    }
+
+    // Decode the tick ticksAgo before the newest one into the review view
+    public void seek(int ticksAgo) {
+        if (ticksWritten == 0) {
+            viewCount = 0;
+            return;
+        }
+        ticksAgo = Math.max(0, Math.min(available() - 1, ticksAgo));
+        int target = ticksWritten - 1 - ticksAgo;
+        for (int tick = target - target % KEYFRAME_INTERVAL; tick <= target; tick++) {
+            decodeSlot(tick);
+        }
+    }
+
+    private void decodeSlot(int tick) {
+        int pos = (tick % SLOTS) * SLOT_BYTES;
+        viewCount = slots.getShort(pos);
+        pos += HEADER_BYTES;
+        for (int i = 0; i < viewCount; i++) {
+            int tag = slots.get(pos++) & 0xFF;
+            if (tag == UNCHANGED) {
+                continue;
+            }
+            if (tag == MOVED) {
+                viewX[i] += slots.get(pos);
+                viewY[i] += slots.get(pos + 1);
+                pos += 2;
+                continue;
+            }
+            viewType[i] = tag;
+            viewX[i] = slots.getShort(pos);
+            viewY[i] = slots.getShort(pos + 2);
+            viewState[i] = slots.get(pos + 4) & 0xFF;
+            pos += 5;
+        }
+    }
+
+    public int getViewPlayerHP() {
+        for (int i = 0; i < viewCount; i++) {
+            if (viewType[i] == PLAYER) return viewState[i];
+        }
+        return 0;
+    }
+
+    // Draw the decoded tick as simple shapes
+    public void draw(Graphics2D g, int width, int height) {
+        int beamLength = width + height;
+        for (int i = 0; i < viewCount; i++) {
+            int type = viewType[i];
+            int x = viewX[i];
+            int y = viewY[i];
+            g.setColor(TYPE_COLORS[type]);
+            if (type >= BEAM_WARNING) {
+                double angle = viewState[i] * (Math.PI * 2 / 256);
+                int dx = (int) (Math.cos(angle) * beamLength);
+                int dy = (int) (Math.sin(angle) * beamLength);
+                g.setStroke(type == BEAM_WARNING ? THIN : WIDE);
+                if (type == ROTATING_BEAM) {
+                    // Rotating beams reach out one way from the boss
+                    g.drawLine(x, y, x + dx, y + dy);
+                } else {
+                    // A timed Beam is centred on its origin and runs both ways
+                    g.drawLine(x - dx, y - dy, x + dx, y + dy);
+                }
+                g.setStroke(THIN);
+            } else {
+                int size = TYPE_SIZES[type];
+                g.fillOval(x - size / 2, y - size / 2, size, size);
+            }
+        }
+    }
+
+    public static int encodeAngle(double angle) {
+        return (int) Math.round(angle * 256 / (Math.PI * 2)) & 0xFF;
+    }
+}
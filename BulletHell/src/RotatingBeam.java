@@ -1,4 +1,7 @@
 import java.awt.*;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class RotatingBeam {
     private int centerX, centerY;
@@ -6,6 +9,9 @@ public class RotatingBeam {
     private double rotationOffset = 0;
     private int screenWidth, screenHeight;
     private static final int BEAM_WIDTH = 80;
+    public static final int HALF_WIDTH = BEAM_WIDTH / 2;
+    private static final Color GLOW = new Color(1f, 1f, 0.6f, 0.6f);
+    private static final Color CORE = new Color(1f, 1f, 0.2f, 1f);
 
     public RotatingBeam(int bossX, int bossY, double angle, int screenWidth, int screenHeight) {
         this.centerX = bossX;
@@ -13,6 +19,11 @@ public class RotatingBeam {
         this.baseAngle = angle;
         this.screenWidth = screenWidth;
         this.screenHeight = screenHeight;
+        GameEvents.beamSpawned(bossX, bossY, angle, true);
+    }
+
+    // Empty beam for RunSnapshot to restore into; not a spawn
+    public RotatingBeam() {
     }
 
     public void setCenter(int x, int y) {
@@ -29,6 +40,10 @@ public class RotatingBeam {
         setRotation(rotationOffset);
     }
 
+    public int getCenterX() { return centerX; }
+    public int getCenterY() { return centerY; }
+    public double getAngle() { return baseAngle + rotationOffset; }
+
     public void setScreenSize(int w, int h) {
         this.screenWidth = w;
         this.screenHeight = h;
@@ -43,34 +58,35 @@ public class RotatingBeam {
         int beamLength = (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight);
 
         // Glow
-        g.setColor(new Color(1f, 1f, 0.6f, 0.6f));
+        g.setColor(GLOW);
         g.fillRect(0, -BEAM_WIDTH / 2, beamLength, BEAM_WIDTH);
 
         // Core
-        g.setColor(new Color(1f, 1f, 0.2f, 1f));
+        g.setColor(CORE);
         g.fillRect(0, -BEAM_WIDTH / 4, beamLength, BEAM_WIDTH / 2);
 
         g.setTransform(old);
     }
 
-    public boolean checkCollision(int px, int py) {
-        // Transform point into beam-local coordinates (beam drawn at x=0..beamLength, y=-BEAM_WIDTH/2..BEAM_WIDTH/2)
-        double finalAngle = baseAngle + rotationOffset;
-        double dx = px - centerX;
-        double dy = py - centerY;
-        double c = Math.cos(finalAngle);
-        double s = Math.sin(finalAngle);
-        // rotate point by -finalAngle
-        double localX = c * dx + s * dy;
-        double localY = -s * dx + c * dy;
+    public int length() {
+        return (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight);
+    }
 
-        int beamLength = (int) Math.sqrt(screenWidth * screenWidth + screenHeight * screenHeight);
-        int halfH = BEAM_WIDTH / 2;
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(centerX);
+        out.writeInt(centerY);
+        out.writeDouble(baseAngle);
+        out.writeDouble(rotationOffset);
+        out.writeInt(screenWidth);
+        out.writeInt(screenHeight);
+    }
 
-        // Beam rectangle spans from localX in [0, beamLength]
-        if (localX >= 0 && localX <= beamLength && localY >= -halfH && localY <= halfH) {
-            if (Math.hypot(localX, localY) > 20) return true;
-        }
-        return false;
+    public void readState(DataInput in) throws IOException {
+        centerX = in.readInt();
+        centerY = in.readInt();
+        baseAngle = in.readDouble();
+        rotationOffset = in.readDouble();
+        screenWidth = in.readInt();
+        screenHeight = in.readInt();
     }
 }
@@ -0,0 +1,155 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+// Binary snapshot of a whole run, used to resume a game after leaving through the pause menu.
+// Every entity streams its own fields through writeState/readState; there is no Java serialization.
+public class RunSnapshot {
+    private static final String SAVE_FILE = "run.sav";
+    private static final Path SAVE_PATH = Paths.get(SAVE_FILE);
+    private static final Path TEMP_PATH = Paths.get(SAVE_FILE + ".tmp");
+    private static final int MAGIC = 0x42485253; // "BHRS"
+    private static final int VERSION = 7;
+
+    // Disk I/O happens on this thread so saving never stalls a frame
+    private static final ExecutorService ioThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "run-snapshot-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Whether run.sav will be there once the I/O thread catches up: checked on disk once, then
+    // kept in step with the saves and deletes queued from here
+    private static volatile boolean saved = Files.isRegularFile(SAVE_PATH);
+
+    public interface StateWriter<T> {
+        void write(T item, DataOutput out) throws IOException;
+    }
+
+    public interface StateReader<T> {
+        void read(T item, DataInput in) throws IOException;
+    }
+
+    // Capture the world into memory. This is the only part that runs on the game thread.
+    public static byte[] capture(GamePanel panel) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            panel.writeSnapshot(out);
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Restore a captured world into the panel; returns false if the data isn't a usable snapshot
+    public static boolean restore(GamePanel panel, byte[] data) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return false;
+            }
+            panel.readSnapshot(in);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            return false;
+        }
+    }
+
+    public static void saveAsync(byte[] data) {
+        saved = true;
+        ioThread.execute(() -> {
+            try {
+                Files.write(TEMP_PATH, data);
+                try {
+                    Files.move(TEMP_PATH, SAVE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(TEMP_PATH, SAVE_PATH, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                // Silently fail; the run just won't be resumable
+                saved = false;
+            }
+        });
+    }
+
+    public static void deleteAsync() {
+        saved = false;
+        ioThread.execute(() -> {
+            try {
+                Files.deleteIfExists(SAVE_PATH);
+            } catch (IOException e) {
+                // Nothing to do
+            }
+        });
+    }
+
+    // Doesn't touch the disk, and is already false while a delete is still queued
+    public static boolean exists() {
+        return saved;
+    }
+
+    public static byte[] load() {
+        try {
+            return Files.readAllBytes(SAVE_PATH);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void writeTrail(DataOutput out, ArrayList<int[]> trail) throws IOException {
+        out.writeInt(trail.size());
+        for (int i = 0; i < trail.size(); i++) {
+            int[] pos = trail.get(i);
+            out.writeInt(pos[0]);
+            out.writeInt(pos[1]);
+        }
+    }
+
+    public static void readTrail(DataInput in, ArrayList<int[]> trail) throws IOException {
+        trail.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            trail.add(new int[]{in.readInt(), in.readInt()});
+        }
+    }
+
+    public static void writeTrail(DataOutput out, Trail trail) throws IOException {
+        out.writeInt(trail.size());
+        for (int i = 0; i < trail.size(); i++) {
+            int[] pos = trail.get(i);
+            out.writeInt(pos[0]);
+            out.writeInt(pos[1]);
+        }
+    }
+
+    public static void readTrail(DataInput in, Trail trail) throws IOException {
+        trail.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            trail.add(in.readInt(), in.readInt());
+        }
+    }
+
+    public static <T> void writeList(DataOutput out, List<T> list, StateWriter<T> writer) throws IOException {
+        out.writeInt(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            writer.write(list.get(i), out);
+        }
+    }
+
+    public static <T> void readList(DataInput in, List<T> list, Supplier<T> factory, StateReader<T> reader) throws IOException {
+        list.clear();
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            T item = factory.get();
+            reader.read(item, in);
+            list.add(item);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Stress scenarios: worlds far denser than any wave, for finding what stops scaling before players
+// get to wave 25 or the purple boss. A scenario is a set of knobs (how many of each enemy, bullet
+// emitters and how fast they fire, free-standing beams, the player's loadout) and is loaded
+// straight into a GamePanel with loadScenario(). While it is loaded the world is held at that size:
+// the wave never advances, anything killed is replaced somewhere random and the player can't die.
+//
+// Scenarios are registered by name below; StressBenchmark runs them headless or in a window.
+public class Scenario {
+    private static final Map<String, Scenario> REGISTRY = new LinkedHashMap<>();
+    private static final double EMITTER_SPIN = 0.05; // radians a tick
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+    static {
+        register(new Scenario("bullets-10k", "10k enemy bullets")
+            .emitters(16, 4700));
+        register(new Scenario("beams-200", "200 beams")
+            .beams(200));
+        register(new Scenario("green-circles-50", "50 green circles reviving")
+            .greenCircles(50).triangles(40).enemies(20)
+            .loadout(true, false, Player.MAX_FIRE_RATE_BONUS));
+        register(new Scenario("triple-shot", "triple-shot at max fire rate")
+            .enemies(30).triangles(30).purpleCircles(6)
+            .loadout(true, false, Player.MAX_FIRE_RATE_BONUS));
+        register(new Scenario("crowd-2k", "2000 enemies of every kind")
+            .enemies(400).triangles(400).greenTriangles(300).purpleTriangles(300)
+            .redTriangles(300).purpleCircles(150).greenCircles(150));
+        register(new Scenario("everything", "crowd, bullets and beams together")
+            .enemies(100).triangles(100).redTriangles(100).purpleCircles(40).greenCircles(20)
+            .emitters(8, 1500).beams(60)
+            .loadout(true, true, Player.MAX_FIRE_RATE_BONUS));
+    }
+
+    private final String name;
+    private final String description;
+    private int wave = 25; // enemies fire and move as they do this late on
+    private int enemies, triangles, greenTriangles, purpleTriangles, redTriangles, purpleCircles, greenCircles;
+    private int emitters, bulletsPerSecond;
+    private int beams;
+    private boolean tripleShot, piercingShots;
+    private int fireRateBonus;
+
+    public Scenario(String name, String description) {
+        this.name = name;
+        this.description = description;
+    }
+
+    public static void register(Scenario scenario) {
+        REGISTRY.put(scenario.name, scenario);
+    }
+
+    // The scenario with this name, or null
+    public static Scenario get(String name) {
+        return REGISTRY.get(name);
+    }
+
+    public static Collection<Scenario> all() {
+        return Collections.unmodifiableCollection(REGISTRY.values());
+    }
+
+    public Scenario wave(int wave) { this.wave = wave; return this; }
+    public Scenario enemies(int count) { enemies = count; return this; }
+    public Scenario triangles(int count) { triangles = count; return this; }
+    public Scenario greenTriangles(int count) { greenTriangles = count; return this; }
+    public Scenario purpleTriangles(int count) { purpleTriangles = count; return this; }
+    public Scenario redTriangles(int count) { redTriangles = count; return this; }
+    public Scenario purpleCircles(int count) { purpleCircles = count; return this; }
+    public Scenario greenCircles(int count) { greenCircles = count; return this; }
+    public Scenario beams(int count) { beams = count; return this; }
+
+    // count emitters around the middle of the screen, firing bulletsPerSecond between them
+    public Scenario emitters(int count, int bulletsPerSecond) {
+        emitters = count;
+        this.bulletsPerSecond = bulletsPerSecond;
+        return this;
+    }
+
+    public Scenario loadout(boolean tripleShot, boolean piercingShots, int fireRateBonus) {
+        this.tripleShot = tripleShot;
+        this.piercingShots = piercingShots;
+        this.fireRateBonus = fireRateBonus;
+        return this;
+    }
+
+    public String getName() { return name; }
+    public String getDescription() { return description; }
+    public int getWave() { return wave; }
+    public int getEnemies() { return enemies; }
+    public int getTriangles() { return triangles; }
+    public int getGreenTriangles() { return greenTriangles; }
+    public int getPurpleTriangles() { return purpleTriangles; }
+    public int getRedTriangles() { return redTriangles; }
+    public int getPurpleCircles() { return purpleCircles; }
+    public int getGreenCircles() { return greenCircles; }
+
+    public void equip(Player player) {
+        player.setTripleShot(tripleShot);
+        player.setPiercingShots(piercingShots);
+        player.setFireRateBonus(fireRateBonus);
+        player.setInvulnerable(true);
+    }
+
+    public Run start(GameRandom random, int width, int height) {
+        return new Run(random, width, height);
+    }
+
+    // A loaded scenario: the emitters and beams, which belong to no enemy, and the random stream
+    // that places replacements
+    public class Run {
+        private final GameRandom random;
+        private final ArrayList<Beam> beamList = new ArrayList<>();
+        private double owed; // bullets due but not yet fired, carried between ticks
+        private double spin;
+        private int nextEmitter;
+
+        private Run(GameRandom random, int width, int height) {
+            this.random = random;
+            for (int i = 0; i < beams; i++) {
+                Beam beam = newBeam(width, height);
+                // Spread the beams through their cycle so they don't all flash on the same tick
+                for (int skip = (int) (random.nextDouble() * 100); skip > 0; skip--) {
+                    beam.update();
+                }
+                beamList.add(beam);
+            }
+        }
+
+        public Scenario getScenario() {
+            return Scenario.this;
+        }
+
+        public ArrayList<Beam> getBeams() {
+            return beamList;
+        }
+
+        // Somewhere for a replacement enemy to appear
+        public int spawnX(int width) { return 50 + (int) (random.nextDouble() * Math.max(1, width - 100)); }
+        public int spawnY(int height) { return 50 + (int) (random.nextDouble() * Math.max(1, height - 100)); }
+
+        // Fires this tick's share of the emitters' bullets and cycles the beams
+        public void update(ShotBuffer projectiles, int width, int height) {
+            if (emitters > 0) {
+                owed += bulletsPerSecond / 60.0;
+                double ring = Math.min(width, height) / 4.0;
+                for (; owed >= 1; owed--) {
+                    int e = nextEmitter;
+                    nextEmitter = (nextEmitter + 1) % emitters;
+                    double at = e * Math.PI * 2 / emitters + spin;
+                    int x = width / 2 + (int) (Math.cos(at) * ring);
+                    int y = height / 2 + (int) (Math.sin(at) * ring);
+                    projectiles.fire(x, y, at + e * GOLDEN_ANGLE + spin * 3);
+                }
+                spin += EMITTER_SPIN;
+            }
+            for (int i = 0; i < beamList.size(); i++) {
+                Beam beam = beamList.get(i);
+                beam.update();
+                if (beam.isFinished()) {
+                    beamList.set(i, newBeam(width, height));
+                }
+            }
+        }
+
+        private Beam newBeam(int width, int height) {
+            double angle = random.nextDouble() * Math.PI * 2;
+            return new Beam(spawnX(width), spawnY(height), width, height, angle);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import java.awt.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Enemy bullets as they are fired, in parallel primitive arrays: enemies and patterns write their
+// shots straight in here, with no object per bullet, and GamePanel then appends the tick's shots
+// to EnemyBullets, which is where bullets in flight are moved, culled and collided. Position and
+// velocity are 16.16 fixed point (see Fixed).
+//
+// Shots stay in the order they were fired. The arrays only grow, so firing allocates nothing once
+// a buffer has reached its busiest tick.
+public class ShotBuffer {
+    public static final int SPEED = 4; // pixels a tick, for shots fired along an angle
+
+    protected int count;
+    protected int[] x, y, vx, vy;
+    protected int[] size, damage;
+    protected Color[] color;
+
+    public ShotBuffer() {
+        this(16);
+    }
+
+    public ShotBuffer(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        vx = new int[capacity];
+        vy = new int[capacity];
+        size = new int[capacity];
+        damage = new int[capacity];
+        color = new Color[capacity];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(color, 0, count, null);
+        count = 0;
+    }
+
+    // Position and velocity already in 16.16
+    public void add(int x, int y, int vx, int vy, int size, Color color, int damage) {
+        if (count == this.x.length) grow(count * 2);
+        int i = count++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.size[i] = size;
+        this.color[i] = color;
+        this.damage[i] = damage;
+    }
+
+    // One plain shot: small, yellow, one damage
+    public void fire(int x, int y, double angle) {
+        fire(x, y, angle, 4, Color.YELLOW, 1);
+    }
+
+    // One shot from pixel (x, y) at SPEED along angle radians
+    public void fire(int x, int y, double angle, int size, Color color, int damage) {
+        add(Fixed.of(x), Fixed.of(y), Fixed.of(Math.cos(angle) * SPEED), Fixed.of(Math.sin(angle) * SPEED),
+            size, color, damage);
+    }
+
+    public void addAll(ShotBuffer shots) {
+        for (int i = 0; i < shots.count; i++) {
+            add(shots.x[i], shots.y[i], shots.vx[i], shots.vy[i], shots.size[i], shots.color[i], shots.damage[i]);
+        }
+    }
+
+    // The same layout RunSnapshot.writeList gives a list, one shot after another
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            out.writeInt(x[i]);
+            out.writeInt(y[i]);
+            out.writeInt(vx[i]);
+            out.writeInt(vy[i]);
+            out.writeInt(size[i]);
+            out.writeInt(color[i].getRGB());
+            out.writeInt(damage[i]);
+        }
+    }
+
+    public void readState(DataInput in) throws IOException {
+        clear();
+        for (int n = in.readInt(); n > 0; n--) {
+            add(in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readInt(),
+                new Color(in.readInt(), true), in.readInt());
+        }
+    }
+
+    protected void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        size = Arrays.copyOf(size, capacity);
+        damage = Arrays.copyOf(damage, capacity);
+        color = Arrays.copyOf(color, capacity);
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Catches stutters as they happen. While a tick runs past BUDGET, a watchdog thread samples
+// the game thread's stack; when the tick finishes, the game adds the profiler breakdown, entity
+// counts, boss state and GC activity, and the whole report is written to diagnostics/ on a
+// background thread. Only the newest MAX_FILES reports are kept.
+// Turned off with -Dbullethell.watchdog=false.
+public class SlowFrameWatchdog {
+    public static final long BUDGET = 3 * FramePacing.PERIOD;
+    private static final long SAMPLE_INTERVAL = 10_000_000L;
+    private static final int MAX_SAMPLES = 8;
+    private static final long MIN_REPORT_GAP = 2_000_000_000L; // one report per stutter, not per tick
+    private static final int MAX_FILES = 20;
+    private static final String DIAGNOSTICS_DIR = "diagnostics";
+
+    private static SlowFrameWatchdog instance;
+
+    private final boolean enabled;
+    private final GarbageCollectorMXBean[] collectors;
+    private final ExecutorService writer;
+
+    // Set by the game thread, read by the watchdog thread
+    private volatile Thread gameThread;
+    private volatile long tickStart; // 0 between ticks
+    private volatile long tickNumber;
+
+    // Stack samples for sampleTick, guarded by this
+    private final StackTraceElement[][] samples = new StackTraceElement[MAX_SAMPLES][];
+    private final long[] sampleOffsets = new long[MAX_SAMPLES];
+    private int sampleCount;
+    private long sampleTick = -1;
+
+    // Game thread only
+    private long gcCountAtStart, gcTimeAtStart;
+    private long lastReport;
+    private int reportsWritten;
+
+    private SlowFrameWatchdog(boolean enabled) {
+        this.enabled = enabled;
+        List<GarbageCollectorMXBean> gcs = ManagementFactory.getGarbageCollectorMXBeans();
+        this.collectors = gcs.toArray(new GarbageCollectorMXBean[0]);
+        if (!enabled) {
+            writer = null;
+            return;
+        }
+        writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "diagnostics-io");
+            t.setDaemon(true);
+            return t;
+        });
+        Thread sampler = new Thread(this::sampleLoop, "slow-frame-watchdog");
+        sampler.setDaemon(true);
+        sampler.start();
+    }
+
+    public static synchronized SlowFrameWatchdog get() {
+        if (instance == null) {
+            instance = new SlowFrameWatchdog(!"false".equals(System.getProperty("bullethell.watchdog")));
+        }
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void tickStarted(long now) {
+        if (!enabled) return;
+        gameThread = Thread.currentThread();
+        gcCountAtStart = gcCount();
+        gcTimeAtStart = gcTime();
+        tickNumber++;
+        tickStart = now;
+    }
+
+    // Returns true when this tick was slow and a report should be written
+    public boolean tickEnded(long now) {
+        if (!enabled) return false;
+        long start = tickStart;
+        tickStart = 0;
+        return now - start > BUDGET && (lastReport == 0 || now - lastReport > MIN_REPORT_GAP);
+    }
+
+    // Called on the game thread right after tickEnded returned true
+    public void report(long tickNanos, int wave, GameMetrics.Sample counts, FrameProfiler profiler) {
+        lastReport = System.nanoTime();
+        long gcCount = gcCount() - gcCountAtStart;
+        long gcMillis = gcTime() - gcTimeAtStart;
+
+        StringBuilder sb = new StringBuilder(4096);
+        Date now = new Date();
+        sb.append("Slow tick: ").append(String.format("%.1f", tickNanos / 1e6)).append(" ms (budget ")
+          .append(String.format("%.1f", BUDGET / 1e6)).append(" ms)\n");
+        sb.append("Time: ").append(now).append('\n');
+        sb.append("Wave: ").append(wave).append("  kills: ").append(counts.kills)
+          .append("  player HP: ").append(counts.playerHP).append('\n');
+        sb.append("GC during tick: ").append(gcCount).append(" collections, ").append(gcMillis).append(" ms\n\n");
+
+        sb.append("Entities\n");
+        sb.append("  enemies ").append(counts.enemies)
+          .append("  triangles ").append(counts.triangleEnemies)
+          .append("  green triangles ").append(counts.greenTriangleEnemies)
+          .append("  purple triangles ").append(counts.purpleTriangleEnemies)
+          .append("  red triangles ").append(counts.redTriangleEnemies).append('\n');
+        sb.append("  purple circles ").append(counts.purpleCircleEnemies)
+          .append("  green circles ").append(counts.greenCircleEnemies)
+          .append("  healing items ").append(counts.healingItems).append('\n');
+        sb.append("  player shots ").append(counts.playerProjectiles)
+          .append("  enemy shots ").append(counts.enemyProjectiles).append('\n');
+        sb.append("  active beams ").append(counts.activeBeams)
+          .append("  boss attack state ").append(counts.bossAttackState).append("\n\n");
+
+        sb.append("Profiler breakdown\n");
+        if (profiler.isEnabled()) {
+            profiler.appendLastTick(sb);
+        } else {
+            sb.append("  (profiler off)\n");
+        }
+
+        sb.append("\nGame thread stack samples\n");
+        synchronized (this) {
+            if (sampleTick != tickNumber || sampleCount == 0) {
+                sb.append("  (none; the tick finished between samples)\n");
+            } else {
+                for (int i = 0; i < sampleCount; i++) {
+                    sb.append("  at +").append(sampleOffsets[i] / 1_000_000).append(" ms:\n");
+                    for (StackTraceElement frame : samples[i]) {
+                        sb.append("    at ").append(frame).append('\n');
+                    }
+                }
+            }
+        }
+
+        String name = "slow-" + new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(now) + ".txt";
+        String text = sb.toString();
+        reportsWritten++;
+        Log.warn("SlowFrameWatchdog", "Slow tick (" + tickNanos / 1_000_000 + " ms), writing " + DIAGNOSTICS_DIR + "/" + name);
+        writer.execute(() -> write(name, text));
+    }
+
+    public int getReportsWritten() {
+        return reportsWritten;
+    }
+
+    private void sampleLoop() {
+        while (true) {
+            LockSupport.parkNanos(SAMPLE_INTERVAL);
+            long start = tickStart;
+            Thread thread = gameThread;
+            if (start == 0 || thread == null) continue;
+            long elapsed = System.nanoTime() - start;
+            if (elapsed <= BUDGET) continue;
+            long tick = tickNumber;
+            StackTraceElement[] stack = thread.getStackTrace();
+            synchronized (this) {
+                if (sampleTick != tick) {
+                    sampleTick = tick;
+                    sampleCount = 0;
+                }
+                if (sampleCount < MAX_SAMPLES) {
+                    samples[sampleCount] = stack;
+                    sampleOffsets[sampleCount] = elapsed;
+                    sampleCount++;
+                }
+            }
+        }
+    }
+
+    private static void write(String name, String text) {
+        try {
+            Path dir = Paths.get(DIAGNOSTICS_DIR);
+            Files.createDirectories(dir);
+            Files.write(dir.resolve(name), text.getBytes());
+            // Names sort by time, so the oldest reports come first
+            Path[] reports;
+            try (Stream<Path> files = Files.list(dir)) {
+                reports = files.filter(p -> p.getFileName().toString().startsWith("slow-")).sorted().toArray(Path[]::new);
+            }
+            for (int i = 0; i < reports.length - MAX_FILES; i++) {
+                Files.deleteIfExists(reports[i]);
+            }
+        } catch (IOException e) {
+            Log.warn("SlowFrameWatchdog", "Couldn't write " + name, e);
+        }
+    }
+
+    private long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+
+    private long gcTime() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : collectors) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+
+// Where every live hostile is, for "what's near this point" questions. Entries are keyed by
+// EntityHandles handle and live in a hashed grid of 64 px cells; each cell is an intrusive linked
+// list threaded through per-slot arrays. The index is kept up to date incrementally: update() only
+// relinks an entry when it crosses into another cell, and sweep() drops whatever wasn't updated
+// since the last sweep, the same way EntityHandles frees slots.
+//
+// The grid is hashed rather than sized to the window, so positions off screen are fine and a
+// resize never rebuilds anything. Two cells sharing a bucket only costs a few extra distance checks.
+public class SpatialIndex {
+    private static final int CELL_SHIFT = 6; // 64 px cells
+    private static final int CELL = 1 << CELL_SHIFT;
+    private static final int BUCKETS = 1024; // a power of two
+    private static final int NONE = -1;
+
+    private final int[] head = new int[BUCKETS];
+    private int[] handle = new int[64];  // 0 when the slot isn't in the index
+    private int[] x = new int[64], y = new int[64];
+    private int[] cellX = new int[64], cellY = new int[64];
+    private int[] next = new int[64], prev = new int[64];
+    private int[] lastUpdate = new int[64];
+    private int slots = 0;
+    private int tick = 0;
+    private int size = 0;
+
+    // Scratch for nearest(): the best candidates so far, closest first
+    private int[] bestHandle = new int[8];
+    private long[] bestDistance = new long[8];
+
+    public SpatialIndex() {
+        Arrays.fill(head, NONE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Adds the entity or moves it to (px, py)
+    public void update(int entity, int px, int py) {
+        int slot = EntityHandles.slot(entity);
+        while (slot >= handle.length) grow();
+        if (slot >= slots) {
+            Arrays.fill(handle, slots, slot + 1, 0);
+            slots = slot + 1;
+        }
+        int cx = px >> CELL_SHIFT;
+        int cy = py >> CELL_SHIFT;
+        if (handle[slot] == 0) {
+            size++;
+            link(slot, cx, cy);
+        } else if (cx != cellX[slot] || cy != cellY[slot]) {
+            unlink(slot);
+            link(slot, cx, cy);
+        }
+        handle[slot] = entity;
+        x[slot] = px;
+        y[slot] = py;
+        lastUpdate[slot] = tick;
+    }
+
+    // Drops every entry that wasn't updated since the last sweep
+    public void sweep() {
+        for (int slot = 0; slot < slots; slot++) {
+            if (handle[slot] != 0 && lastUpdate[slot] != tick) {
+                unlink(slot);
+                handle[slot] = 0;
+                size--;
+            }
+        }
+        tick++;
+    }
+
+    public void clear() {
+        Arrays.fill(head, NONE);
+        Arrays.fill(handle, 0, slots, 0);
+        slots = 0;
+        size = 0;
+    }
+
+    public boolean contains(int entity) {
+        int slot = EntityHandles.slot(entity);
+        return entity != 0 && slot < slots && handle[slot] == entity;
+    }
+
+    // Position of an entity that contains() says is indexed
+    public int getX(int entity) { return x[EntityHandles.slot(entity)]; }
+    public int getY(int entity) { return y[EntityHandles.slot(entity)]; }
+
+    // Every entity within radius of (px, py), in no particular order. Fills out up to its length
+    // and returns how many matched (which can be more than fit).
+    public int withinRadius(int px, int py, int radius, int[] out) {
+        long radiusSq = (long) radius * radius;
+        int found = 0;
+        int cx0 = (px - radius) >> CELL_SHIFT, cx1 = (px + radius) >> CELL_SHIFT;
+        int cy0 = (py - radius) >> CELL_SHIFT, cy1 = (py + radius) >> CELL_SHIFT;
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                for (int s = head[bucket(cx, cy)]; s != NONE; s = next[s]) {
+                    // Other cells can share the bucket; only count each entry in its own cell
+                    if (cellX[s] != cx || cellY[s] != cy || distanceSq(s, px, py) > radiusSq) continue;
+                    if (found < out.length) out[found] = handle[s];
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    // The closest entity within maxRadius, or 0 if there is none
+    public int nearest(int px, int py, int maxRadius) {
+        return nearest(px, py, maxRadius, 1, bestHandle) > 0 ? bestHandle[0] : 0;
+    }
+
+    // Up to k entities within maxRadius, closest first, written to out. Returns how many.
+    // Searches rings of cells outwards and stops once no unvisited cell can beat the k-th best.
+    public int nearest(int px, int py, int maxRadius, int k, int[] out) {
+        k = Math.min(k, out.length);
+        if (k == 0 || size == 0) return 0;
+        if (bestHandle.length < k) {
+            bestHandle = new int[k];
+            bestDistance = new long[k];
+        }
+        long maxSq = (long) maxRadius * maxRadius;
+        int found = 0;
+        int qx = px >> CELL_SHIFT, qy = py >> CELL_SHIFT;
+        int rings = (maxRadius >> CELL_SHIFT) + 1;
+        for (int r = 0; r <= rings; r++) {
+            for (int cy = qy - r; cy <= qy + r; cy++) {
+                // Only the border of the ring; the inside was searched already
+                int step = (cy == qy - r || cy == qy + r) ? 1 : Math.max(1, 2 * r);
+                for (int cx = qx - r; cx <= qx + r; cx += step) {
+                    for (int s = head[bucket(cx, cy)]; s != NONE; s = next[s]) {
+                        if (cellX[s] != cx || cellY[s] != cy) continue;
+                        long d = distanceSq(s, px, py);
+                        int h = handle[s];
+                        if (d > maxSq || (found == k && !closer(d, h, k - 1))) continue;
+                        int at = found < k ? found++ : k - 1;
+                        while (at > 0 && closer(d, h, at - 1)) {
+                            bestDistance[at] = bestDistance[at - 1];
+                            bestHandle[at] = bestHandle[at - 1];
+                            at--;
+                        }
+                        bestDistance[at] = d;
+                        bestHandle[at] = h;
+                    }
+                }
+            }
+            // Anything in ring r + 1 or further is at least r cells away
+            long reach = (long) r * CELL;
+            if (found == k && bestDistance[k - 1] <= reach * reach) break;
+        }
+        if (out != bestHandle) System.arraycopy(bestHandle, 0, out, 0, found);
+        return found;
+    }
+
+    // Ties go to the lower handle, so the answer doesn't depend on the order entries were linked
+    private boolean closer(long d, int h, int i) {
+        return d < bestDistance[i] || (d == bestDistance[i] && h < bestHandle[i]);
+    }
+
+    private long distanceSq(int slot, int px, int py) {
+        long dx = x[slot] - px;
+        long dy = y[slot] - py;
+        return dx * dx + dy * dy;
+    }
+
+    private void link(int slot, int cx, int cy) {
+        int b = bucket(cx, cy);
+        cellX[slot] = cx;
+        cellY[slot] = cy;
+        prev[slot] = NONE;
+        next[slot] = head[b];
+        if (head[b] != NONE) prev[head[b]] = slot;
+        head[b] = slot;
+    }
+
+    private void unlink(int slot) {
+        if (prev[slot] != NONE) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head[bucket(cellX[slot], cellY[slot])] = next[slot];
+        }
+        if (next[slot] != NONE) prev[next[slot]] = prev[slot];
+    }
+
+    private static int bucket(int cx, int cy) {
+        return (cx * 73856093 ^ cy * 19349663) & (BUCKETS - 1);
+    }
+
+    private void grow() {
+        int capacity = handle.length * 2;
+        handle = Arrays.copyOf(handle, capacity);
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        cellX = Arrays.copyOf(cellX, capacity);
+        cellY = Arrays.copyOf(cellY, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        lastUpdate = Arrays.copyOf(lastUpdate, capacity);
+    }
+}
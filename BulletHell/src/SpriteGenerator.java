@@ -20,9 +20,9 @@ public class SpriteGenerator {
             generatePlayerProjectileSprite();
             generateEnemyProjectileSprite();
             generateHealingItemSprite();
-            System.out.println("Sprites generated successfully!");
+            Log.info("SpriteGenerator", "Sprites generated successfully");
         } catch (IOException e) {
-            e.printStackTrace();
+            Log.error("SpriteGenerator", "Couldn't write sprites to " + SPRITES_DIR + "/", e);
         }
     }
 
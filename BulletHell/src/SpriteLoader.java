@@ -1,12 +1,15 @@
+import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import javax.imageio.ImageIO;
 
 public class SpriteLoader {
     private static final Map<String, BufferedImage> sprites = new HashMap<>();
+    private static final Map<String, BufferedImage[]> scaled = new HashMap<>();
     private static boolean loaded = false;
 
     public static void loadSprites() {
@@ -24,8 +27,7 @@ public class SpriteLoader {
             sprites.put("healing_item", ImageIO.read(new File("sprites/healing_item.png")));
             loaded = true;
         } catch (IOException e) {
-            System.err.println("Error loading sprites: " + e.getMessage());
-            e.printStackTrace();
+            Log.error("SpriteLoader", "Error loading sprites", e);
         }
     }
 
@@ -33,6 +35,28 @@ public class SpriteLoader {
         return sprites.get(name);
     }
 
+    // The sprite drawn once at width x height and kept. Drawing an image at its own size allocates
+    // nothing, where drawImage with a size allocates a few hundred bytes on every call, and some
+    // sprites are drawn hundreds of times a frame.
+    public static synchronized BufferedImage getSprite(String name, int width, int height) {
+        BufferedImage[] sizes = scaled.get(name);
+        if (sizes != null) {
+            for (BufferedImage image : sizes) {
+                if (image.getWidth() == width && image.getHeight() == height) return image;
+            }
+        }
+        BufferedImage source = sprites.get(name);
+        if (source == null || width <= 0 || height <= 0) return null;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        sizes = sizes == null ? new BufferedImage[1] : Arrays.copyOf(sizes, sizes.length + 1);
+        sizes[sizes.length - 1] = image;
+        scaled.put(name, sizes);
+        return image;
+    }
+
     public static boolean isLoaded() {
         return loaded;
     }
@@ -0,0 +1,169 @@
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Launches the game's startup path in fresh JVMs and reports how long it takes to reach the
+// first frame, so startup regressions show up before players notice them.
+//
+//   java StartupBenchmark [--runs N] [--budget <ms>] [--out <file>]
+//
+// Each launch runs headless: the same phases as Window.main (sprites, metrics, achievements,
+// main menu, game panel) and then paints one frame offscreen. The first launch of each mode is
+// reported as cold, the rest as warm. Modes:
+//   no-cds       class data sharing off (-Xshare:off)
+//   default-cds  the JDK's default archive
+//   appcds       an archive of the game's own classes, made by a training launch first
+//                (the JVM only archives classes from jars, so run the benchmark from a jar)
+// With --budget the exit code is 1 when the warm median with default CDS is over budget.
+public class StartupBenchmark {
+    private static final String CHILD_FLAG = "--child";
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD_FLAG)) {
+            runChild();
+            return;
+        }
+        int runs = 5;
+        double budget = -1;
+        String out = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--runs") && i + 1 < args.length) {
+                runs = Math.max(2, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--budget") && i + 1 < args.length) {
+                budget = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                out = args[++i];
+            }
+        }
+
+        Path archive = Files.createTempFile("bullethell-", ".jsa");
+        Files.delete(archive);
+        StringBuilder json = new StringBuilder("{\"runs\":").append(runs).append(",\"modes\":[");
+        int reported = 0;
+        double defaultWarm = 0;
+        try {
+            String[][] modes = {
+                {"no-cds", "-Xshare:off"},
+                {"default-cds", null},
+                {"appcds", "-XX:SharedArchiveFile=" + archive}
+            };
+            System.out.printf("%-12s %10s %12s %10s%n", "mode", "cold ms", "warm median", "warm min");
+            for (int m = 0; m < modes.length; m++) {
+                String name = modes[m][0];
+                String flag = modes[m][1];
+                if (name.equals("appcds")) {
+                    // The JVM only archives application classes loaded from jars
+                    if (!jarClasspath()) {
+                        System.out.printf("%-12s %s%n", name, "(skipped: needs the game on a jar classpath)");
+                        continue;
+                    }
+                    if (launch("-XX:ArchiveClassesAtExit=" + archive) < 0) {
+                        System.out.printf("%-12s %s%n", name, "(archive could not be created)");
+                        continue;
+                    }
+                }
+                double[] totals = new double[runs];
+                for (int r = 0; r < runs; r++) {
+                    totals[r] = launch(flag);
+                }
+                double cold = totals[0];
+                double[] warm = Arrays.copyOfRange(totals, 1, runs);
+                Arrays.sort(warm);
+                double median = warm[warm.length / 2];
+                if (name.equals("default-cds")) defaultWarm = median;
+                System.out.printf("%-12s %10.1f %12.1f %10.1f%n", name, cold, median, warm[0]);
+                if (reported++ > 0) json.append(',');
+                json.append("{\"mode\":\"").append(name).append("\",\"coldMs\":").append(cold)
+                    .append(",\"warmMedianMs\":").append(median).append(",\"warmMinMs\":").append(warm[0]).append('}');
+            }
+        } finally {
+            Files.deleteIfExists(archive);
+        }
+        json.append("]}");
+        if (out != null) {
+            Files.write(Paths.get(out), json.toString().getBytes());
+        }
+        if (budget > 0 && defaultWarm > budget) {
+            System.err.printf("Warm startup %.1f ms is over the %.1f ms budget%n", defaultWarm, budget);
+            System.exit(1);
+        }
+    }
+
+    // Runs one child JVM and returns its JVM-start-to-first-frame time, or -1 if it failed
+    private static double launch(String extraFlag) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (extraFlag != null) command.add(extraFlag);
+        command.add("-Djava.awt.headless=true");
+        command.add("-Dbullethell.log=warn");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(StartupBenchmark.class.getName());
+        command.add(CHILD_FLAG);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        String report = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("{")) report = line;
+            }
+        }
+        if (process.waitFor() != 0 || report == null) {
+            return -1;
+        }
+        return totalMillis(report);
+    }
+
+    private static boolean jarClasspath() {
+        for (String entry : System.getProperty("java.class.path").split(java.io.File.pathSeparator)) {
+            if (!entry.endsWith(".jar")) return false;
+        }
+        return true;
+    }
+
+    private static double totalMillis(String report) {
+        String key = "\"totalMs\":";
+        int at = report.indexOf(key) + key.length();
+        int end = at;
+        while (end < report.length() && (Character.isDigit(report.charAt(end)) || report.charAt(end) == '.')) end++;
+        return Double.parseDouble(report.substring(at, end));
+    }
+
+    // The child: Window.main's phases without a window, then one offscreen frame
+    private static void runChild() throws Exception {
+        StartupTimer.start();
+        SpriteGenerator.generateAllSprites();
+        StartupTimer.mark("sprites");
+        GameMetrics.install();
+        StartupTimer.mark("metrics");
+        Achievements[] achievements = new Achievements[1];
+        GamePanel[] panel = new GamePanel[1];
+        SwingUtilities.invokeAndWait(() -> {
+            achievements[0] = new Achievements();
+            StartupTimer.mark("achievements");
+            new MainMenu(achievements[0]);
+            StartupTimer.mark("main menu");
+            // Starting a wave saves the profile, so the panel gets one that never touches the file
+            panel[0] = new GamePanel(new Achievements(false));
+            panel[0].setSize(FRAME_WIDTH, FRAME_HEIGHT);
+            StartupTimer.mark("game panel");
+            BufferedImage frame = new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_INT_RGB);
+            panel[0].paint(frame.createGraphics());
+        });
+        // paintComponent queued firstFrame() on the event thread; wait for it
+        SwingUtilities.invokeAndWait(() -> { });
+        System.out.println(StartupTimer.getReport());
+        System.exit(0);
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+
+// Named phases from JVM launch to the first painted game frame. Each mark() closes the phase
+// that began at the previous mark. Time spent waiting on the player (the main menu) is cut out
+// with idle(), so the total is what the game itself costs.
+//
+// The report is JSON. It is logged once the first frame is painted and, with
+// -Dbullethell.startup.report=<file>, written there. StartupBenchmark reads the same report.
+public final class StartupTimer {
+    public static final String REPORT_PROPERTY = "bullethell.startup.report";
+
+    private static final ArrayList<String> names = new ArrayList<>();
+    private static final ArrayList<Long> nanos = new ArrayList<>();
+    private static long jvmMillis;    // JVM start to main()
+    private static long last;         // start of the current phase
+    private static long idleNanos;
+    private static boolean running = false;
+    private static String report;
+
+    private StartupTimer() {
+    }
+
+    // First thing in main()
+    public static synchronized void start() {
+        last = System.nanoTime();
+        jvmMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        running = true;
+    }
+
+    public static synchronized void mark(String phase) {
+        if (!running) return;
+        long now = System.nanoTime();
+        names.add(phase);
+        nanos.add(now - last);
+        last = now;
+    }
+
+    // Drop the time since the last mark; it was spent waiting for input
+    public static synchronized void idle() {
+        if (!running) return;
+        long now = System.nanoTime();
+        idleNanos += now - last;
+        last = now;
+    }
+
+    // Closes the last phase and publishes the report. Later calls do nothing.
+    public static synchronized void firstFrame() {
+        if (!running) return;
+        mark("first frame");
+        running = false;
+        report = toJson();
+        Log.info("StartupTimer", "Startup: " + report);
+        String path = System.getProperty(REPORT_PROPERTY);
+        if (path != null) {
+            String json = report;
+            Thread writer = new Thread(() -> {
+                try {
+                    Path file = Paths.get(path);
+                    if (file.getParent() != null) Files.createDirectories(file.getParent());
+                    Files.write(file, json.getBytes());
+                } catch (IOException e) {
+                    Log.warn("StartupTimer", "Couldn't write " + path, e);
+                }
+            }, "startup-report");
+            writer.start();
+        }
+    }
+
+    public static synchronized boolean isRunning() {
+        return running;
+    }
+
+    // The finished report, or null while startup is still being timed
+    public static synchronized String getReport() {
+        return report;
+    }
+
+    private static String toJson() {
+        StringBuilder sb = new StringBuilder(512);
+        double total = jvmMillis;
+        sb.append("{\"jvmToMainMs\":").append(jvmMillis).append(",\"phases\":[");
+        for (int i = 0; i < names.size(); i++) {
+            double ms = nanos.get(i) / 1e6;
+            total += ms;
+            if (i > 0) sb.append(',');
+            sb.append("{\"name\":\"").append(names.get(i)).append("\",\"ms\":").append(round(ms)).append('}');
+        }
+        sb.append("],\"idleMs\":").append(round(idleNanos / 1e6))
+          .append(",\"totalMs\":").append(round(total))
+          .append(",\"sharedArchive\":").append(sharingEnabled())
+          .append(",\"java\":\"").append(System.getProperty("java.version")).append("\"}");
+        return sb.toString();
+    }
+
+    private static double round(double ms) {
+        return Math.round(ms * 100) / 100.0;
+    }
+
+    // Whether class data sharing (the default CDS archive or an AppCDS one) is in use
+    private static boolean sharingEnabled() {
+        String info = System.getProperty("java.vm.info", "");
+        return info.contains("sharing");
+    }
+}
@@ -0,0 +1,215 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Runs stress scenarios (see Scenario) and reports simulation throughput and frame-time
+// percentiles, so code that only slows down at densities no normal wave reaches still gets measured.
+//
+//   java StressBenchmark [--scenario <name>|all] [--ticks N] [--warmup N] [--seed S]
+//                        [--kernel scalar|vector|both] [--windowed] [--out <file>] [--list]
+//
+// Headless (the default) paints every frame into an offscreen image. --windowed shows the panel
+// in a window and paints it on screen from the event thread. In both modes the player strafes and
+// fires at the middle of the screen on every tick. For each scenario it prints:
+//   - ticks per second of simulation alone, with painting left out;
+//   - p50/p90/p99/max of the whole frame (step plus paint);
+//   - the average live enemy bullets and entities, to check the scenario reached its density;
+//   - the microseconds a tick spends in the BulletKernel moving and culling enemy bullets.
+// --kernel picks the kernel, and both runs every scenario once with each. The vector kernel needs
+// src-vector on the class path and --add-modules jdk.incubator.vector (see the README).
+public class StressBenchmark {
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+
+    public static void main(String[] args) throws Exception {
+        String which = "all";
+        int ticks = 1200;
+        int warmup = 300;
+        long seed = 1;
+        boolean windowed = false;
+        String out = null;
+        String kernelName = null; // the default, whatever -Dbullethell.bulletKernel picks
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--scenario") && i + 1 < args.length) {
+                which = args[++i];
+            } else if (args[i].equals("--ticks") && i + 1 < args.length) {
+                ticks = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--warmup") && i + 1 < args.length) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--kernel") && i + 1 < args.length) {
+                kernelName = args[++i];
+            } else if (args[i].equals("--windowed")) {
+                windowed = true;
+            } else if (args[i].equals("--out") && i + 1 < args.length) {
+                out = args[++i];
+            } else if (args[i].equals("--list")) {
+                for (Scenario scenario : Scenario.all()) {
+                    System.out.printf("%-18s %s%n", scenario.getName(), scenario.getDescription());
+                }
+                return;
+            } else {
+                System.err.println("Unknown option " + args[i]);
+                System.exit(2);
+            }
+        }
+        if (windowed && GraphicsEnvironment.isHeadless()) {
+            System.err.println("--windowed needs a display");
+            System.exit(2);
+        }
+
+        List<Scenario> scenarios = new ArrayList<>();
+        if (which.equals("all")) {
+            scenarios.addAll(Scenario.all());
+        } else if (Scenario.get(which) != null) {
+            scenarios.add(Scenario.get(which));
+        } else {
+            System.err.println("No scenario called " + which + "; --list shows them");
+            System.exit(2);
+        }
+
+        List<BulletKernel> kernels = new ArrayList<>();
+        if (kernelName == null) {
+            kernels.add(BulletKernel.fromProperty());
+        } else if (kernelName.equals("scalar") || kernelName.equals("vector") || kernelName.equals("both")) {
+            if (!kernelName.equals("vector")) kernels.add(BulletKernel.scalar());
+            if (!kernelName.equals("scalar")) {
+                BulletKernel vector = BulletKernel.vector();
+                if (vector == null) {
+                    System.err.println("The vector kernel needs src-vector on the class path and --add-modules jdk.incubator.vector");
+                    System.exit(2);
+                }
+                kernels.add(vector);
+            }
+        } else {
+            System.err.println("--kernel is scalar, vector or both");
+            System.exit(2);
+        }
+
+        SpriteGenerator.generateAllSprites();
+        StringBuilder json = new StringBuilder("{\"ticks\":").append(ticks)
+            .append(",\"windowed\":").append(windowed).append(",\"scenarios\":[");
+        System.out.printf("%-18s %-12s %10s %8s %8s %8s %8s %10s %10s %10s%n", "scenario", "kernel",
+            "ticks/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "bullets", "entities", "kernel us");
+        boolean first = true;
+        for (Scenario scenario : scenarios) {
+            for (BulletKernel kernel : kernels) {
+                Result r = run(scenario, kernel, seed, warmup, ticks, windowed);
+                System.out.printf("%-18s %-12s %10.0f %8.2f %8.2f %8.2f %8.2f %10d %10d %10.1f%n", r.name, r.kernel,
+                    r.ticksPerSecond, r.p50, r.p90, r.p99, r.max, r.bullets, r.entities, r.kernelMicros);
+                if (!first) json.append(',');
+                first = false;
+                json.append("{\"scenario\":\"").append(r.name).append("\",\"kernel\":\"").append(r.kernel)
+                    .append("\",\"ticksPerSecond\":").append(r.ticksPerSecond)
+                    .append(",\"p50Ms\":").append(r.p50).append(",\"p90Ms\":").append(r.p90)
+                    .append(",\"p99Ms\":").append(r.p99).append(",\"maxMs\":").append(r.max)
+                    .append(",\"enemyBullets\":").append(r.bullets).append(",\"entities\":").append(r.entities)
+                    .append(",\"kernelMicros\":").append(r.kernelMicros).append('}');
+            }
+        }
+        json.append("]}");
+        if (out != null) {
+            Files.write(Paths.get(out), json.toString().getBytes());
+        }
+        System.exit(0);
+    }
+
+    private static class Result {
+        String name, kernel;
+        double ticksPerSecond, p50, p90, p99, max, kernelMicros;
+        long bullets, entities;
+    }
+
+    private static Result run(Scenario scenario, BulletKernel kernel, long seed, int warmup, int ticks, boolean windowed) throws Exception {
+        GamePanel[] holder = new GamePanel[1];
+        JFrame[] window = new JFrame[1];
+        SwingUtilities.invokeAndWait(() -> {
+            // Starting a wave saves the profile, so the panel gets one that never touches the file
+            GamePanel panel = new GamePanel(new Achievements(false), 1, seed);
+            panel.setPreferredSize(new Dimension(FRAME_WIDTH, FRAME_HEIGHT));
+            panel.setSize(FRAME_WIDTH, FRAME_HEIGHT);
+            panel.loadScenario(scenario);
+            panel.setBulletKernel(kernel);
+            if (windowed) {
+                window[0] = new JFrame("Stress: " + scenario.getDescription());
+                window[0].add(panel);
+                window[0].pack();
+                window[0].setVisible(true);
+            }
+            holder[0] = panel;
+        });
+        GamePanel panel = holder[0];
+        BufferedImage image = windowed ? null : new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D offscreen = windowed ? null : image.createGraphics();
+        InputFrame frame = new InputFrame();
+        frame.width = FRAME_WIDTH;
+        frame.height = FRAME_HEIGHT;
+
+        long[] frameNanos = new long[ticks];
+        long[] stepNanos = new long[1];
+        long bullets = 0, entities = 0;
+        long kernelStart = 0;
+        for (int t = 0; t < warmup + ticks; t++) {
+            script(frame, t);
+            int at = t - warmup;
+            if (at == 0) kernelStart = panel.getBulletKernelNanos();
+            // All of a frame happens on the event thread, as it does in the game
+            SwingUtilities.invokeAndWait(() -> {
+                long start = System.nanoTime();
+                panel.step(frame);
+                long stepped = System.nanoTime();
+                if (windowed) {
+                    panel.paintImmediately(0, 0, panel.getWidth(), panel.getHeight());
+                } else {
+                    panel.paintComponent(offscreen);
+                }
+                long painted = System.nanoTime();
+                if (at >= 0) {
+                    stepNanos[0] += stepped - start;
+                    frameNanos[at] = painted - start;
+                }
+            });
+            if (at >= 0) {
+                bullets += panel.getEnemyProjectileCount();
+                entities += panel.getEntityCount();
+            }
+        }
+        if (offscreen != null) offscreen.dispose();
+        if (window[0] != null) SwingUtilities.invokeAndWait(window[0]::dispose);
+
+        Arrays.sort(frameNanos);
+        Result r = new Result();
+        r.name = scenario.getName();
+        r.kernel = kernel.getName();
+        r.kernelMicros = (panel.getBulletKernelNanos() - kernelStart) / 1e3 / ticks;
+        r.ticksPerSecond = ticks / (stepNanos[0] / 1e9);
+        r.p50 = millis(frameNanos, 0.50);
+        r.p90 = millis(frameNanos, 0.90);
+        r.p99 = millis(frameNanos, 0.99);
+        r.max = frameNanos[ticks - 1] / 1e6;
+        r.bullets = bullets / ticks;
+        r.entities = entities / ticks;
+        return r;
+    }
+
+    private static double millis(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))] / 1e6;
+    }
+
+    // Strafe side to side under the middle of the screen, firing at it every tick
+    private static void script(InputFrame frame, int t) {
+        frame.keyBits = (t / 90) % 2 == 0 ? InputFrame.KEY_LEFT : InputFrame.KEY_RIGHT;
+        frame.mouseX = FRAME_WIDTH / 2;
+        frame.mouseY = FRAME_HEIGHT / 3 + (t % 120);
+        frame.shoot = true;
+        frame.dash = false;
+        frame.upgradeChoice = -1;
+        frame.paused = false;
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.*;
+import java.nio.file.*;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Heatmaps for balancing. While a wave is played, positions are binned into fixed COLS x ROWS
+// grids (scaled to the screen, so every resolution lands on the same grid): where the player
+// is each tick, where enemy projectiles are, where healing is picked up, where the player dies,
+// and where damage lands for each source. Sampling is a few array increments per tick.
+//
+// At the end of each wave the grids are appended to one file per session under telemetry/ and
+// cleared. Each wave block is columnar: one column per grid, stored sparse as varint cell-index
+// deltas followed by varint counts. `java TelemetrySampler telemetry/session-....bht` prints a summary.
+// Live play only; turned off with -Dbullethell.telemetry=false.
+public class TelemetrySampler {
+    public static final int COLS = 64;
+    public static final int ROWS = 36;
+    private static final int CELLS = COLS * ROWS;
+    private static final int MAX_SOURCES = 8; // damage sources beyond this share the last slot
+    private static final String TELEMETRY_DIR = "telemetry";
+    private static final int MAGIC = 0x42485454; // "BHTT"
+    private static final int VERSION = 1;
+
+    public static final int CLEARED = 0;
+    public static final int DIED = 1;
+
+    private static final ExecutorService ioThread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "telemetry-io");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final int[] playerTicks = new int[CELLS];
+    private final int[] enemyShots = new int[CELLS];
+    private final int[] healingPickups = new int[CELLS];
+    private final int[] deaths = new int[CELLS];
+    private final String[] sourceNames = new String[MAX_SOURCES];
+    private final int[][] damage = new int[MAX_SOURCES][CELLS];
+    private int sourceCount = 0;
+    private int ticks = 0;
+    private int width = 1, height = 1;
+
+    private final String fileName;
+
+    public TelemetrySampler() {
+        fileName = "session-" + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date()) + ".bht";
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equals(System.getProperty("bullethell.telemetry"));
+    }
+
+    // Once per simulated tick
+    public void sampleTick(Player player, EnemyBullets enemyProjectiles, int width, int height) {
+        this.width = Math.max(1, width);
+        this.height = Math.max(1, height);
+        ticks++;
+        playerTicks[cell(player.getX(), player.getY())]++;
+        for (int i = 0; i < enemyProjectiles.size(); i++) {
+            enemyShots[cell(enemyProjectiles.getX(i), enemyProjectiles.getY(i))]++;
+        }
+    }
+
+    public void damageTaken(String source, int amount, int x, int y) {
+        damage[sourceIndex(source)][cell(x, y)] += amount;
+    }
+
+    public void healingPickedUp(int x, int y) {
+        healingPickups[cell(x, y)]++;
+    }
+
+    public void playerDied(int x, int y) {
+        deaths[cell(x, y)]++;
+    }
+
+    // Append this wave's grids to the session file and start over. Encoding happens here; the
+    // write happens on the I/O thread.
+    public void flush(int wave, int outcome) {
+        if (ticks == 0) return;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(wave);
+            out.writeByte(outcome);
+            out.writeInt(ticks);
+            out.writeShort(COLS);
+            out.writeShort(ROWS);
+            out.writeShort(width);
+            out.writeShort(height);
+            out.writeShort(4 + sourceCount);
+            writeColumn(out, "player", playerTicks);
+            writeColumn(out, "enemy_shots", enemyShots);
+            writeColumn(out, "healing", healingPickups);
+            writeColumn(out, "deaths", deaths);
+            for (int s = 0; s < sourceCount; s++) {
+                writeColumn(out, "damage:" + sourceNames[s], damage[s]);
+            }
+        } catch (IOException e) {
+            // ByteArrayOutputStream doesn't throw
+            throw new UncheckedIOException(e);
+        }
+        clear();
+
+        byte[] data = bytes.toByteArray();
+        ioThread.execute(() -> {
+            try {
+                Path dir = Paths.get(TELEMETRY_DIR);
+                Files.createDirectories(dir);
+                Files.write(dir.resolve(fileName), data, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                Log.warn("TelemetrySampler", "Couldn't write " + fileName, e);
+            }
+        });
+    }
+
+    public void clear() {
+        Arrays.fill(playerTicks, 0);
+        Arrays.fill(enemyShots, 0);
+        Arrays.fill(healingPickups, 0);
+        Arrays.fill(deaths, 0);
+        for (int s = 0; s < sourceCount; s++) {
+            Arrays.fill(damage[s], 0);
+        }
+        ticks = 0;
+    }
+
+    private int cell(int x, int y) {
+        int col = Math.max(0, Math.min(COLS - 1, (int) ((long) x * COLS / width)));
+        int row = Math.max(0, Math.min(ROWS - 1, (int) ((long) y * ROWS / height)));
+        return row * COLS + col;
+    }
+
+    // Sources are a handful of string constants, so the identity check almost always hits
+    private int sourceIndex(String source) {
+        for (int s = 0; s < sourceCount; s++) {
+            if (sourceNames[s] == source) return s;
+        }
+        for (int s = 0; s < sourceCount; s++) {
+            if (sourceNames[s].equals(source)) return s;
+        }
+        if (sourceCount < MAX_SOURCES - 1) {
+            sourceNames[sourceCount] = source;
+            return sourceCount++;
+        }
+        if (sourceCount == MAX_SOURCES - 1) {
+            sourceNames[sourceCount++] = "other";
+        }
+        return MAX_SOURCES - 1;
+    }
+
+    private static void writeColumn(DataOutputStream out, String name, int[] grid) throws IOException {
+        int nonZero = 0;
+        for (int v : grid) {
+            if (v != 0) nonZero++;
+        }
+        out.writeUTF(name);
+        writeVarInt(out, nonZero);
+        int last = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (grid[i] != 0) {
+                writeVarInt(out, i - last);
+                last = i;
+            }
+        }
+        for (int i = 0; i < CELLS; i++) {
+            if (grid[i] != 0) writeVarInt(out, grid[i]);
+        }
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    // Prints each wave in a session file: totals per column and the hottest cell
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: TelemetrySampler <session file>");
+            System.exit(2);
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(Paths.get(args[0]))))) {
+            while (in.available() > 0) {
+                if (in.readInt() != MAGIC || in.readShort() != VERSION) {
+                    throw new IOException("Not a telemetry file: " + args[0]);
+                }
+                int wave = in.readInt();
+                int outcome = in.readByte();
+                int ticks = in.readInt();
+                int cols = in.readShort();
+                int rows = in.readShort();
+                int width = in.readShort();
+                int height = in.readShort();
+                int columns = in.readShort();
+                System.out.printf("wave %d  %s after %d ticks  (%dx%d grid over %dx%d)%n",
+                    wave, outcome == DIED ? "died" : "cleared", ticks, cols, rows, width, height);
+                for (int c = 0; c < columns; c++) {
+                    String name = in.readUTF();
+                    int count = readVarInt(in);
+                    int[] cells = new int[count];
+                    int cell = 0;
+                    for (int i = 0; i < count; i++) {
+                        cell += readVarInt(in);
+                        cells[i] = cell;
+                    }
+                    long total = 0;
+                    int hottest = -1, hottestValue = 0;
+                    for (int i = 0; i < count; i++) {
+                        int value = readVarInt(in);
+                        total += value;
+                        if (value > hottestValue) {
+                            hottestValue = value;
+                            hottest = cells[i];
+                        }
+                    }
+                    System.out.printf("  %-28s total %8d  cells %4d", name, total, count);
+                    if (hottest >= 0) {
+                        System.out.printf("  hottest (%d,%d) = %d", hottest % cols, hottest / cols, hottestValue);
+                    }
+                    System.out.println();
+                }
+            }
+        }
+    }
+}
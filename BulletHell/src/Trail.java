@@ -0,0 +1,50 @@
+// Fixed set of recent positions, oldest first. Entries are reused as the trail moves, so
+// adding a position every tick doesn't create garbage the way new int[]{x, y} did.
+public class Trail {
+    private int[][] entries;
+    private int head = 0; // index of the oldest entry
+    private int size = 0;
+
+    public Trail(int capacity) {
+        entries = new int[Math.max(1, capacity)][2];
+    }
+
+    public void add(int x, int y) {
+        if (size == entries.length) grow();
+        int[] pos = entries[(head + size) % entries.length];
+        pos[0] = x;
+        pos[1] = y;
+        size++;
+    }
+
+    public void removeOldest() {
+        if (size == 0) return;
+        head = (head + 1) % entries.length;
+        size--;
+    }
+
+    // The entry is reused once it falls off the trail, so don't hold on to it
+    public int[] get(int i) {
+        return entries[(head + i) % entries.length];
+    }
+
+    public int size() { return size; }
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    private void grow() {
+        int[][] bigger = new int[entries.length * 2][];
+        for (int i = 0; i < entries.length; i++) {
+            bigger[i] = entries[(head + i) % entries.length];
+        }
+        for (int i = entries.length; i < bigger.length; i++) {
+            bigger[i] = new int[2];
+        }
+        entries = bigger;
+        head = 0;
+    }
+}
@@ -1,18 +1,26 @@
 import java.awt.*;
-import java.util.ArrayList;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 
 public class TriangleEnemy {
+    private static final int HALF_SIZE = 15; // the hit box is 2 * HALF_SIZE square
     private int x, y;
+    private int handle; // from EntityHandles; 0 until the first collision pass
     private int hp = 1;
     private int shootCooldown = 30;
     private int velocityX;
     private int velocityY;
     private static final int MOVE_SPEED = 1;
+    // Shotgun: 3 bullets 0.35 rad apart, centred on the player
+    private static final BulletPattern SHOTGUN = new BulletPattern(3, 0.7).aim(BulletPattern.Aim.TARGET).compile();
+    private final GameRandom random;
 
-    public TriangleEnemy(int x, int y) {
+    public TriangleEnemy(int x, int y, GameRandom random) {
         this.x = x;
         this.y = y;
-        this.velocityX = (int)((Math.random() - 0.5) * 2);
+        this.random = random;
+        this.velocityX = (int)((random.nextDouble() - 0.5) * 2);
         this.velocityY = 1;
     }
 
@@ -48,16 +56,9 @@ public class TriangleEnemy {
         if (shootCooldown > 0) shootCooldown--;
     }
 
-    public void spawnProjectiles(ArrayList<EnemyProjectile> projectiles, int playerX, int playerY) {
+    public void spawnProjectiles(ShotBuffer projectiles, int playerX, int playerY) {
         if (shootCooldown <= 0) {
-            // Shotgun pattern: 3 bullets spread
-            double baseAngle = Math.atan2(playerY - y, playerX - x);
-            
-            for (int i = -1; i <= 1; i++) {
-                double angle = baseAngle + (i * 0.35);
-                projectiles.add(new EnemyProjectile(x, y, angle));
-            }
-            
+            SHOTGUN.fireAt(projectiles, x, y, playerX, playerY);
             shootCooldown = 60;
         }
     }
@@ -70,17 +71,41 @@ public class TriangleEnemy {
         return hp <= 0;
     }
 
-    public boolean collidesWith(int px, int py) {
-        return Math.abs(x - px) < 15 && Math.abs(y - py) < 15;
+    public void addCollider(CollisionSystem collisions, int index) {
+        collisions.addBox(CollisionSystem.TRIANGLE, index, x, y, x, y, HALF_SIZE, HALF_SIZE);
     }
 
     public void draw(Graphics2D g) {
-        var sprite = SpriteLoader.getSprite("triangle_enemy");
+        var sprite = SpriteLoader.getSprite("triangle_enemy", 40, 40);
         if (sprite != null) {
-            g.drawImage(sprite, x - 20, y - 20, 40, 40, null);
+            g.drawImage(sprite, x - 20, y - 20, null);
         }
     }
 
+    public int getHandle() { return handle; }
+    public void setHandle(int handle) { this.handle = handle; }
     public int getX() { return x; }
     public int getY() { return y; }
+
+    public void writeState(DataOutput out) throws IOException {
+        out.writeInt(handle);
+        out.writeInt(x);
+        out.writeInt(y);
+        out.writeInt(hp);
+        out.writeInt(shootCooldown);
+        out.writeInt(velocityX);
+        out.writeInt(velocityY);
+        out.writeLong(random.getState());
+    }
+
+    public void readState(DataInput in) throws IOException {
+        handle = in.readInt();
+        x = in.readInt();
+        y = in.readInt();
+        hp = in.readInt();
+        shootCooldown = in.readInt();
+        velocityX = in.readInt();
+        velocityY = in.readInt();
+        random.setState(in.readLong());
+    }
 }
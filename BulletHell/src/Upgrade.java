@@ -5,7 +5,8 @@ public class Upgrade {
         EXTRA_HEALTH("Extra Life", "Gain 1 maximum health"),
         PIERCING_SHOTS("Piercing Shots", "Bullets pierce enemies"),
         TRIPLE_SHOT("Triple Shot", "Fire 3 bullets at once"),
-        SLOW_ENEMIES("Slow Field", "Enemies move slower");
+        SLOW_ENEMIES("Slow Field", "Enemies move slower"),
+        HOMING_SHOTS("Homing Shots", "Bullets seek out enemies");
         
         private String name;
         private String description;
@@ -47,18 +48,21 @@ public class Upgrade {
             case SLOW_ENEMIES:
                 player.setSlowFieldActive(true);
                 break;
+            case HOMING_SHOTS:
+                player.setHomingShots(true);
+                break;
         }
     }
     
-    public static Upgrade getRandomUpgrade() {
+    public static Upgrade getRandomUpgrade(GameRandom random) {
         UpgradeType[] types = UpgradeType.values();
-        return new Upgrade(types[(int)(Math.random() * types.length)]);
+        return new Upgrade(types[(int)(random.nextDouble() * types.length)]);
     }
     
-    public static Upgrade[] getRandomUpgrades(int count) {
+    public static Upgrade[] getRandomUpgrades(int count, GameRandom random) {
         Upgrade[] upgrades = new Upgrade[count];
         for (int i = 0; i < count; i++) {
-            upgrades[i] = getRandomUpgrade();
+            upgrades[i] = getRandomUpgrade(random);
         }
         return upgrades;
     }
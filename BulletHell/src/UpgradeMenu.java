@@ -10,6 +10,10 @@ public class UpgradeMenu extends JPanel {
     private static final Color BUTTON_COLOR = new Color(150, 100, 200);
     private static final Color BUTTON_HOVER_COLOR = new Color(200, 150, 255);
     private static final Color TEXT_COLOR = Color.WHITE;
+    private static final Stroke BUTTON_STROKE = new BasicStroke(2);
+    private static final Font NAME_FONT = new Font("Arial", Font.BOLD, 16);
+    private static final Font DESCRIPTION_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 36);
 
     private class Button {
         int x, y, width, height;
@@ -32,16 +36,16 @@ public class UpgradeMenu extends JPanel {
             g.setColor(hovered ? BUTTON_HOVER_COLOR : BUTTON_COLOR);
             g.fillRect(x, y, width, height);
             g.setColor(TEXT_COLOR);
-            g.setStroke(new BasicStroke(2));
+            g.setStroke(BUTTON_STROKE);
             g.drawRect(x, y, width, height);
             
-            g.setFont(new Font("Arial", Font.BOLD, 16));
+            g.setFont(NAME_FONT);
             FontMetrics fm = g.getFontMetrics();
             int textX = x + (width - fm.stringWidth(upgrade.getType().getName())) / 2;
             int textY = y + 25;
             g.drawString(upgrade.getType().getName(), textX, textY);
             
-            g.setFont(new Font("Arial", Font.PLAIN, 12));
+            g.setFont(DESCRIPTION_FONT);
             fm = g.getFontMetrics();
             String desc = upgrade.getType().getDescription();
             int descX = x + (width - fm.stringWidth(desc)) / 2;
@@ -84,14 +88,14 @@ public class UpgradeMenu extends JPanel {
         });
     }
 
-    private void updateHover(int x, int y) {
+    public void updateHover(int x, int y) {
         for (Button button : buttons) {
             button.hovered = button.contains(x, y);
         }
         repaint();
     }
 
-    private void handleClick(int x, int y) {
+    public void handleClick(int x, int y) {
         for (int i = 0; i < buttons.length; i++) {
             if (buttons[i].contains(x, y)) {
                 if (listener != null) {
@@ -111,7 +115,7 @@ public class UpgradeMenu extends JPanel {
         g2d.fillRect(0, 0, getWidth(), getHeight());
 
         g2d.setColor(TEXT_COLOR);
-        g2d.setFont(new Font("Arial", Font.BOLD, 36));
+        g2d.setFont(TITLE_FONT);
         String title = "CHOOSE AN UPGRADE";
         FontMetrics fm = g2d.getFontMetrics();
         int titleX = (getWidth() - fm.stringWidth(title)) / 2;
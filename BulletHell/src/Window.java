@@ -17,13 +17,20 @@ public class Window extends JFrame {
         setResizable(false);
         
         achievements = new Achievements();
+        StartupTimer.mark("achievements");
         mainMenu = new MainMenu(achievements);
+        StartupTimer.mark("main menu");
         mainMenu.setListener(new MainMenu.MainMenuListener() {
             @Override
             public void onPlayClicked() {
                 startGame();
             }
 
+            @Override
+            public void onContinueClicked() {
+                resumeGame();
+            }
+
             @Override
             public void onDebugWaveSelected(int wave) {
                 startGameAtWave(wave);
@@ -63,27 +70,33 @@ public class Window extends JFrame {
         });
         
         setFocusable(true);
+        StartupTimer.mark("window shown");
     }
 
     private void startGame() {
-        remove(currentPanel);
-        gamePanel = new GamePanel(achievements);
-        gamePanel.setGamePanelListener(new GamePanel.GamePanelListener() {
-            @Override
-            public void onReturnToMenu() {
-                returnToMenu();
-            }
-        });
-        currentPanel = gamePanel;
-        add(gamePanel);
-        setVisible(true);
-        gamePanel.requestFocus();
-        toggleFullscreen();
+        StartupTimer.idle();
+        showGame(new GamePanel(achievements));
     }
 
     private void startGameAtWave(int wave) {
+        StartupTimer.idle();
+        showGame(new GamePanel(achievements, wave));
+    }
+
+    private void resumeGame() {
+        StartupTimer.idle();
+        byte[] snapshot = RunSnapshot.load();
+        if (snapshot == null) {
+            startGame();
+            return;
+        }
+        showGame(new GamePanel(achievements, snapshot));
+    }
+
+    private void showGame(GamePanel panel) {
+        StartupTimer.mark("game panel");
         remove(currentPanel);
-        gamePanel = new GamePanel(achievements, wave);
+        gamePanel = panel;
         gamePanel.setGamePanelListener(new GamePanel.GamePanelListener() {
             @Override
             public void onReturnToMenu() {
@@ -95,6 +108,8 @@ public class Window extends JFrame {
         setVisible(true);
         gamePanel.requestFocus();
         toggleFullscreen();
+        StartupTimer.mark("fullscreen");
+        gamePanel.start();
     }
 
     private void returnToMenu() {
@@ -102,6 +117,7 @@ public class Window extends JFrame {
         isFullscreen = false;
         remove(currentPanel);
         currentPanel = mainMenu;
+        mainMenu.refreshSavedRun();
         add(mainMenu);
         setSize(800, 600);
         setLocationRelativeTo(null);
@@ -126,8 +142,12 @@ public class Window extends JFrame {
     }
 
     public static void main(String[] args) {
+        StartupTimer.start();
         // Generate sprites if they don't exist
         SpriteGenerator.generateAllSprites();
+        StartupTimer.mark("sprites");
+        GameMetrics.install();
+        StartupTimer.mark("metrics");
         SwingUtilities.invokeLater(() -> new Window());
     }
 }